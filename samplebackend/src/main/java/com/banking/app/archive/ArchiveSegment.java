@@ -0,0 +1,451 @@
+package com.banking.app.archive;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable archive file of transactions. Every transaction is stored once per account
+ * it touches, as an entry keyed by {@code (account id, created at, id)}; entries are sorted
+ * by that key and deflated in blocks. The file ends with an index of the accounts (which
+ * blocks hold their entries, and how many) and of the blocks (first key and position), so
+ * a read only inflates the blocks of the requested account and time range. Files are read
+ * through a memory mapping.
+ * <p>
+ * Layout: magic, version, compressed blocks, account index, block index, index offset, magic.
+ */
+public final class ArchiveSegment {
+
+    private static final int MAGIC = 0x54584152; // "TXAR"
+    private static final int VERSION = 1;
+
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+            .comparingLong((Entry entry) -> entry.accountId)
+            .thenComparingLong(entry -> entry.createdAt)
+            .thenComparingLong(entry -> entry.transaction.getId());
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    // Account index, sorted by account id
+    private final long[] accountIds;
+    private final int[] accountFirstBlocks;
+    private final int[] accountLastBlocks;
+    private final long[] accountEntryCounts;
+
+    // Block index, in key order
+    private final long[] blockAccountIds;
+    private final long[] blockCreatedAts;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockRawLengths;
+
+    private ArchiveSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int size = buffer.capacity();
+        if (size < 20 || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported archive segment version in " + path);
+        }
+
+        ByteBuffer index = buffer.duplicate();
+        index.position((int) buffer.getLong(size - 12));
+        int accounts = index.getInt();
+        accountIds = new long[accounts];
+        accountFirstBlocks = new int[accounts];
+        accountLastBlocks = new int[accounts];
+        accountEntryCounts = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = index.getLong();
+            accountFirstBlocks[i] = index.getInt();
+            accountLastBlocks[i] = index.getInt();
+            accountEntryCounts[i] = index.getLong();
+        }
+        int blocks = index.getInt();
+        blockAccountIds = new long[blocks];
+        blockCreatedAts = new long[blocks];
+        blockOffsets = new long[blocks];
+        blockLengths = new int[blocks];
+        blockRawLengths = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockAccountIds[i] = index.getLong();
+            blockCreatedAts[i] = index.getLong();
+            blockOffsets[i] = index.getLong();
+            blockLengths[i] = index.getInt();
+            blockRawLengths[i] = index.getInt();
+        }
+    }
+
+    public static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive segment too large to map: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new ArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the transactions to a new segment file at {@code path}, through a temporary
+     * file that is synced and then renamed, so a segment is either complete or absent.
+     * The transactions' accounts must be loaded.
+     */
+    public static void write(Path path, List<Transaction> transactions, int blockEntries) throws IOException {
+        List<Entry> entries = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            Long fromId = transaction.getFromAccount() != null ? transaction.getFromAccount().getId() : null;
+            Long toId = transaction.getToAccount() != null ? transaction.getToAccount().getId() : null;
+            if (fromId != null) {
+                entries.add(new Entry(fromId, transaction));
+            }
+            if (toId != null && !toId.equals(fromId)) {
+                entries.add(new Entry(toId, transaction));
+            }
+        }
+        entries.sort(ENTRY_ORDER);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long offset = 8;
+
+            List<long[]> accounts = new ArrayList<>();
+            List<long[]> blocks = new ArrayList<>();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                for (int start = 0; start < entries.size(); start += blockEntries) {
+                    List<Entry> block = entries.subList(start, Math.min(start + blockEntries, entries.size()));
+                    int blockIndex = blocks.size();
+                    for (Entry entry : block) {
+                        long[] account = accounts.isEmpty() ? null : accounts.get(accounts.size() - 1);
+                        if (account == null || account[0] != entry.accountId) {
+                            accounts.add(new long[] {entry.accountId, blockIndex, blockIndex, 1});
+                        } else {
+                            account[2] = blockIndex;
+                            account[3]++;
+                        }
+                    }
+
+                    byte[] raw = encode(block);
+                    byte[] compressed = deflate(deflater, raw);
+                    out.write(compressed);
+                    Entry first = block.get(0);
+                    blocks.add(new long[] {first.accountId, first.createdAt, offset, compressed.length, raw.length});
+                    offset += compressed.length;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            out.writeInt(accounts.size());
+            for (long[] account : accounts) {
+                out.writeLong(account[0]);
+                out.writeInt((int) account[1]);
+                out.writeInt((int) account[2]);
+                out.writeLong(account[3]);
+            }
+            out.writeInt(blocks.size());
+            for (long[] block : blocks) {
+                out.writeLong(block[0]);
+                out.writeLong(block[1]);
+                out.writeLong(block[2]);
+                out.writeInt((int) block[3]);
+                out.writeInt((int) block[4]);
+            }
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+            out.flush();
+            fileOut.getChannel().force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Number of entries of the account in this segment, without reading any block.
+     */
+    public long count(long accountId) {
+        int account = Arrays.binarySearch(accountIds, accountId);
+        return account >= 0 ? accountEntryCounts[account] : 0;
+    }
+
+    /**
+     * Iterates the account's transactions created within {@code [from, to]} (either may
+     * be null) in {@code (createdAt, id)} order, or in reverse. Blocks are inflated lazily,
+     * so a caller that stops early reads no further.
+     */
+    public Iterator<Transaction> scan(long accountId, LocalDateTime from, LocalDateTime to, boolean newestFirst) {
+        int account = Arrays.binarySearch(accountIds, accountId);
+        if (account < 0) {
+            return Collections.emptyIterator();
+        }
+        long lower = from != null ? micros(from) : Long.MIN_VALUE;
+        long upper = to != null ? micros(to) : Long.MAX_VALUE;
+        int firstBlock = accountFirstBlocks[account];
+        int lastBlock = accountLastBlocks[account];
+        // Entries equal to the lower bound may run on from the block before one starting at it
+        int startBlock = lower == Long.MIN_VALUE ? firstBlock
+                : lastBlockStartingAtOrBefore(accountId, lower - 1, firstBlock, lastBlock);
+        int endBlock = Math.max(startBlock, lastBlockStartingAtOrBefore(accountId, upper, firstBlock, lastBlock));
+        return new BlockIterator(accountId, lower, upper, startBlock, endBlock, newestFirst);
+    }
+
+    private int lastBlockStartingAtOrBefore(long accountId, long createdAt, int low, int high) {
+        int result = low;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            boolean startsBefore = blockAccountIds[mid] < accountId
+                    || (blockAccountIds[mid] == accountId && blockCreatedAts[mid] <= createdAt);
+            if (startsBefore) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private List<Entry> readBlock(int block) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) blockOffsets[block], blockLengths[block]));
+            byte[] raw = new byte[blockRawLengths[block]];
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+            return decode(raw);
+        } catch (DataFormatException | IOException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block " + block + " in " + path, e));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private final class BlockIterator implements Iterator<Transaction> {
+        private final long accountId;
+        private final long lower;
+        private final long upper;
+        private final int endBlock;
+        private final int startBlock;
+        private final boolean newestFirst;
+        private int nextBlock;
+        private List<Entry> current = List.of();
+        private int position;
+        private Transaction next;
+        private boolean done;
+
+        private BlockIterator(long accountId, long lower, long upper, int startBlock, int endBlock,
+                              boolean newestFirst) {
+            this.accountId = accountId;
+            this.lower = lower;
+            this.upper = upper;
+            this.startBlock = startBlock;
+            this.endBlock = endBlock;
+            this.newestFirst = newestFirst;
+            this.nextBlock = newestFirst ? endBlock : startBlock;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                if (position >= current.size()) {
+                    if (newestFirst ? nextBlock < startBlock : nextBlock > endBlock) {
+                        done = true;
+                        break;
+                    }
+                    current = readBlock(nextBlock);
+                    if (newestFirst) {
+                        Collections.reverse(current);
+                        nextBlock--;
+                    } else {
+                        nextBlock++;
+                    }
+                    position = 0;
+                    continue;
+                }
+                Entry entry = current.get(position++);
+                if (entry.accountId != accountId) {
+                    continue;
+                }
+                if (entry.createdAt < lower) {
+                    done = newestFirst;
+                } else if (entry.createdAt > upper) {
+                    done = !newestFirst;
+                } else {
+                    next = entry.transaction;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Transaction result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] chunk = new byte[16 * 1024];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] encode(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 160);
+        DataOutputStream data = new DataOutputStream(bytes);
+        for (Entry entry : entries) {
+            Transaction transaction = entry.transaction;
+            data.writeLong(entry.accountId);
+            data.writeLong(entry.createdAt);
+            data.writeLong(transaction.getId());
+            data.writeUTF(transaction.getTransactionId());
+            data.writeUTF(transaction.getTransactionType().name());
+            data.writeUTF(transaction.getAmount().toPlainString());
+            data.writeUTF(transaction.getStatus().name());
+            writeNullableString(data, transaction.getDescription());
+            writeNullableString(data, transaction.getReferenceNumber());
+            writeNullableString(data, transaction.getFailureReason());
+            writeNullableLong(data, transaction.getUpdatedAt() != null ? micros(transaction.getUpdatedAt()) : null);
+            writeAccount(data, transaction.getFromAccount());
+            writeAccount(data, transaction.getToAccount());
+        }
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<Entry> decode(byte[] raw) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<Entry> entries = new ArrayList<>();
+        while (in.available() > 0) {
+            long accountId = in.readLong();
+            long createdAt = in.readLong();
+            Transaction transaction = new Transaction();
+            transaction.setId(in.readLong());
+            transaction.setTransactionId(in.readUTF());
+            transaction.setTransactionType(Transaction.TransactionType.valueOf(in.readUTF()));
+            transaction.setAmount(new BigDecimal(in.readUTF()));
+            transaction.setStatus(Transaction.TransactionStatus.valueOf(in.readUTF()));
+            transaction.setDescription(readNullableString(in));
+            transaction.setReferenceNumber(readNullableString(in));
+            transaction.setFailureReason(readNullableString(in));
+            Long updatedAt = readNullableLong(in);
+            transaction.setUpdatedAt(updatedAt != null ? dateTime(updatedAt) : null);
+            transaction.setCreatedAt(dateTime(createdAt));
+            transaction.setFromAccount(readAccount(in));
+            transaction.setToAccount(readAccount(in));
+            // Archived rows are by definition already in the daily balance snapshots
+            transaction.setSnapshotted(true);
+            entries.add(new Entry(accountId, createdAt, transaction));
+        }
+        return entries;
+    }
+
+    private static void writeAccount(DataOutputStream data, Account account) throws IOException {
+        data.writeBoolean(account != null);
+        if (account != null) {
+            data.writeLong(account.getId());
+            data.writeUTF(account.getAccountNumber());
+        }
+    }
+
+    // Only the id and number are kept; the rest of the account lives in the accounts table
+    private static Account readAccount(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Account account = new Account();
+        account.setId(in.readLong());
+        account.setAccountNumber(in.readUTF());
+        return account;
+    }
+
+    private static void writeNullableLong(DataOutputStream data, Long value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static final class Entry {
+        private final long accountId;
+        private final long createdAt;
+        private final Transaction transaction;
+
+        private Entry(long accountId, Transaction transaction) {
+            this(accountId, micros(transaction.getCreatedAt()), transaction);
+        }
+
+        private Entry(long accountId, long createdAt, Transaction transaction) {
+            this.accountId = accountId;
+            this.createdAt = createdAt;
+            this.transaction = transaction;
+        }
+    }
+}
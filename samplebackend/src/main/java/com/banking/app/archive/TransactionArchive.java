@@ -0,0 +1,213 @@
+package com.banking.app.archive;
+
+import com.banking.app.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The cold tier of the {@code transactions} table: transactions moved out of the table by
+ * {@link com.banking.app.service.TransactionArchiveService}, kept in immutable
+ * {@link ArchiveSegment} files under {@code banking.archive.directory}. Reads return
+ * detached {@link Transaction} objects whose accounts carry only their id and number.
+ * <p>
+ * {@link #merge} combines a hot (database) and a cold iterator, both in history order, so
+ * that readers see one history. A transaction found in both, which can only happen between
+ * a segment being published and the archived rows being deleted, is returned once.
+ */
+@Component
+public class TransactionArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchive.class);
+
+    private static final Comparator<Transaction> HISTORY_ORDER = Comparator
+            .comparing(Transaction::getCreatedAt)
+            .thenComparing(Transaction::getId);
+
+    @Value("${banking.archive.directory:transaction-archive}")
+    private String archiveDir;
+
+    @Value("${banking.archive.block-entries:256}")
+    private int blockEntries;
+
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    @PostConstruct
+    public void load() throws IOException {
+        Path directory = Paths.get(archiveDir);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<ArchiveSegment> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "transactions-*.seg")) {
+            for (Path file : files) {
+                loaded.add(ArchiveSegment.open(file));
+            }
+        }
+        // A segment still being written when the process stopped is incomplete
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        segments = List.copyOf(loaded);
+        if (!loaded.isEmpty()) {
+            logger.info("Loaded {} transaction archive segments from {}", loaded.size(), directory.toAbsolutePath());
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Writes the transactions, whose accounts must be loaded, to a new segment and makes it
+     * visible to readers. Once this returns the rows may be deleted from the table.
+     */
+    public synchronized void append(List<Transaction> transactions) throws IOException {
+        long firstId = transactions.stream().mapToLong(Transaction::getId).min().orElseThrow();
+        long lastId = transactions.stream().mapToLong(Transaction::getId).max().orElseThrow();
+        Path directory = Files.createDirectories(Paths.get(archiveDir));
+        Path path = directory.resolve(String.format("transactions-%020d-%020d.seg", firstId, lastId));
+        ArchiveSegment.write(path, transactions, blockEntries);
+
+        // A retry after a failed delete rewrites the same segment
+        List<ArchiveSegment> updated = new ArrayList<>(segments);
+        updated.removeIf(segment -> segment.getPath().equals(path));
+        updated.add(ArchiveSegment.open(path));
+        segments = List.copyOf(updated);
+    }
+
+    public long count(Long accountId) {
+        long count = 0;
+        for (ArchiveSegment segment : segments) {
+            count += segment.count(accountId);
+        }
+        return count;
+    }
+
+    /**
+     * The archived history of an account within {@code [from, to]} (either may be null),
+     * newest or oldest first, read lazily across all segments.
+     */
+    public Iterator<Transaction> scan(Long accountId, LocalDateTime from, LocalDateTime to, boolean newestFirst) {
+        List<Iterator<Transaction>> sources = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.count(accountId) > 0) {
+                sources.add(segment.scan(accountId, from, to, newestFirst));
+            }
+        }
+        if (sources.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        if (sources.size() == 1) {
+            return sources.get(0);
+        }
+        return new MergingIterator(sources, order(newestFirst));
+    }
+
+    /**
+     * Merges a database iterator with an archive iterator, both sorted by {@code order}
+     * on {@code (createdAt, id)}, dropping archived copies of transactions the database
+     * still returns.
+     */
+    public static <T> Iterator<T> merge(Iterator<T> hot, Iterator<T> cold, Comparator<? super T> order) {
+        if (!cold.hasNext()) {
+            return hot;
+        }
+        return new Iterator<>() {
+            private T nextHot = hot.hasNext() ? hot.next() : null;
+            private T nextCold = cold.next();
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || nextCold != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int comparison = nextHot == null ? 1 : nextCold == null ? -1 : order.compare(nextHot, nextCold);
+                T result;
+                if (comparison <= 0) {
+                    result = nextHot;
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                    if (comparison == 0) {
+                        nextCold = cold.hasNext() ? cold.next() : null;
+                    }
+                } else {
+                    result = nextCold;
+                    nextCold = cold.hasNext() ? cold.next() : null;
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * History order: by {@code (createdAt, id)}, or the reverse.
+     */
+    public static Comparator<Transaction> order(boolean newestFirst) {
+        return newestFirst ? HISTORY_ORDER.reversed() : HISTORY_ORDER;
+    }
+
+    private static final class MergingIterator implements Iterator<Transaction> {
+        private final PriorityQueue<Head> heads;
+
+        private MergingIterator(List<Iterator<Transaction>> sources, Comparator<Transaction> order) {
+            heads = new PriorityQueue<>(sources.size(), (a, b) -> order.compare(a.transaction, b.transaction));
+            for (Iterator<Transaction> source : sources) {
+                if (source.hasNext()) {
+                    heads.add(new Head(source.next(), source));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head);
+            // Drop copies of the same transaction in other segments
+            while (!heads.isEmpty() && heads.peek().transaction.getId().equals(head.transaction.getId())) {
+                advance(heads.poll());
+            }
+            return head.transaction;
+        }
+
+        private void advance(Head head) {
+            if (head.source.hasNext()) {
+                heads.add(new Head(head.source.next(), head.source));
+            }
+        }
+    }
+
+    private static final class Head {
+        private final Transaction transaction;
+        private final Iterator<Transaction> source;
+
+        private Head(Transaction transaction, Iterator<Transaction> source) {
+            this.transaction = transaction;
+            this.source = source;
+        }
+    }
+}
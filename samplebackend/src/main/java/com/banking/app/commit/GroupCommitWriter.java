@@ -0,0 +1,273 @@
+package com.banking.app.commit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Collects items submitted by many threads and hands them to {@code writer} in groups,
+ * so that a single database transaction (and a single commit) covers all of them. A
+ * group is closed when {@code windowMillis} have passed since its first item or when it holds
+ * {@code maxBatchSize} items. Groups are written one at a time by a dedicated thread.
+ * Each caller blocks until its group has been written, for at most {@code timeoutMillis},
+ * and gets its own result back.
+ * <p>
+ * When writing a group throws, its transaction has been rolled back, so each item is
+ * written once more on its own: the item that broke the group fails, the others succeed.
+ */
+public class GroupCommitWriter<T, R> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    // How often an idle committer checks whether it has been shut down
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long SHUTDOWN_GRACE_SECONDS = 10;
+
+    private final String name;
+    private final Function<List<T>, List<Result<R>>> writer;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+    private final BlockingQueue<Pending<T, R>> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService committer;
+    private final DistributionSummary batchSizes;
+    private final Timer waitTimes;
+    private final Timer writeTimes;
+    private volatile boolean stopped;
+
+    /**
+     * @param writer        writes a group in one transaction and returns one result per item,
+     *                      in order; when it throws, the transaction must have been rolled back
+     * @param timeoutMillis how long {@link #submit} waits for the item's group to be written
+     */
+    public GroupCommitWriter(String name, Function<List<T>, List<Result<R>>> writer,
+                             long windowMillis, int maxBatchSize, long timeoutMillis, MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        this.name = name;
+        this.writer = writer;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.batchSizes = DistributionSummary.builder("banking.group.commit.batch.size")
+                .description("Items written per group commit")
+                .tag("writer", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTimes = Timer.builder("banking.group.commit.wait")
+                .description("Time an item waits for its group to be written")
+                .tag("writer", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.writeTimes = Timer.builder("banking.group.commit.write")
+                .description("Time to write and commit one group")
+                .tag("writer", name)
+                .register(meterRegistry);
+        this.committer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "group-commit-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.execute(this::run);
+    }
+
+    /**
+     * Queues {@code item} and waits until its group is committed.
+     *
+     * @throws RuntimeException the item's failure; or, when the writer is shut down or the
+     *                          wait times out, a failure saying whether the item was applied
+     */
+    public R submit(T item) {
+        Pending<T, R> pending = new Pending<>(item);
+        // Checked and queued under the lock shutdown() takes, so no item is queued after the drain
+        synchronized (queue) {
+            if (stopped) {
+                throw new RuntimeException("Group commit writer " + name + " is shut down");
+            }
+            queue.add(pending);
+        }
+        try {
+            return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.cancel()) {
+                throw new RuntimeException("Timed out waiting for group commit; the operation was not applied");
+            }
+            throw new RuntimeException("Timed out waiting for group commit; the operation may still be applied");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.cancel()) {
+                throw new RuntimeException("Interrupted while waiting for group commit; the operation was not applied");
+            }
+            throw new RuntimeException("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops accepting items and fails those still queued. A group already being written
+     * is given {@value #SHUTDOWN_GRACE_SECONDS} seconds to finish.
+     */
+    public void shutdown() {
+        List<Pending<T, R>> queued = new ArrayList<>();
+        synchronized (queue) {
+            stopped = true;
+            queue.drainTo(queued);
+        }
+        queued.forEach(pending -> pending.result.completeExceptionally(
+                new RuntimeException("Group commit writer " + name + " stopped before the operation was applied")));
+        committer.shutdown();
+        try {
+            if (!committer.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Group commit writer {} did not finish its last group in time", name);
+                committer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            committer.shutdownNow();
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> group = new ArrayList<>(maxBatchSize);
+        while (!stopped) {
+            try {
+                Pending<T, R> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T, R> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Fail whatever was collected rather than leaving callers blocked
+                group.forEach(pending -> pending.result.completeExceptionally(
+                        new RuntimeException("Group commit writer " + name + " stopped before the operation was applied")));
+                return;
+            }
+            // Callers that gave up while their item was queued are not written
+            group.removeIf(pending -> !pending.claim());
+            if (!group.isEmpty()) {
+                write(group);
+            }
+            group.clear();
+        }
+    }
+
+    private void write(List<Pending<T, R>> group) {
+        long start = System.nanoTime();
+        group.forEach(pending -> waitTimes.record(start - pending.enqueuedAt, TimeUnit.NANOSECONDS));
+        batchSizes.record(group.size());
+
+        List<T> items = new ArrayList<>(group.size());
+        group.forEach(pending -> items.add(pending.item));
+        try {
+            List<Result<R>> results = writer.apply(items);
+            for (int i = 0; i < group.size(); i++) {
+                complete(group.get(i), results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result.completeExceptionally(e);
+            } else {
+                logger.warn("Group commit of {} {} items failed, writing them one by one", group.size(), name, e);
+                group.forEach(this::writeAlone);
+            }
+        } finally {
+            writeTimes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeAlone(Pending<T, R> pending) {
+        try {
+            complete(pending, writer.apply(List.of(pending.item)).get(0));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static <T, R> void complete(Pending<T, R> pending, Result<R> result) {
+        if (result.failure == null) {
+            pending.result.complete(result.value);
+        } else {
+            pending.result.completeExceptionally(new RuntimeException(result.failure));
+        }
+    }
+
+    /**
+     * Outcome of one item of a group: a value, or the message of the error it failed with.
+     */
+    public static class Result<R> {
+        private final R value;
+        private final String failure;
+
+        private Result(R value, String failure) {
+            this.value = value;
+            this.failure = failure;
+        }
+
+        public static <R> Result<R> success(R value) {
+            return new Result<>(value, null);
+        }
+
+        public static <R> Result<R> failed(String failure) {
+            return new Result<>(null, failure);
+        }
+
+        public R getValue() {
+            return value;
+        }
+
+        public String getFailure() {
+            return failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+
+    private static class Pending<T, R> {
+        private static final int QUEUED = 0;
+        private static final int WRITING = 1;
+        private static final int CANCELLED = 2;
+
+        private final T item;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Pending(T item) {
+            this.item = item;
+        }
+
+        // The committer takes the item for writing; false if its caller has given up
+        private boolean claim() {
+            return state.compareAndSet(QUEUED, WRITING);
+        }
+
+        // The caller gives up; false if the item is already being written
+        private boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+    }
+}
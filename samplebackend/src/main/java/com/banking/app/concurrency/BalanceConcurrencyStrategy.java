@@ -0,0 +1,27 @@
+package com.banking.app.concurrency;
+
+import com.banking.app.entity.Account;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Decides how concurrent balance updates on the same account are serialized. An
+ * implementation loads the requested accounts, runs the work in its own database
+ * transaction and owns any locking or retrying around it. Accounts that do not exist
+ * are simply absent from the map handed to the work.
+ */
+public interface BalanceConcurrencyStrategy {
+    
+    <T> T execute(Collection<String> accountNumbers, Function<Map<String, Account>, T> work);
+    
+    String getName();
+    
+    /**
+     * Number of attempts that had to be repeated because of a conflicting update.
+     */
+    default long getRetryCount() {
+        return 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.banking.app.concurrency;
+
+import com.banking.app.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+public class ConcurrencyConfig {
+    
+    @Value("${banking.concurrency.strategy:pessimistic}")
+    private String strategy;
+    
+    @Value("${banking.concurrency.optimistic.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${banking.concurrency.optimistic.backoff-ms:5}")
+    private long backoffMs;
+    
+    @Value("${banking.concurrency.striped.stripes:1024}")
+    private int stripes;
+    
+    @Bean
+    public BalanceConcurrencyStrategy balanceConcurrencyStrategy(AccountRepository accountRepository,
+                                                                 PlatformTransactionManager transactionManager) {
+        switch (strategy) {
+            case "optimistic":
+                return new OptimisticConcurrencyStrategy(accountRepository, transactionManager,
+                        maxAttempts, backoffMs);
+            case "striped":
+                return new StripedLockConcurrencyStrategy(accountRepository, transactionManager, stripes);
+            case "pessimistic":
+                return new PessimisticConcurrencyStrategy(accountRepository, transactionManager);
+            default:
+                throw new IllegalStateException("Unknown banking.concurrency.strategy: " + strategy);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.banking.app.concurrency;
+
+import com.banking.app.entity.Account;
+import com.banking.app.repository.AccountRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Reads accounts without locking and relies on {@link Account#getVersion()} to detect a
+ * concurrent update at commit. A conflicting attempt is retried in a fresh transaction
+ * after a randomly jittered exponential backoff, up to a bounded number of attempts.
+ */
+public class OptimisticConcurrencyStrategy implements BalanceConcurrencyStrategy {
+    
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final AtomicLong retries = new AtomicLong();
+    
+    public OptimisticConcurrencyStrategy(AccountRepository accountRepository,
+                                         PlatformTransactionManager transactionManager,
+                                         int maxAttempts, long backoffMs) {
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+    }
+    
+    @Override
+    public <T> T execute(Collection<String> accountNumbers, Function<Map<String, Account>, T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Map<String, Account> accounts = new HashMap<>();
+                    for (Account account : accountRepository.findByAccountNumberIn(accountNumbers)) {
+                        accounts.put(account.getAccountNumber(), account);
+                    }
+                    return work.apply(accounts);
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("Account was updated concurrently, please retry");
+                }
+                retries.incrementAndGet();
+                backoff(attempt);
+            }
+        }
+    }
+    
+    private void backoff(int attempt) {
+        // Full jitter: sleep a random time up to the exponential bound
+        long bound = backoffMs << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying balance update");
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "optimistic";
+    }
+    
+    @Override
+    public long getRetryCount() {
+        return retries.get();
+    }
+}
@@ -0,0 +1,42 @@
+package com.banking.app.concurrency;
+
+import com.banking.app.entity.Account;
+import com.banking.app.repository.AccountRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Locks the account rows with {@code SELECT ... FOR UPDATE}, always in account number
+ * order, so two operations touching the same pair of accounts cannot deadlock.
+ */
+public class PessimisticConcurrencyStrategy implements BalanceConcurrencyStrategy {
+    
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    public PessimisticConcurrencyStrategy(AccountRepository accountRepository,
+                                          PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @Override
+    public <T> T execute(Collection<String> accountNumbers, Function<Map<String, Account>, T> work) {
+        SortedSet<String> ordered = new TreeSet<>(accountNumbers);
+        return transactionTemplate.execute(status -> {
+            Map<String, Account> accounts = new HashMap<>();
+            for (Account account : accountRepository.lockByAccountNumbers(ordered)) {
+                accounts.put(account.getAccountNumber(), account);
+            }
+            return work.apply(accounts);
+        });
+    }
+    
+    @Override
+    public String getName() {
+        return "pessimistic";
+    }
+}
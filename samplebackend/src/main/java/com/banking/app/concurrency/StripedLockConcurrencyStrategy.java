@@ -0,0 +1,66 @@
+package com.banking.app.concurrency;
+
+import com.banking.app.entity.Account;
+import com.banking.app.repository.AccountRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Serializes updates inside this JVM with a fixed array of locks striped by account
+ * number. Stripes are acquired in index order to avoid deadlocks, and the database
+ * transaction commits before they are released. This only protects a single instance;
+ * the account version column still catches writers from elsewhere.
+ */
+public class StripedLockConcurrencyStrategy implements BalanceConcurrencyStrategy {
+    
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    
+    public StripedLockConcurrencyStrategy(AccountRepository accountRepository,
+                                          PlatformTransactionManager transactionManager,
+                                          int stripeCount) {
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    @Override
+    public <T> T execute(Collection<String> accountNumbers, Function<Map<String, Account>, T> work) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (String accountNumber : accountNumbers) {
+            indexes.add(Math.floorMod(accountNumber.hashCode(), stripes.length));
+        }
+        
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        try {
+            for (Integer index : indexes) {
+                stripes[index].lock();
+                held.add(stripes[index]);
+            }
+            return transactionTemplate.execute(status -> {
+                Map<String, Account> accounts = new HashMap<>();
+                for (Account account : accountRepository.findByAccountNumberIn(accountNumbers)) {
+                    accounts.put(account.getAccountNumber(), account);
+                }
+                return work.apply(accounts);
+            });
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "striped";
+    }
+}
@@ -1,6 +1,8 @@
 package com.banking.app.config;
 
 import com.banking.app.service.CustomUserDetailsService;
+import com.banking.app.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,10 +20,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
     
-    public AuthTokenFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService) {
+    public AuthTokenFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService,
+                           TokenRevocationService tokenRevocationService) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
     
     @Override
@@ -29,10 +34,17 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                                    FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.extractUsername(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.verifiedClaims(jwt) : null;
+            if (claims != null && !tokenRevocationService.isRevoked(claims)) {
+                // Only tokens issued before they carried the user need it loaded
+                UserDetails userDetails = jwtUtils.toPrincipal(claims);
+                if (userDetails == null) {
+                    userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                }
+                if (!userDetails.isEnabled()) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
                 UsernamePasswordAuthenticationToken authentication = 
                         new UsernamePasswordAuthenticationToken(userDetails, null, 
                                                               userDetails.getAuthorities());
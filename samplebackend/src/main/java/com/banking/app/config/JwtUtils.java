@@ -1,28 +1,90 @@
 package com.banking.app.config;
 
+import com.banking.app.service.UserPrincipal;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the HS256 bearer tokens. The key and parser are built once; both
+ * are thread-safe. Verified tokens are remembered, keyed by their SHA-256 digest, until
+ * their {@code exp}, so a client sending the same token again skips the parse and the
+ * signature check. At most {@code jwt.cache-size} tokens are kept, oldest evicted first.
+ * Verification time is recorded as {@code banking.jwt.verify}, tagged {@code cache=hit}
+ * or {@code cache=miss}.
+ */
 @Component
 public class JwtUtils {
     
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+    
+    // Enough of the user to authenticate a request without loading it
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_FIRST_NAME = "given_name";
+    public static final String CLAIM_LAST_NAME = "family_name";
+    public static final String CLAIM_ROLE = "role";
+    // iat has whole seconds only; this tells a token issued just after a revocation from one before it
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iat_ms";
+    
     @Value("${jwt.secret}")
     private String jwtSecret;
     
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
     
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${jwt.cache-size:10000}")
+    private int cacheSize;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Key signingKey;
+    
+    private JwtParser parser;
+    
+    // Token digest -> verified claims, oldest evicted first once full
+    private Map<String, Claims> verified;
+    
+    private Timer cachedVerifications;
+    
+    private Timer parsedVerifications;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verified = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        cachedVerifications = verifyTimer("hit");
+        parsedVerifications = verifyTimer("miss");
+    }
+    
+    private Timer verifyTimer(String cache) {
+        return Timer.builder("banking.jwt.verify")
+                .description("Time to verify a bearer token")
+                .tag("cache", cache)
+                .register(meterRegistry);
     }
     
     public String extractUsername(String token) {
@@ -39,29 +101,66 @@ public class JwtUtils {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        long start = System.nanoTime();
+        String digest = digest(token);
+        Claims claims;
+        synchronized (verified) {
+            claims = verified.get(digest);
+        }
+        if (claims != null) {
+            cachedVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!isExpired(claims)) {
+                return claims;
+            }
+            synchronized (verified) {
+                verified.remove(digest);
+            }
+            throw new ExpiredJwtException(null, claims, "JWT expired at " + claims.getExpiration());
+        }
+        
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } finally {
+            parsedVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        // A token without an expiry would stay valid in the cache forever
+        if (claims.getExpiration() != null) {
+            synchronized (verified) {
+                verified.put(digest, claims);
+            }
+        }
+        return claims;
     }
     
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
     
+    private static boolean isExpired(Claims claims) {
+        return !claims.getExpiration().after(new Date());
+    }
+    
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof UserPrincipal principal) {
+            claims.put(CLAIM_USER_ID, principal.getId());
+            claims.put(CLAIM_FIRST_NAME, principal.getFirstName());
+            claims.put(CLAIM_LAST_NAME, principal.getLastName());
+            claims.put(CLAIM_ROLE, principal.getRole());
+        }
         return createToken(claims, userDetails.getUsername());
     }
     
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
+                .claim(CLAIM_ISSUED_AT_MILLIS, now)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -71,18 +170,56 @@ public class JwtUtils {
     }
     
     public boolean validateJwtToken(String authToken) {
+        return verifiedClaims(authToken) != null;
+    }
+    
+    public String verifiedUsername(String authToken) {
+        Claims claims = verifiedClaims(authToken);
+        return claims != null ? claims.getSubject() : null;
+    }
+    
+    /**
+     * Verifies the token and returns its claims, or null when the token is invalid or
+     * expired. Parses the token at most once.
+     */
+    public Claims verifiedClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            return extractAllClaims(authToken);
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
+            logger.debug("JWT token is expired: {}", e.getMessage());
+        } catch (MalformedJwtException e) {
+            logger.warn("Invalid JWT token: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
+            logger.warn("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.warn("JWT token rejected: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+            logger.warn("JWT claims string is empty: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * The user a verified token was issued to, or null for tokens issued before the user
+     * claims were added.
+     */
+    public UserPrincipal toPrincipal(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new UserPrincipal(userId, claims.get(CLAIM_FIRST_NAME, String.class),
+                claims.get(CLAIM_LAST_NAME, String.class), claims.getSubject(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+    
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.banking.app.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times every public method of a class annotated with {@code @Timed}, such as
+ * {@code TransactionService} and {@code AccountService}, tagging each timing with the
+ * class and method. Calls a service makes to its own methods bypass the proxy and are not
+ * timed separately. Percentiles for these and the other latency metrics are set under
+ * {@code management.metrics.distribution} in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
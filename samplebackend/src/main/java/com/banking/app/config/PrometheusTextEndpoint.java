@@ -0,0 +1,189 @@
+package com.banking.app.config;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every meter in the registry in the Prometheus text format, at
+ * {@code GET /api/actuator/prometheus}. Timers are in seconds. A timer or summary
+ * publishing a histogram is written as a Prometheus histogram; otherwise as a summary,
+ * with a {@code quantile} line for each configured percentile. The maximum of each is a
+ * separate {@code _max} gauge.
+ */
+@Component
+@WebEndpoint(id = "prometheus")
+public class PrometheusTextEndpoint {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @ReadOperation(produces = CONTENT_TYPE)
+    public String scrape() {
+        // Family name -> its samples; meters sharing a name must be written together
+        Map<String, Family> families = new TreeMap<>();
+        for (Meter meter : meterRegistry.getMeters()) {
+            Meter.Id id = meter.getId();
+            if (isPercentileGauge(id)) {
+                continue;
+            }
+            meter.use(
+                    gauge -> gauge(families, id, name(id), gauge.value()),
+                    counter -> family(families, name(id) + "_total", "counter", id)
+                            .add(name(id) + "_total", tags(id), counter.count()),
+                    timer -> writeDistribution(families, id, seconds(id), timer.takeSnapshot(), true),
+                    summary -> writeDistribution(families, id, name(id), summary.takeSnapshot(), false),
+                    longTaskTimer -> {
+                        gauge(families, id, seconds(id) + "_active_count", longTaskTimer.activeTasks());
+                        gauge(families, id, seconds(id) + "_duration_sum", longTaskTimer.duration(TimeUnit.SECONDS));
+                        gauge(families, id, seconds(id) + "_max", longTaskTimer.max(TimeUnit.SECONDS));
+                    },
+                    timeGauge -> gauge(families, id, seconds(id), timeGauge.value(TimeUnit.SECONDS)),
+                    functionCounter -> family(families, name(id) + "_total", "counter", id)
+                            .add(name(id) + "_total", tags(id), functionCounter.count()),
+                    functionTimer -> family(families, seconds(id), "summary", id)
+                            .add(seconds(id) + "_count", tags(id), functionTimer.count())
+                            .add(seconds(id) + "_sum", tags(id), functionTimer.totalTime(TimeUnit.SECONDS)),
+                    other -> {
+                        for (Measurement measurement : other.measure()) {
+                            String name = name(id) + "_" + measurement.getStatistic().getTagValueRepresentation();
+                            family(families, name, "untyped", id).add(name, tags(id), measurement.getValue());
+                        }
+                    });
+        }
+
+        StringBuilder out = new StringBuilder();
+        families.forEach((name, family) -> {
+            if (family.help != null) {
+                out.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+            }
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            out.append(family.samples);
+        });
+        return out.toString();
+    }
+
+    // The registry also publishes each percentile as a gauge; they are already quantile lines
+    private static boolean isPercentileGauge(Meter.Id id) {
+        return id.getType() == Meter.Type.GAUGE && id.getName().endsWith(".percentile") && id.getTag("phi") != null;
+    }
+
+    private static void writeDistribution(Map<String, Family> families, Meter.Id id, String name,
+                                          HistogramSnapshot snapshot, boolean inSeconds) {
+        String tags = tags(id);
+        CountAtBucket[] buckets = snapshot.histogramCounts();
+        Family family;
+        if (buckets.length > 0) {
+            family = family(families, name, "histogram", id);
+            for (CountAtBucket bucket : buckets) {
+                double le = inSeconds ? bucket.bucket(TimeUnit.SECONDS) : bucket.bucket();
+                family.add(name + "_bucket", label(tags, "le", format(le)), bucket.count());
+            }
+            family.add(name + "_bucket", label(tags, "le", "+Inf"), snapshot.count());
+        } else {
+            family = family(families, name, "summary", id);
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                double value = inSeconds ? percentile.value(TimeUnit.SECONDS) : percentile.value();
+                family.add(name, label(tags, "quantile", format(percentile.percentile())), value);
+            }
+        }
+        family.add(name + "_count", tags, snapshot.count())
+                .add(name + "_sum", tags, inSeconds ? snapshot.total(TimeUnit.SECONDS) : snapshot.total());
+        gauge(families, id, name + "_max", inSeconds ? snapshot.max(TimeUnit.SECONDS) : snapshot.max());
+    }
+
+    private static void gauge(Map<String, Family> families, Meter.Id id, String name, double value) {
+        family(families, name, "gauge", id).add(name, tags(id), value);
+    }
+
+    private static Family family(Map<String, Family> families, String name, String type, Meter.Id id) {
+        return families.computeIfAbsent(name, n -> new Family(type, id.getDescription()));
+    }
+
+    // jvm.memory.used with base unit bytes -> jvm_memory_used_bytes
+    private static String name(Meter.Id id) {
+        String name = sanitize(id.getName());
+        String unit = id.getBaseUnit();
+        if (unit != null && !unit.isEmpty()) {
+            String suffix = "_" + sanitize(unit);
+            if (!name.endsWith(suffix)) {
+                name += suffix;
+            }
+        }
+        return name;
+    }
+
+    private static String seconds(Meter.Id id) {
+        String name = sanitize(id.getName());
+        return name.endsWith("_seconds") ? name : name + "_seconds";
+    }
+
+    private static String sanitize(String name) {
+        String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static String tags(Meter.Id id) {
+        StringBuilder labels = new StringBuilder();
+        for (Tag tag : id.getTagsAsIterable()) {
+            labels.append(labels.length() == 0 ? "" : ",")
+                    .append(sanitize(tag.getKey())).append("=\"").append(escapeLabel(tag.getValue())).append('"');
+        }
+        return labels.toString();
+    }
+
+    private static String label(String tags, String key, String value) {
+        return (tags.isEmpty() ? "" : tags + ",") + key + "=\"" + value + '"';
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static final class Family {
+
+        private final String type;
+
+        private final String help;
+
+        private final StringBuilder samples = new StringBuilder();
+
+        private Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+
+        private Family add(String name, String labels, double value) {
+            samples.append(name);
+            if (!labels.isEmpty()) {
+                samples.append('{').append(labels).append('}');
+            }
+            samples.append(' ').append(format(value)).append('\n');
+            return this;
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package com.banking.app.config;
 
 import com.banking.app.service.CustomUserDetailsService;
+import com.banking.app.service.PasswordHashingService;
+import com.banking.app.service.TokenRevocationService;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -27,22 +33,33 @@ public class WebSecurityConfig {
     
     private final CustomUserDetailsService userDetailsService;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationService tokenRevocationService;
+    private final PasswordHashingService passwordHashingService;
+    private final boolean publicMetricsScrape;
     
-    public WebSecurityConfig(CustomUserDetailsService userDetailsService, JwtUtils jwtUtils) {
+    public WebSecurityConfig(CustomUserDetailsService userDetailsService, JwtUtils jwtUtils,
+                             TokenRevocationService tokenRevocationService,
+                             PasswordHashingService passwordHashingService,
+                             @Value("${banking.metrics.public-scrape:false}") boolean publicMetricsScrape) {
         this.userDetailsService = userDetailsService;
         this.jwtUtils = jwtUtils;
+        this.tokenRevocationService = tokenRevocationService;
+        this.passwordHashingService = passwordHashingService;
+        this.publicMetricsScrape = publicMetricsScrape;
     }
     
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
-        return new AuthTokenFilter(jwtUtils, userDetailsService);
+        return new AuthTokenFilter(jwtUtils, userDetailsService, tokenRevocationService);
     }
     
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordHashingService);
+        // Rehashes the password at the configured cost on login
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
@@ -51,11 +68,6 @@ public class WebSecurityConfig {
         return authConfig.getAuthenticationManager();
     }
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-    
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -63,8 +75,16 @@ public class WebSecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Long polls (/transactions/{id}/await) and async reads are authorized on the original
+                        // request; the token is not read again when their results are dispatched
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
+                        .requestMatchers("/health", "/actuator/health/**").permitAll()
+                        // Metrics show traffic and activity per endpoint; a scraper without a token
+                        // needs banking.metrics.public-scrape=true, best with a separate management.server.port
+                        .requestMatchers("/actuator/prometheus").access(metricsScrapeAccess())
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .headers(headers -> headers.frameOptions(frame -> frame.disable()))
@@ -74,6 +94,13 @@ public class WebSecurityConfig {
         return http.build();
     }
     
+    private AuthorizationManager<RequestAuthorizationContext> metricsScrapeAccess() {
+        if (publicMetricsScrape) {
+            return (authentication, context) -> new AuthorizationDecision(true);
+        }
+        return AuthorityAuthorizationManager.hasRole("ADMIN");
+    }
+    
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -1,14 +1,23 @@
 package com.banking.app.controller;
 
+import com.banking.app.dto.AccountResponse;
 import com.banking.app.dto.ApiResponse;
+import com.banking.app.dto.BalanceAtResponse;
 import com.banking.app.entity.Account;
 import com.banking.app.service.AccountService;
+import com.banking.app.service.BalanceSnapshotService;
+import com.banking.app.service.HotAccountService;
 import com.banking.app.service.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @RestController
@@ -19,12 +28,19 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
     
+    @Autowired
+    private HotAccountService hotAccountService;
+    
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+    
     @PostMapping("/create")
     public ResponseEntity<?> createAccount(@AuthenticationPrincipal UserPrincipal userPrincipal,
                                          @RequestParam Account.AccountType accountType) {
         try {
             Account account = accountService.createAccount(userPrincipal.getId(), accountType);
-            return ResponseEntity.ok(new ApiResponse(true, "Account created successfully!", account));
+            return ResponseEntity.ok(new ApiResponse(true, "Account created successfully!",
+                    AccountResponse.from(account)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, "Error: " + e.getMessage()));
@@ -34,7 +50,7 @@ public class AccountController {
     @GetMapping("/my-accounts")
     public ResponseEntity<?> getUserAccounts(@AuthenticationPrincipal UserPrincipal userPrincipal) {
         try {
-            List<Account> accounts = accountService.getUserAccounts(userPrincipal.getId());
+            List<AccountResponse> accounts = accountService.getUserAccounts(userPrincipal.getId());
             return ResponseEntity.ok(new ApiResponse(true, "Accounts retrieved successfully!", accounts));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -45,7 +61,7 @@ public class AccountController {
     @GetMapping("/{accountNumber}")
     public ResponseEntity<?> getAccountByNumber(@PathVariable String accountNumber) {
         try {
-            Account account = accountService.getAccountByNumber(accountNumber)
+            AccountResponse account = accountService.getAccountByNumber(accountNumber)
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             return ResponseEntity.ok(new ApiResponse(true, "Account found!", account));
         } catch (Exception e) {
@@ -58,10 +74,65 @@ public class AccountController {
     public ResponseEntity<?> deactivateAccount(@PathVariable String accountNumber) {
         try {
             Account account = accountService.deactivateAccount(accountNumber);
-            return ResponseEntity.ok(new ApiResponse(true, "Account deactivated successfully!", account));
+            return ResponseEntity.ok(new ApiResponse(true, "Account deactivated successfully!",
+                    AccountResponse.from(account)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{accountNumber}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> markHotAccount(@PathVariable String accountNumber,
+                                          @RequestParam(defaultValue = "16") int slots) {
+        try {
+            Account account = hotAccountService.markHot(accountNumber, slots);
+            return ResponseEntity.ok(new ApiResponse(true, "Account marked as hot!",
+                    AccountResponse.from(account)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/{accountNumber}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> unmarkHotAccount(@PathVariable String accountNumber) {
+        try {
+            Account account = hotAccountService.unmarkHot(accountNumber);
+            return ResponseEntity.ok(new ApiResponse(true, "Account is no longer hot!",
+                    AccountResponse.from(account)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Balance at the end of the given instant, from the daily snapshots.
+     */
+    @GetMapping("/{accountNumber}/balance-at")
+    public ResponseEntity<?> getBalanceAt(@PathVariable String accountNumber, @RequestParam String at) {
+        try {
+            LocalDateTime instant = LocalDateTime.parse(at, DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
+            BigDecimal balance = balanceSnapshotService.balanceAt(accountNumber, instant);
+            return ResponseEntity.ok(new ApiResponse(true, "Balance retrieved successfully!",
+                    new BalanceAtResponse(accountNumber, instant, balance)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, "Error: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/snapshots/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> backfillBalanceSnapshots() {
+        if (!balanceSnapshotService.startBackfill()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse(false, "Error: A backfill is already running"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse(true, "Balance snapshot backfill started!"));
+    }
+}
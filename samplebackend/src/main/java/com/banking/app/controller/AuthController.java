@@ -5,10 +5,14 @@ import com.banking.app.dto.AuthResponse;
 import com.banking.app.dto.LoginRequest;
 import com.banking.app.dto.SignupRequest;
 import com.banking.app.service.AuthService;
+import com.banking.app.service.LoginRateLimiter;
+import com.banking.app.service.PasswordHashingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -20,10 +24,15 @@ public class AuthController {
     AuthService authService;
     
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                            HttpServletRequest request) {
         try {
-            AuthResponse authResponse = authService.authenticateUser(loginRequest);
+            AuthResponse authResponse = authService.authenticateUser(loginRequest, request.getRemoteAddr());
             return ResponseEntity.ok(authResponse);
+        } catch (LoginRateLimiter.LimitExceededException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+        } catch (PasswordHashingService.BusyException e) {
+            return tooManyRequests(e.getMessage(), 1);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, "Error: " + e.getMessage()));
@@ -31,10 +40,28 @@ public class AuthController {
     }
     
     @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+    public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest,
+                                        HttpServletRequest request) {
         try {
-            authService.registerUser(signUpRequest);
+            authService.registerUser(signUpRequest, request.getRemoteAddr());
             return ResponseEntity.ok(new ApiResponse(true, "User registered successfully!"));
+        } catch (LoginRateLimiter.LimitExceededException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+        } catch (PasswordHashingService.BusyException e) {
+            return tooManyRequests(e.getMessage(), 1);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        try {
+            String token = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring(7) : null;
+            authService.logout(token);
+            return ResponseEntity.ok(new ApiResponse(true, "Logged out successfully!"));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, e.getMessage()));
@@ -45,4 +72,10 @@ public class AuthController {
     public ResponseEntity<?> test() {
         return ResponseEntity.ok(new ApiResponse(true, "Auth API is working!"));
     }
+    
+    private static ResponseEntity<?> tooManyRequests(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(retryAfterSeconds))
+                .body(new ApiResponse(false, "Error: " + message));
+    }
 }
\ No newline at end of file
@@ -1,6 +1,12 @@
 package com.banking.app.controller;
 
 import com.banking.app.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.CompositeHealth;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,6 +19,9 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class HomeController {
     
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+    
     @GetMapping("/")
     public ResponseEntity<?> home() {
         Map<String, Object> response = new HashMap<>();
@@ -29,13 +38,26 @@ public class HomeController {
         return ResponseEntity.ok(new ApiResponse(true, "Banking API is running!", response));
     }
     
+    /**
+     * The readiness group: UP once the application has started and the database answers,
+     * 503 otherwise, with the status of each check.
+     */
     @GetMapping("/health")
     public ResponseEntity<?> health() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Status status = readiness != null ? readiness.getStatus() : Status.UNKNOWN;
+        
         Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
+        health.put("status", status.getCode());
         health.put("timestamp", LocalDateTime.now());
         health.put("service", "Banking Application");
+        if (readiness instanceof CompositeHealth composite) {
+            Map<String, String> checks = new HashMap<>();
+            composite.getComponents().forEach((name, component) -> checks.put(name, component.getStatus().getCode()));
+            health.put("checks", checks);
+        }
         
-        return ResponseEntity.ok(health);
+        return ResponseEntity.status(Status.UP.equals(status) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(health);
     }
 }
\ No newline at end of file
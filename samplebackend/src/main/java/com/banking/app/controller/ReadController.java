@@ -0,0 +1,143 @@
+package com.banking.app.controller;
+
+import com.banking.app.dto.ApiResponse;
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.service.AsyncReadService;
+import com.banking.app.service.UserPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking versions of the most frequent reads. Each request returns its servlet
+ * thread as soon as the read is queued on {@link AsyncReadService} and is answered when
+ * the read completes; history is streamed a page at a time. Writes stay on the existing
+ * controllers.
+ */
+@RestController
+@RequestMapping("/reads")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ReadController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int STREAM_PAGE_SIZE = 100;
+
+    @Autowired
+    private AsyncReadService asyncReadService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping("/accounts/my-accounts")
+    public CompletableFuture<ResponseEntity<?>> getUserAccounts(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return respond(asyncReadService.getUserAccounts(userPrincipal.getId()), "Accounts retrieved successfully!");
+    }
+
+    @GetMapping("/accounts/{accountNumber}")
+    public CompletableFuture<ResponseEntity<?>> getAccountByNumber(@PathVariable String accountNumber) {
+        return respond(asyncReadService.getAccountByNumber(accountNumber), "Account found!");
+    }
+
+    /**
+     * The account's transactions, newest first, as NDJSON with one transaction per line, up
+     * to {@code limit}. Rows are read {@value #STREAM_PAGE_SIZE} at a time and no thread is
+     * held between pages. An error once the stream has started, an unknown account
+     * included, is sent as a last line holding an {@link ApiResponse}.
+     */
+    @GetMapping("/transactions/account/{accountNumber}")
+    public ResponseEntity<ResponseBodyEmitter> streamAccountTransactions(@PathVariable String accountNumber,
+                                                                        @RequestParam(defaultValue = "1000") int limit,
+                                                                        @RequestParam(required = false) String startDate,
+                                                                        @RequestParam(required = false) String endDate) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+            start = startDate != null ? LocalDateTime.parse(startDate, formatter) : null;
+            end = endDate != null ? LocalDateTime.parse(endDate, formatter) : null;
+        } catch (RuntimeException e) {
+            sendError(emitter, e);
+            return ResponseEntity.badRequest().contentType(NDJSON).body(emitter);
+        }
+
+        sendPage(emitter, accountNumber, start, end, null, Math.max(limit, 0));
+        return ResponseEntity.ok().contentType(NDJSON).body(emitter);
+    }
+
+    // Sends the page after the cursor, then queues the read of the next one
+    private void sendPage(ResponseBodyEmitter emitter, String accountNumber, LocalDateTime start,
+                          LocalDateTime end, String cursor, int remaining) {
+        if (remaining == 0) {
+            emitter.complete();
+            return;
+        }
+        asyncReadService.getAccountTransactions(accountNumber, start, end, cursor,
+                        Math.min(STREAM_PAGE_SIZE, remaining))
+                .whenComplete((page, error) -> {
+                    if (error != null) {
+                        sendError(emitter, cause(error));
+                        return;
+                    }
+                    try {
+                        StringBuilder lines = new StringBuilder();
+                        for (TransactionResponse transaction : page.getItems()) {
+                            lines.append(objectMapper.writeValueAsString(transaction)).append('\n');
+                        }
+                        if (lines.length() > 0) {
+                            emitter.send(lines.toString(), NDJSON);
+                        }
+                    } catch (IOException e) {
+                        // The client went away
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                    if (page.getNextCursor() == null) {
+                        emitter.complete();
+                    } else {
+                        sendPage(emitter, accountNumber, start, end, page.getNextCursor(),
+                                remaining - page.getItems().size());
+                    }
+                });
+    }
+
+    private void sendError(ResponseBodyEmitter emitter, Throwable error) {
+        try {
+            emitter.send(objectMapper.writeValueAsString(new ApiResponse(false, "Error: " + error.getMessage())) + "\n",
+                    NDJSON);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> respond(CompletableFuture<?> read, String message) {
+        return read.<ResponseEntity<?>>thenApply(body -> ResponseEntity.ok(new ApiResponse(true, message, body)))
+                .exceptionally(error -> {
+                    Throwable cause = cause(error);
+                    if (cause instanceof AsyncReadService.QueueFullException) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header("Retry-After", "1")
+                                .body(new ApiResponse(false, "Error: " + cause.getMessage()));
+                    }
+                    return ResponseEntity.badRequest()
+                            .body(new ApiResponse(false, "Error: " + cause.getMessage()));
+                });
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
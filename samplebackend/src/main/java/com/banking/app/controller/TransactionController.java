@@ -1,19 +1,43 @@
 package com.banking.app.controller;
 
+import com.banking.app.dto.AccountMetadata;
 import com.banking.app.dto.ApiResponse;
+import com.banking.app.dto.BatchTransactionRequest;
+import com.banking.app.dto.BatchTransactionResult;
+import com.banking.app.dto.MonthlyStatementResponse;
+import com.banking.app.dto.TransactionCursorPage;
+import com.banking.app.dto.TransactionResponse;
 import com.banking.app.entity.Transaction;
+import com.banking.app.ledger.LedgerEngine;
+import com.banking.app.service.AsyncTransferService;
+import com.banking.app.service.BalanceSnapshotService;
+import com.banking.app.service.IdempotencyService;
+import com.banking.app.service.StatementExportService;
+import com.banking.app.service.TransactionArchiveService;
 import com.banking.app.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/transactions")
@@ -23,41 +47,140 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+    
+    @Autowired
+    private StatementExportService statementExportService;
+    
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+    
+    @Autowired
+    private TransactionArchiveService transactionArchiveService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${banking.async-transfers.max-wait-ms:60000}")
+    private long maxWaitMs;
+    
     @PostMapping("/transfer")
     public ResponseEntity<?> transferMoney(@RequestParam String fromAccountNumber,
                                          @RequestParam String toAccountNumber,
                                          @RequestParam BigDecimal amount,
-                                         @RequestParam(required = false) String description) {
-        try {
-            Transaction transaction = transactionService.transferMoney(
-                    fromAccountNumber, toAccountNumber, amount, description);
-            return ResponseEntity.ok(new ApiResponse(true, "Money transferred successfully!", transaction));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+                                         @RequestParam(required = false) String description,
+                                         @RequestParam(defaultValue = "false") boolean async,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                         String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "transfer", () -> {
+            try {
+                // The ledger engine already keeps commits off the request thread
+                if (async && transactionService.supportsPendingTransfers()) {
+                    Transaction transaction = asyncTransferService.submit(
+                            fromAccountNumber, toAccountNumber, amount, description);
+                    return ResponseEntity.accepted()
+                            .body(new ApiResponse(true, "Transfer accepted for processing!",
+                                    TransactionResponse.from(transaction)));
+                }
+                Transaction transaction = transactionService.transferMoney(
+                        fromAccountNumber, toAccountNumber, amount, description);
+                return ResponseEntity.ok(new ApiResponse(true, "Money transferred successfully!",
+                        TransactionResponse.from(transaction)));
+            } catch (LedgerEngine.OutcomeUnknownException e) {
+                return outcomeUnknown(e);
+            } catch (AsyncTransferService.QueueFullException e) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header("Retry-After", "1")
+                        .body(new ApiResponse(false, "Error: " + e.getMessage()));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiResponse(false, "Error: " + e.getMessage()));
+            }
+        }, fromAccountNumber, toAccountNumber, amount, description, async);
+    }
+    
+    @GetMapping("/{transactionId}/status")
+    public ResponseEntity<?> getTransactionStatus(@PathVariable String transactionId) {
+        return transactionStatus(transactionId);
+    }
+    
+    /**
+     * Long poll: answers as soon as the transaction leaves PENDING, or with its current
+     * status after {@code timeoutMs}.
+     */
+    @GetMapping("/{transactionId}/await")
+    public DeferredResult<ResponseEntity<?>> awaitTransaction(@PathVariable String transactionId,
+                                                             @RequestParam(defaultValue = "30000") long timeoutMs) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(Math.min(Math.max(timeoutMs, 0), maxWaitMs));
+        Transaction transaction = transactionService.getTransaction(transactionId).orElse(null);
+        if (transaction == null || transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
+            result.setResult(transactionStatus(transactionId));
+            return result;
         }
+        
+        Runnable unregister = asyncTransferService.onResolved(transaction.getId(),
+                () -> result.setResult(transactionStatus(transactionId)));
+        result.onCompletion(unregister);
+        result.onTimeout(() -> result.setResult(transactionStatus(transactionId)));
+        // The worker may have finished before the listener was registered. The entity read
+        // above is still in this request's persistence context, so read the status afresh.
+        transactionService.getTransactionStatus(transactionId)
+                .filter(current -> current.getStatus() != Transaction.TransactionStatus.PENDING)
+                .ifPresent(current -> result.setResult(transactionStatus(transactionId)));
+        return result;
     }
     
     @PostMapping("/deposit")
     public ResponseEntity<?> deposit(@RequestParam String accountNumber,
                                    @RequestParam BigDecimal amount,
-                                   @RequestParam(required = false) String description) {
-        try {
-            Transaction transaction = transactionService.deposit(accountNumber, amount, description);
-            return ResponseEntity.ok(new ApiResponse(true, "Amount deposited successfully!", transaction));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
-        }
+                                   @RequestParam(required = false) String description,
+                                   @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                   String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "deposit", () -> {
+            try {
+                Transaction transaction = transactionService.deposit(accountNumber, amount, description);
+                return ResponseEntity.ok(new ApiResponse(true, "Amount deposited successfully!",
+                        TransactionResponse.from(transaction)));
+            } catch (LedgerEngine.OutcomeUnknownException e) {
+                return outcomeUnknown(e);
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiResponse(false, "Error: " + e.getMessage()));
+            }
+        }, accountNumber, amount, description);
     }
     
     @PostMapping("/withdraw")
     public ResponseEntity<?> withdraw(@RequestParam String accountNumber,
                                     @RequestParam BigDecimal amount,
-                                    @RequestParam(required = false) String description) {
+                                    @RequestParam(required = false) String description,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                    String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "withdraw", () -> {
+            try {
+                Transaction transaction = transactionService.withdraw(accountNumber, amount, description);
+                return ResponseEntity.ok(new ApiResponse(true, "Amount withdrawn successfully!",
+                        TransactionResponse.from(transaction)));
+            } catch (LedgerEngine.OutcomeUnknownException e) {
+                return outcomeUnknown(e);
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiResponse(false, "Error: " + e.getMessage()));
+            }
+        }, accountNumber, amount, description);
+    }
+    
+    @PostMapping("/batch")
+    public ResponseEntity<?> processBatch(@Valid @RequestBody BatchTransactionRequest request) {
         try {
-            Transaction transaction = transactionService.withdraw(accountNumber, amount, description);
-            return ResponseEntity.ok(new ApiResponse(true, "Amount withdrawn successfully!", transaction));
+            List<BatchTransactionResult> results = transactionService.processBatch(request.getItems());
+            long failed = results.stream().filter(result -> !result.isSuccess()).count();
+            String message = "Batch processed: " + (results.size() - failed) + " completed, " + failed + " failed";
+            return ResponseEntity.ok(new ApiResponse(true, message, results));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, "Error: " + e.getMessage()));
@@ -71,11 +194,11 @@ public class TransactionController {
         try {
             if (page >= 0 && size > 0) {
                 Pageable pageable = PageRequest.of(page, size);
-                Page<Transaction> transactions = transactionService.getAccountTransactionsPaginated(
+                Page<TransactionResponse> transactions = transactionService.getAccountTransactionsPaginated(
                         accountNumber, pageable);
                 return ResponseEntity.ok(new ApiResponse(true, "Transactions retrieved successfully!", transactions));
             } else {
-                List<Transaction> transactions = transactionService.getAccountTransactions(accountNumber);
+                List<TransactionResponse> transactions = transactionService.getAccountTransactions(accountNumber);
                 return ResponseEntity.ok(new ApiResponse(true, "Transactions retrieved successfully!", transactions));
             }
         } catch (Exception e) {
@@ -84,6 +207,91 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Cursor-paginated history, newest first. Pass the {@code nextCursor} or
+     * {@code previousCursor} of a response to get the adjacent page. Dates are optional,
+     * and either one alone leaves the other end of the range open.
+     */
+    @GetMapping("/account/{accountNumber}/scroll")
+    public ResponseEntity<?> scrollAccountTransactions(@PathVariable String accountNumber,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      @RequestParam(required = false) String startDate,
+                                                      @RequestParam(required = false) String endDate) {
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+            LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate, formatter) : null;
+            LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate, formatter) : null;
+            
+            TransactionCursorPage transactions = transactionService.getAccountTransactionsByCursor(
+                    accountNumber, start, end, cursor, size);
+            return ResponseEntity.ok(new ApiResponse(true, "Transactions retrieved successfully!", transactions));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Streams the account statement as CSV or NDJSON (optionally gzipped) without
+     * holding the history in memory.
+     */
+    @GetMapping("/account/{accountNumber}/export")
+    public ResponseEntity<StreamingResponseBody> exportAccountTransactions(@PathVariable String accountNumber,
+                                                      @RequestParam(defaultValue = "csv") String format,
+                                                      @RequestParam(defaultValue = "false") boolean gzip,
+                                                      @RequestParam(required = false) String startDate,
+                                                      @RequestParam(required = false) String endDate) {
+        try {
+            StatementExportService.Format exportFormat = StatementExportService.Format.parse(format);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+            LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate, formatter) : null;
+            LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate, formatter) : null;
+            // Resolved up front so that an unknown account is still a normal error response
+            AccountMetadata account = statementExportService.requireAccount(accountNumber);
+            
+            String filename = accountNumber + "-statement." + format.toLowerCase() + (gzip ? ".gz" : "");
+            MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                    : exportFormat == StatementExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                    : MediaType.parseMediaType("application/x-ndjson");
+            StreamingResponseBody body = out -> {
+                if (gzip) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                    statementExportService.export(account, start, end, exportFormat, compressed);
+                    compressed.finish();
+                } else {
+                    statementExportService.export(account, start, end, exportFormat, out);
+                }
+            };
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(contentType)
+                    .body(body);
+        } catch (Exception e) {
+            // Streaming handlers only accept a StreamingResponseBody, so the error is written as one
+            ApiResponse error = new ApiResponse(false, "Error: " + e.getMessage());
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+    }
+    
+    /**
+     * Opening and closing balance and totals of a closed month ({@code yyyy-MM}).
+     */
+    @GetMapping("/account/{accountNumber}/statement")
+    public ResponseEntity<?> getMonthlyStatement(@PathVariable String accountNumber,
+                                                @RequestParam String month) {
+        try {
+            MonthlyStatementResponse statement = MonthlyStatementResponse.from(accountNumber,
+                    balanceSnapshotService.getStatement(accountNumber, YearMonth.parse(month)));
+            return ResponseEntity.ok(new ApiResponse(true, "Statement retrieved successfully!", statement));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
     @GetMapping("/account/{accountNumber}/between-dates")
     public ResponseEntity<?> getAccountTransactionsBetweenDates(@PathVariable String accountNumber,
                                                                @RequestParam String startDate,
@@ -93,7 +301,7 @@ public class TransactionController {
             LocalDateTime start = LocalDateTime.parse(startDate, formatter);
             LocalDateTime end = LocalDateTime.parse(endDate, formatter);
             
-            List<Transaction> transactions = transactionService.getAccountTransactionsBetweenDates(
+            List<TransactionResponse> transactions = transactionService.getAccountTransactionsBetweenDates(
                     accountNumber, start, end);
             return ResponseEntity.ok(new ApiResponse(true, "Transactions retrieved successfully!", transactions));
         } catch (Exception e) {
@@ -101,4 +309,38 @@ public class TransactionController {
                     .body(new ApiResponse(false, "Error: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Runs the archiver now rather than at its scheduled time.
+     */
+    @PostMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> archiveTransactions() {
+        try {
+            long archived = transactionArchiveService.archive();
+            if (archived < 0) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new ApiResponse(false, "Error: Archiving is already running"));
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Transactions archived successfully!", archived));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    // A 2xx keeps the Idempotency-Key, so a retry replays this answer instead of posting again
+    private ResponseEntity<?> outcomeUnknown(LedgerEngine.OutcomeUnknownException e) {
+        return ResponseEntity.accepted()
+                .body(new ApiResponse(false, "Error: " + e.getMessage() + "; check its status before retrying",
+                        Map.of("transactionId", e.getTransactionId())));
+    }
+    
+    private ResponseEntity<?> transactionStatus(String transactionId) {
+        return transactionService.getTransactionStatus(transactionId)
+                .<ResponseEntity<?>>map(status -> ResponseEntity.ok(new ApiResponse(true,
+                        "Transaction status retrieved successfully!", status)))
+                .orElseGet(() -> ResponseEntity.badRequest()
+                        .body(new ApiResponse(false, "Error: Transaction not found")));
+    }
+}
@@ -1,11 +1,14 @@
 package com.banking.app.controller;
 
 import com.banking.app.dto.ApiResponse;
+import com.banking.app.dto.UserProfileResponse;
 import com.banking.app.entity.User;
 import com.banking.app.repository.UserRepository;
 import com.banking.app.service.UserPrincipal;
+import com.banking.app.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,15 +20,15 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserService userService;
+    
     @GetMapping("/profile")
     public ResponseEntity<?> getUserProfile(@AuthenticationPrincipal UserPrincipal userPrincipal) {
         try {
-            User user = userRepository.findById(userPrincipal.getId())
+            UserProfileResponse user = userRepository.findProfileById(userPrincipal.getId())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            // Remove password from response
-            user.setPassword(null);
-            
             return ResponseEntity.ok(new ApiResponse(true, "User profile retrieved successfully!", user));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -55,9 +58,57 @@ public class UserController {
             }
             
             User savedUser = userRepository.save(user);
-            savedUser.setPassword(null); // Remove password from response
             
-            return ResponseEntity.ok(new ApiResponse(true, "Profile updated successfully!", savedUser));
+            return ResponseEntity.ok(new ApiResponse(true, "Profile updated successfully!",
+                    UserProfileResponse.from(savedUser)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Deactivates the user and revokes the tokens already issued to them, which would
+     * otherwise stay valid until they expire.
+     */
+    @PutMapping("/{userId}/deactivate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> deactivateUser(@PathVariable Long userId) {
+        try {
+            userService.deactivate(userId);
+            
+            return ResponseEntity.ok(new ApiResponse(true, "User deactivated successfully!"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{userId}/activate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> activateUser(@PathVariable Long userId) {
+        try {
+            userService.activate(userId);
+            
+            return ResponseEntity.ok(new ApiResponse(true, "User activated successfully!"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Changes the user's role. Their tokens carry the old role, so they are revoked and
+     * the user has to sign in again.
+     */
+    @PutMapping("/{userId}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> changeUserRole(@PathVariable Long userId, @RequestParam User.UserRole role) {
+        try {
+            User user = userService.changeRole(userId, role);
+            
+            return ResponseEntity.ok(new ApiResponse(true, "User role changed successfully!",
+                    UserProfileResponse.from(user)));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new ApiResponse(false, "Error: " + e.getMessage()));
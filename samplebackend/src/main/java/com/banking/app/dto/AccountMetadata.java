@@ -0,0 +1,28 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of an account that almost never change, without its balance. Instances are
+ * shared between requests by {@code AccountMetadataCache}, so they are immutable.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AccountMetadata {
+    private final Long id;
+    private final String accountNumber;
+    private final Account.AccountType accountType;
+    private final Boolean isActive;
+    private final Double interestRate;
+    private final BigDecimal minimumBalance;
+    private final BigDecimal overdraftLimit;
+    private final Long userId;
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.Account;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account as the API returns it: its own columns only, without the owner or the
+ * transaction collections. {@code AccountRepository} selects it directly.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountResponse {
+    private Long id;
+    private String accountNumber;
+    private Account.AccountType accountType;
+    private BigDecimal balance;
+    private Boolean isActive;
+    private Double interestRate;
+    private BigDecimal minimumBalance;
+    private BigDecimal overdraftLimit;
+    private Boolean hot;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static AccountResponse from(Account account) {
+        return new AccountResponse(account.getId(), account.getAccountNumber(), account.getAccountType(),
+                account.getBalance(), account.getIsActive(), account.getInterestRate(),
+                account.getMinimumBalance(), account.getOverdraftLimit(), account.getHot(),
+                account.getCreatedAt(), account.getUpdatedAt());
+    }
+}
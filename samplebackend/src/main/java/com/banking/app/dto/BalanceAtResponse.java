@@ -0,0 +1,17 @@
+package com.banking.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceAtResponse {
+    private String accountNumber;
+    private LocalDateTime at;
+    private BigDecimal balance;
+}
@@ -0,0 +1,35 @@
+package com.banking.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionItem {
+    
+    @NotNull(message = "Operation is required")
+    private Operation operation;
+    
+    // Used by TRANSFER
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    
+    // Used by DEPOSIT and WITHDRAWAL
+    private String accountNumber;
+    
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    private BigDecimal amount;
+    
+    private String description;
+    
+    public enum Operation {
+        TRANSFER, DEPOSIT, WITHDRAWAL
+    }
+}
@@ -0,0 +1,20 @@
+package com.banking.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionRequest {
+    
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 10000, message = "A batch may contain at most 10000 items")
+    private List<@Valid BatchTransactionItem> items;
+}
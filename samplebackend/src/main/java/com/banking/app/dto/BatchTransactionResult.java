@@ -0,0 +1,20 @@
+package com.banking.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransactionResult {
+    private int index;
+    private boolean success;
+    private String message;
+    private String transactionId;
+    private String referenceNumber;
+    
+    public static BatchTransactionResult failed(int index, String message) {
+        return new BatchTransactionResult(index, false, message, null, null);
+    }
+}
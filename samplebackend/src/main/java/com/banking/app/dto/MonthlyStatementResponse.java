@@ -0,0 +1,28 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.MonthlyStatement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyStatementResponse {
+    private String accountNumber;
+    private YearMonth month;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal totalCredits;
+    private BigDecimal totalDebits;
+    private Long transactionCount;
+    
+    public static MonthlyStatementResponse from(String accountNumber, MonthlyStatement statement) {
+        return new MonthlyStatementResponse(accountNumber, YearMonth.from(statement.getPeriodStart()),
+                statement.getOpeningBalance(), statement.getClosingBalance(), statement.getTotalCredits(),
+                statement.getTotalDebits(), statement.getTransactionCount());
+    }
+}
@@ -0,0 +1,31 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLine {
+    private String transactionId;
+    private String referenceNumber;
+    private Transaction.TransactionType transactionType;
+    private Transaction.TransactionStatus status;
+    private BigDecimal amount;
+    private String description;
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private LocalDateTime createdAt;
+    
+    public static StatementLine from(TransactionResponse transaction) {
+        return new StatementLine(transaction.getTransactionId(), transaction.getReferenceNumber(),
+                transaction.getTransactionType(), transaction.getStatus(), transaction.getAmount(),
+                transaction.getDescription(), transaction.getFromAccountNumber(), transaction.getToAccountNumber(),
+                transaction.getCreatedAt());
+    }
+}
@@ -0,0 +1,20 @@
+package com.banking.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an account's transactions, newest first. The cursors are opaque tokens
+ * for the adjacent pages and are null when there is nothing in that direction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionCursorPage {
+    private List<TransactionResponse> items;
+    private String nextCursor;
+    private String previousCursor;
+}
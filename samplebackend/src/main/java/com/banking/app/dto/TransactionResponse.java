@@ -0,0 +1,40 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transaction as the API returns it. The accounts are reduced to their numbers, which
+ * the history queries join in, so no account entity is loaded to build it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResponse {
+    private Long id;
+    private String transactionId;
+    private String referenceNumber;
+    private Transaction.TransactionType transactionType;
+    private BigDecimal amount;
+    private String description;
+    private Transaction.TransactionStatus status;
+    private String failureReason;
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static TransactionResponse from(Transaction transaction) {
+        return new TransactionResponse(transaction.getId(), transaction.getTransactionId(),
+                transaction.getReferenceNumber(), transaction.getTransactionType(), transaction.getAmount(),
+                transaction.getDescription(), transaction.getStatus(), transaction.getFailureReason(),
+                transaction.getFromAccount() != null ? transaction.getFromAccount().getAccountNumber() : null,
+                transaction.getToAccount() != null ? transaction.getToAccount().getAccountNumber() : null,
+                transaction.getCreatedAt(), transaction.getUpdatedAt());
+    }
+}
@@ -0,0 +1,28 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionStatusResponse {
+    private String transactionId;
+    private String referenceNumber;
+    private Transaction.TransactionType transactionType;
+    private BigDecimal amount;
+    private Transaction.TransactionStatus status;
+    private String failureReason;
+    private LocalDateTime updatedAt;
+    
+    public static TransactionStatusResponse from(Transaction transaction) {
+        return new TransactionStatusResponse(transaction.getTransactionId(), transaction.getReferenceNumber(),
+                transaction.getTransactionType(), transaction.getAmount(), transaction.getStatus(),
+                transaction.getFailureReason(), transaction.getUpdatedAt());
+    }
+}
@@ -0,0 +1,17 @@
+package com.banking.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The columns of a user that must be unique across users.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserIdentifiers {
+    private final String email;
+    private final String panNumber;
+    private final String aadharNumber;
+}
@@ -0,0 +1,38 @@
+package com.banking.app.dto;
+
+import com.banking.app.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The profile of the signed-in user, without the password or the user's accounts,
+ * loans and cards. {@code UserRepository} selects it directly.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfileResponse {
+    private Long id;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String phoneNumber;
+    private String dateOfBirth;
+    private String address;
+    private String panNumber;
+    private String aadharNumber;
+    private User.UserRole role;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static UserProfileResponse from(User user) {
+        return new UserProfileResponse(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getPhoneNumber(), user.getDateOfBirth(), user.getAddress(), user.getPanNumber(),
+                user.getAadharNumber(), user.getRole(),
+                user.getIsActive(), user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
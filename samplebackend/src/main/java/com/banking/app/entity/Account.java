@@ -1,9 +1,12 @@
 package com.banking.app.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -47,6 +50,17 @@ public class Account {
     @Column(name = "overdraft_limit")
     private BigDecimal overdraftLimit;
     
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+    
+    // Hot accounts take credits into balance slots instead of this row
+    @Column(name = "hot")
+    private Boolean hot = false;
+    
+    @Column(name = "balance_slots")
+    private Integer balanceSlots;
+    
     @CreatedDate
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -55,16 +69,40 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Associations are kept out of equals, hashCode and toString, which would load them
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "fromAccount", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> outgoingTransactions = new ArrayList<>();
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "toAccount", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> incomingTransactions = new ArrayList<>();
     
+    /**
+     * Lowest balance a debit may leave behind: minus the overdraft limit for accounts
+     * that have one, otherwise the minimum balance. The guarded updates in
+     * {@code AccountRepository} apply the same rule in SQL.
+     */
+    @JsonIgnore
+    public BigDecimal getDebitFloor() {
+        if (overdraftLimit != null && overdraftLimit.signum() > 0) {
+            return overdraftLimit.negate();
+        }
+        return minimumBalance != null ? minimumBalance : BigDecimal.ZERO;
+    }
+    
+    public boolean canDebit(BigDecimal amount) {
+        return balance.subtract(amount).compareTo(getDebitFloor()) >= 0;
+    }
+    
     public enum AccountType {
         SAVINGS, CURRENT, SALARY, FIXED_DEPOSIT
     }
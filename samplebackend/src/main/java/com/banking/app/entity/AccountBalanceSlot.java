@@ -0,0 +1,35 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "account_balance_slots",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceSlot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    @Column(name = "slot_index", nullable = false)
+    private Integer slotIndex;
+    
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+}
@@ -0,0 +1,26 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per account with daily balance snapshots. Locking it serializes the writers of
+ * the account's snapshots; {@code backfilled} records that the history written before
+ * snapshots existed has been folded in.
+ */
+@Entity
+@Table(name = "account_snapshot_states")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountSnapshotState {
+    
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+    
+    @Column(nullable = false)
+    private Boolean backfilled = false;
+}
@@ -0,0 +1,49 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Balance snapshot of an account at the end of a day it had completed transactions on.
+ * Days without activity have no row; their balance is that of the latest earlier row.
+ */
+@Entity
+@Table(name = "daily_balances",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "balance_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBalance {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+    
+    @Column(name = "total_credits", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalCredits = BigDecimal.ZERO;
+    
+    @Column(name = "total_debits", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalDebits = BigDecimal.ZERO;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount = 0L;
+    
+    @Column(name = "closing_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal closingBalance = BigDecimal.ZERO;
+}
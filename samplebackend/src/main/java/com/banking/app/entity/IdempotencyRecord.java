@@ -0,0 +1,47 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_records", indexes = {
+    @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    // Client key prefixed with the caller's username
+    @Id
+    @Column(name = "idempotency_key", length = 200)
+    private String idempotencyKey;
+    
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecordStatus status;
+    
+    @Column(name = "status_code")
+    private Integer statusCode;
+    
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    public enum RecordStatus {
+        IN_PROGRESS, COMPLETED
+    }
+}
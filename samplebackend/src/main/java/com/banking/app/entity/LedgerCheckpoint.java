@@ -0,0 +1,21 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "ledger_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+    
+    @Id
+    @Column(name = "shard_id")
+    private Integer shardId;
+    
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
@@ -0,0 +1,55 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Statement totals of a closed month, written once when the month's snapshots are final.
+ */
+@Entity
+@Table(name = "monthly_statements",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "period_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyStatement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+    
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+    
+    @Column(name = "opening_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal openingBalance;
+    
+    @Column(name = "closing_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal closingBalance;
+    
+    @Column(name = "total_credits", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalCredits;
+    
+    @Column(name = "total_debits", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalDebits;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
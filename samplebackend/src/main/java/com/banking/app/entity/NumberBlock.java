@@ -0,0 +1,21 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "number_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NumberBlock {
+    
+    @Id
+    @Column(name = "sequence_name", length = 32)
+    private String sequenceName;
+    
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
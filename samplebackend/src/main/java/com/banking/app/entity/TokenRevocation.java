@@ -0,0 +1,38 @@
+package com.banking.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Either one token (by its jti) or every token of a user issued up to revokedAt.
+// Rows are only inserted, so instances pick up the new ones by revokedAt
+@Entity
+@Table(name = "token_revocations", indexes = {
+    @Index(name = "idx_token_revocations_revoked_at", columnList = "revoked_at"),
+    @Index(name = "idx_token_revocations_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+    
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+    
+    // After this every token the row covers has expired on its own
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -3,7 +3,9 @@ package com.banking.app.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,13 +14,25 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_from_created", columnList = "from_account_id, created_at"),
+    @Index(name = "idx_transactions_to_created", columnList = "to_account_id, created_at"),
+    @Index(name = "idx_transactions_snapshotted", columnList = "snapshotted")
+})
+// Loads both accounts with the transaction, and stops there: their users and
+// transaction collections stay lazy
+@NamedEntityGraph(name = Transaction.WITH_ACCOUNTS, attributeNodes = {
+    @NamedAttributeNode("fromAccount"),
+    @NamedAttributeNode("toAccount")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
 public class Transaction {
     
+    public static final String WITH_ACCOUNTS = "Transaction.withAccounts";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -41,6 +55,14 @@ public class Transaction {
     @Column(name = "reference_number")
     private String referenceNumber;
     
+    @Column(name = "failure_reason")
+    private String failureReason;
+    
+    // Whether the daily balance snapshots include this row yet. Null on rows written before
+    // snapshots existed: those are folded in by the per-account backfill instead
+    @Column(name = "snapshotted")
+    private Boolean snapshotted = false;
+    
     @CreatedDate
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -49,10 +71,14 @@ public class Transaction {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_account_id")
     private Account fromAccount;
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "to_account_id")
     private Account toAccount;
@@ -3,24 +3,35 @@ package com.banking.app.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+    @UniqueConstraint(name = User.UK_EMAIL, columnNames = "email"),
+    @UniqueConstraint(name = User.UK_PAN_NUMBER, columnNames = "pan_number"),
+    @UniqueConstraint(name = User.UK_AADHAR_NUMBER, columnNames = "aadhar_number")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
     
+    // Named so that a violation can be told apart from the others
+    public static final String UK_EMAIL = "uk_users_email";
+    public static final String UK_PAN_NUMBER = "uk_users_pan_number";
+    public static final String UK_AADHAR_NUMBER = "uk_users_aadhar_number";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
     
     @Column(nullable = false)
@@ -58,12 +69,18 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Account> accounts = new ArrayList<>();
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Loan> loans = new ArrayList<>();
     
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Card> cards = new ArrayList<>();
     
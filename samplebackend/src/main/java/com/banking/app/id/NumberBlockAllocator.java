@@ -0,0 +1,82 @@
+package com.banking.app.id;
+
+import com.banking.app.entity.NumberBlock;
+import com.banking.app.repository.NumberBlockRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out numbers from blocks reserved in the {@code number_blocks} table, which has one
+ * row per sequence. Each block costs one short transaction; numbers within a block come
+ * from an atomic counter, so callers never have to check uniqueness. Numbers left in a
+ * block when the application stops are skipped, never reused.
+ */
+public class NumberBlockAllocator {
+
+    private final String sequence;
+    private final int blockSize;
+    private final NumberBlockRepository numberBlockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile Block current = new Block(0, 0);
+
+    public NumberBlockAllocator(String sequence, int blockSize, NumberBlockRepository numberBlockRepository,
+                                PlatformTransactionManager transactionManager) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.sequence = sequence;
+        this.blockSize = blockSize;
+        this.numberBlockRepository = numberBlockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long next() {
+        while (true) {
+            Block block = current;
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return value;
+            }
+            refill(block);
+        }
+    }
+
+    // Only threads that find the block exhausted get here; one of them reserves the next
+    private synchronized void refill(Block exhausted) {
+        if (current == exhausted) {
+            current = reserve();
+        }
+    }
+
+    private Block reserve() {
+        try {
+            return transactionTemplate.execute(status -> reserveBlock());
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the sequence row first; it exists now
+            return transactionTemplate.execute(status -> reserveBlock());
+        }
+    }
+
+    private Block reserveBlock() {
+        NumberBlock row = numberBlockRepository.lockBySequence(sequence)
+                .orElseGet(() -> numberBlockRepository.saveAndFlush(new NumberBlock(sequence, 1L)));
+        long start = row.getNextValue();
+        row.setNextValue(start + blockSize);
+        return new Block(start, start + blockSize);
+    }
+
+    private static class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.banking.app.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since 2023-01-01, 10 bits of node id
+ * and a 12-bit sequence within the millisecond. The last timestamp and sequence are packed
+ * into one long updated by CAS, so generation never blocks. If the clock moves backwards
+ * or a millisecond runs out of sequence numbers, the generator keeps counting on from its
+ * last value instead of waiting, so ids stay unique and increasing on each node.
+ */
+public class SnowflakeIdGenerator {
+
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final long EPOCH = 1672531200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+
+    private final LongSupplier clock;
+
+    // (millis since EPOCH) << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    // Tests move the clock by hand
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        long state = last.accumulateAndGet(now, (previous, current) -> Math.max(previous + 1, current));
+        return (state >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (state & SEQUENCE_MASK);
+    }
+}
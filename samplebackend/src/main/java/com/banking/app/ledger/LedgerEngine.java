@@ -0,0 +1,400 @@
+package com.banking.app.ledger;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.LedgerCheckpoint;
+import com.banking.app.entity.Transaction;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.LedgerCheckpointRepository;
+import com.banking.app.repository.TransactionRepository;
+import com.banking.app.service.IdGenerationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * In-memory ledger used when {@code banking.ledger.mode=memory}. Balances are partitioned
+ * into shards with one writer thread each; every mutation is appended to the shard's
+ * write-ahead journal before it is applied, and a background flusher writes the journaled
+ * entries to the {@code transactions} and {@code accounts} tables. On startup any journal
+ * tail newer than the shard's last checkpoint is replayed into the database first.
+ * While the engine is active it owns account balances, so balance changes must go
+ * through {@link com.banking.app.service.TransactionService} or
+ * {@link com.banking.app.service.AccountService#updateBalance}.
+ * <p>
+ * A batch that fails to flush is retried on every flush, up to
+ * {@code banking.ledger.max-flush-attempts} times. It is then written to the shard's
+ * dead-letter file and the shard is fenced: it rejects new entries until restarted, while
+ * entries already accepted keep flushing. Dead-lettered entries are not applied to the
+ * database; after fixing the cause, restart with {@code banking.ledger.replay-dead-letters=true}
+ * to apply them.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.ledger.mode", havingValue = "memory")
+public class LedgerEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEngine.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IdGenerationService idGenerationService;
+
+    @Value("${banking.ledger.shards:4}")
+    private int shardCount;
+
+    @Value("${banking.ledger.journal-dir:ledger-journal}")
+    private String journalDir;
+
+    @Value("${banking.ledger.journal-fsync:true}")
+    private boolean journalFsync;
+
+    @Value("${banking.ledger.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${banking.ledger.operation-timeout-ms:5000}")
+    private long operationTimeoutMs;
+
+    @Value("${banking.ledger.max-flush-attempts:50}")
+    private int maxFlushAttempts;
+
+    @Value("${banking.ledger.replay-dead-letters:false}")
+    private boolean replayDeadLetters;
+
+    private Path directory;
+    private LedgerShard[] shards;
+    // Consecutive failed flushes of each shard; only touched by the flusher
+    private int[] flushFailures;
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        directory = Paths.get(journalDir);
+        Files.createDirectories(directory);
+
+        recover();
+        recoverDeadLetters();
+
+        shards = new LedgerShard[shardCount];
+        flushFailures = new int[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            long lastSequence = checkpointRepository.findById(i)
+                    .map(LedgerCheckpoint::getLastSequence)
+                    .orElse(0L);
+            LedgerJournal journal = new LedgerJournal(journalPath(directory, i), journalFsync);
+            shards[i] = new LedgerShard(i, shardCount, accountRepository, journal, lastSequence + 1);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Ledger engine started with {} shards, journal at {}", shardCount, directory.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        for (LedgerShard shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Moves money between two accounts as one journaled entry. Once the entry is journaled
+     * the transfer will be committed, including the credit when the destination belongs to
+     * another shard, so from then on the caller gets the transaction or an
+     * {@link OutcomeUnknownException}, never a plain failure.
+     */
+    public Transaction transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                                String description, String transactionId) {
+        LedgerShard source = shardFor(fromAccountNumber);
+        LedgerShard destination = shardFor(toAccountNumber);
+        Long fromId = await(source.resolve(fromAccountNumber, "Source account not found"));
+        Long toId = await(destination.resolve(toAccountNumber, "Destination account not found"));
+
+        return toTransaction(awaitApplied(source.apply(draft(transactionId, Transaction.TransactionType.TRANSFER,
+                fromId, fromAccountNumber, toId, toAccountNumber, amount, description), destination), transactionId));
+    }
+
+    public Transaction deposit(String accountNumber, BigDecimal amount, String description,
+                               String transactionId) {
+        LedgerShard shard = shardFor(accountNumber);
+        Long id = await(shard.resolve(accountNumber, "Account not found"));
+        return toTransaction(awaitApplied(shard.apply(draft(transactionId, Transaction.TransactionType.DEPOSIT,
+                null, null, id, accountNumber, amount, description), shard), transactionId));
+    }
+
+    public Transaction withdraw(String accountNumber, BigDecimal amount, String description,
+                                String transactionId) {
+        LedgerShard shard = shardFor(accountNumber);
+        Long id = await(shard.resolve(accountNumber, "Account not found"));
+        return toTransaction(awaitApplied(shard.apply(draft(transactionId, Transaction.TransactionType.WITHDRAWAL,
+                id, accountNumber, null, null, amount, description), null), transactionId));
+    }
+
+    /**
+     * Returns the in-memory balance of an account, if the engine has loaded it. Accounts
+     * the engine has never touched are still authoritative in the database.
+     */
+    public Optional<BigDecimal> getBalance(String accountNumber) {
+        return await(shardFor(accountNumber).balance(accountNumber));
+    }
+
+    /**
+     * True when the shard holding the account rejects new entries after a failed flush.
+     */
+    public boolean isFenced(String accountNumber) {
+        return shardFor(accountNumber).isFenced();
+    }
+
+    void flush() {
+        for (LedgerShard shard : shards) {
+            try {
+                flush(shard);
+            } catch (RuntimeException e) {
+                logger.error("Ledger flush failed for shard {}", shard.getShardId(), e);
+            }
+        }
+    }
+
+    private void flush(LedgerShard shard) {
+        List<LedgerEntry> drained = await(shard.drain());
+        if (drained.isEmpty()) {
+            return;
+        }
+        int shardId = shard.getShardId();
+        try {
+            persist(shardId, drained, true);
+            flushFailures[shardId] = 0;
+        } catch (RuntimeException e) {
+            if (++flushFailures[shardId] < maxFlushAttempts) {
+                await(shard.requeue(drained));
+                throw e;
+            }
+            deadLetter(shard, drained, e);
+            flushFailures[shardId] = 0;
+        }
+        await(shard.compact());
+    }
+
+    // Moves a batch that keeps failing out of the flush path and fences its shard
+    private void deadLetter(LedgerShard shard, List<LedgerEntry> entries, RuntimeException failure) {
+        Path path = deadLetterPath(shard.getShardId());
+        try {
+            LedgerJournal.appendTo(path, entries);
+        } catch (IOException e) {
+            await(shard.requeue(entries));
+            failure.addSuppressed(e);
+            throw failure;
+        }
+        shard.fence();
+        logger.error("Ledger shard {} fenced: {} entries (sequences {} to {}) failed to flush {} times and were "
+                        + "written to {}; they are not in the database and the shard accepts no new entries",
+                shard.getShardId(), entries.size(), entries.get(0).getSequence(),
+                entries.get(entries.size() - 1).getSequence(), maxFlushAttempts, path.toAbsolutePath(), failure);
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, "shard-*.journal")) {
+            for (Path path : journals) {
+                String fileName = path.getFileName().toString();
+                int shardId = Integer.parseInt(fileName.substring("shard-".length(), fileName.indexOf('.')));
+                long lastSequence = checkpointRepository.findById(shardId)
+                        .map(LedgerCheckpoint::getLastSequence)
+                        .orElse(0L);
+                List<LedgerEntry> tail = LedgerJournal.read(path).stream()
+                        .filter(entry -> entry.getSequence() > lastSequence)
+                        .toList();
+                if (!tail.isEmpty()) {
+                    logger.info("Replaying {} journaled ledger entries for shard {}", tail.size(), shardId);
+                    persist(shardId, tail, true);
+                }
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Runs after the journals, since dead-lettered entries precede the checkpoints
+    private void recoverDeadLetters() throws IOException {
+        try (DirectoryStream<Path> deadLetters = Files.newDirectoryStream(directory, "shard-*.dead-letter")) {
+            for (Path path : deadLetters) {
+                List<LedgerEntry> entries = LedgerJournal.read(path);
+                if (!replayDeadLetters) {
+                    logger.error("{} holds {} ledger entries that were never applied to the database; "
+                            + "set banking.ledger.replay-dead-letters=true to apply them", path, entries.size());
+                    continue;
+                }
+                String fileName = path.getFileName().toString();
+                int shardId = Integer.parseInt(fileName.substring("shard-".length(), fileName.indexOf('.')));
+                logger.info("Applying {} dead-lettered ledger entries of shard {}", entries.size(), shardId);
+                if (!entries.isEmpty()) {
+                    persist(shardId, entries, false);
+                }
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void persist(int shardId, List<LedgerEntry> entries, boolean checkpoint) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, BigDecimal> deltas = new HashMap<>();
+            List<Transaction> transactions = new ArrayList<>(entries.size());
+            for (LedgerEntry entry : entries) {
+                Transaction transaction = toTransaction(entry);
+                if (entry.getFromAccountId() != null) {
+                    transaction.setFromAccount(accountRepository.getReferenceById(entry.getFromAccountId()));
+                    deltas.merge(entry.getFromAccountId(), entry.getAmount().negate(), BigDecimal::add);
+                }
+                if (entry.getToAccountId() != null) {
+                    transaction.setToAccount(accountRepository.getReferenceById(entry.getToAccountId()));
+                    deltas.merge(entry.getToAccountId(), entry.getAmount(), BigDecimal::add);
+                }
+                transactions.add(transaction);
+            }
+            transactionRepository.saveAll(transactions);
+            deltas.forEach(accountRepository::adjustBalance);
+            if (checkpoint) {
+                long lastSequence = entries.get(entries.size() - 1).getSequence();
+                checkpointRepository.save(new LedgerCheckpoint(shardId, lastSequence));
+            }
+        });
+    }
+
+    private LedgerEntry draft(String transactionId, Transaction.TransactionType type,
+                              Long fromId, String fromAccountNumber, Long toId, String toAccountNumber,
+                              BigDecimal amount, String description) {
+        return new LedgerEntry(0, transactionId, idGenerationService.nextReferenceNumber(), type,
+                fromId, fromAccountNumber, toId, toAccountNumber, amount, description,
+                System.currentTimeMillis());
+    }
+
+    private Transaction toTransaction(LedgerEntry entry) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(entry.getTransactionId());
+        transaction.setTransactionType(entry.getTransactionType());
+        transaction.setAmount(entry.getAmount());
+        transaction.setDescription(entry.getDescription());
+        transaction.setFromAccount(accountStub(entry.getFromAccountId(), entry.getFromAccountNumber()));
+        transaction.setToAccount(accountStub(entry.getToAccountId(), entry.getToAccountNumber()));
+        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        transaction.setReferenceNumber(entry.getReferenceNumber());
+        LocalDateTime createdAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(entry.getCreatedAtMillis()), ZoneId.systemDefault());
+        transaction.setCreatedAt(createdAt);
+        transaction.setUpdatedAt(createdAt);
+        return transaction;
+    }
+
+    private Account accountStub(Long id, String accountNumber) {
+        if (id == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+
+    private LedgerShard shardFor(String accountNumber) {
+        return shards[LedgerShard.shardIndex(accountNumber, shardCount)];
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(operationTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Ledger operation timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ledger operation interrupted");
+        }
+    }
+
+    // The shard may still journal the entry after the caller stops waiting
+    private LedgerEntry awaitApplied(CompletableFuture<LedgerEntry> future, String transactionId) {
+        try {
+            return future.get(operationTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            throw new OutcomeUnknownException(transactionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OutcomeUnknownException(transactionId);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return new RuntimeException(e.getCause());
+    }
+
+    private static Path journalPath(Path directory, int shardId) {
+        return directory.resolve("shard-" + shardId + ".journal");
+    }
+
+    private Path deadLetterPath(int shardId) {
+        return directory.resolve("shard-" + shardId + ".dead-letter");
+    }
+
+    /**
+     * The entry may have been journaled, and then it will be committed. Callers must
+     * not report a failure, or a retry would post it twice; the transaction id is the
+     * one to look up once the flusher has written it.
+     */
+    public static class OutcomeUnknownException extends RuntimeException {
+        private final String transactionId;
+
+        public OutcomeUnknownException(String transactionId) {
+            super("Ledger operation timed out; transaction " + transactionId + " may still complete");
+            this.transactionId = transactionId;
+        }
+
+        public String getTransactionId() {
+            return transactionId;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.banking.app.ledger;
+
+import com.banking.app.entity.Transaction;
+import lombok.Value;
+import lombok.With;
+
+import java.math.BigDecimal;
+
+/**
+ * One journaled balance mutation. A transfer is a single entry carrying both legs,
+ * so replaying an entry always moves money atomically.
+ */
+@Value
+public class LedgerEntry {
+    @With
+    long sequence;
+    String transactionId;
+    String referenceNumber;
+    Transaction.TransactionType transactionType;
+    Long fromAccountId;
+    String fromAccountNumber;
+    Long toAccountId;
+    String toAccountNumber;
+    BigDecimal amount;
+    String description;
+    long createdAtMillis;
+}
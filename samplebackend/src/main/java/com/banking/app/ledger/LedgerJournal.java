@@ -0,0 +1,205 @@
+package com.banking.app.ledger;
+
+import com.banking.app.entity.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal for a single ledger shard. Only the shard's writer
+ * thread touches an instance, so no locking is done here.
+ * <p>
+ * Each record is its length, a CRC-32 of its bytes and the entry itself, so a record
+ * torn or damaged by a crash is recognised when the journal is read back.
+ */
+public class LedgerJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerJournal.class);
+
+    // Far above any real entry; a larger length can only come from a damaged record
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final boolean fsync;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+
+    public LedgerJournal(Path path, boolean fsync) throws IOException {
+        this.path = path;
+        this.fsync = fsync;
+        open();
+    }
+
+    private void open() throws IOException {
+        fileOut = new FileOutputStream(path.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+    }
+
+    public void append(LedgerEntry entry) throws IOException {
+        write(out, entry);
+        out.flush();
+        if (fsync) {
+            fileOut.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Replaces the journal contents with the given entries, typically the ones that
+     * have not been flushed to the database yet.
+     */
+    public void rewrite(List<LedgerEntry> entries) throws IOException {
+        close();
+        try {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileOutputStream tmpOut = new FileOutputStream(tmp.toFile());
+                 DataOutputStream data = new DataOutputStream(new BufferedOutputStream(tmpOut))) {
+                for (LedgerEntry entry : entries) {
+                    write(data, entry);
+                }
+                data.flush();
+                tmpOut.getChannel().force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            open();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Appends entries to a file outside any live journal, such as a dead-letter file,
+     * and forces them to disk.
+     */
+    public static void appendTo(Path path, List<LedgerEntry> entries) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(path.toFile(), true);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            for (LedgerEntry entry : entries) {
+                write(data, entry);
+            }
+            data.flush();
+            fileOut.getChannel().force(true);
+        }
+    }
+
+    /**
+     * Reads every intact entry of a journal file. Reading stops at the first record that
+     * is torn, fails its checksum or cannot be decoded, as it does at the end of the file:
+     * a crash while appending leaves such a record, and its mutation was never
+     * acknowledged.
+     */
+    public static List<LedgerEntry> read(Path path) throws IOException {
+        List<LedgerEntry> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return entries;
+                }
+                try {
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        throw new StreamCorruptedException("Invalid record length " + length);
+                    }
+                    int checksum = in.readInt();
+                    byte[] record = new byte[length];
+                    in.readFully(record);
+                    if (checksum != checksum(record)) {
+                        throw new StreamCorruptedException("Checksum mismatch");
+                    }
+                    entries.add(readEntry(new DataInputStream(new ByteArrayInputStream(record))));
+                    offset += 8 + length;
+                } catch (IOException | IllegalArgumentException e) {
+                    logger.warn("Ignoring the journal tail of {} from byte {} after {} entries: {}",
+                            path, offset, entries.size(), e.toString());
+                    return entries;
+                }
+            }
+        }
+    }
+
+    private static void write(DataOutputStream data, LedgerEntry entry) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        writeEntry(new DataOutputStream(buffer), entry);
+        byte[] record = buffer.toByteArray();
+        data.writeInt(record.length);
+        data.writeInt(checksum(record));
+        data.write(record);
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static void writeEntry(DataOutputStream data, LedgerEntry entry) throws IOException {
+        data.writeLong(entry.getSequence());
+        data.writeUTF(entry.getTransactionId());
+        data.writeUTF(entry.getReferenceNumber());
+        data.writeUTF(entry.getTransactionType().name());
+        writeNullableLong(data, entry.getFromAccountId());
+        writeNullableString(data, entry.getFromAccountNumber());
+        writeNullableLong(data, entry.getToAccountId());
+        writeNullableString(data, entry.getToAccountNumber());
+        data.writeUTF(entry.getAmount().toPlainString());
+        writeNullableString(data, entry.getDescription());
+        data.writeLong(entry.getCreatedAtMillis());
+    }
+
+    private static LedgerEntry readEntry(DataInputStream in) throws IOException {
+        return new LedgerEntry(
+                in.readLong(),
+                in.readUTF(),
+                in.readUTF(),
+                Transaction.TransactionType.valueOf(in.readUTF()),
+                readNullableLong(in),
+                readNullableString(in),
+                readNullableLong(in),
+                readNullableString(in),
+                new BigDecimal(in.readUTF()),
+                readNullableString(in),
+                in.readLong());
+    }
+
+    private static void writeNullableLong(DataOutputStream data, Long value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
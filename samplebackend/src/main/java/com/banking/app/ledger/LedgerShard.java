@@ -0,0 +1,215 @@
+package com.banking.app.ledger;
+
+import com.banking.app.entity.Account;
+import com.banking.app.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A partition of the in-memory ledger. Every account owned by the shard is read and
+ * written only from the shard's single writer thread, so balance checks and updates
+ * need no locks. A fenced shard accepts no new entries; see {@link LedgerEngine}.
+ */
+class LedgerShard {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerShard.class);
+
+    private final int shardId;
+    private final int shardCount;
+    private final AccountRepository accountRepository;
+    private final LedgerJournal journal;
+    private final ExecutorService writer;
+    private final Map<String, AccountState> accounts = new HashMap<>();
+    private List<LedgerEntry> pending = new ArrayList<>();
+    private long nextSequence;
+    private volatile boolean fenced;
+
+    LedgerShard(int shardId, int shardCount, AccountRepository accountRepository,
+                LedgerJournal journal, long nextSequence) {
+        this.shardId = shardId;
+        this.shardCount = shardCount;
+        this.accountRepository = accountRepository;
+        this.journal = journal;
+        this.nextSequence = nextSequence;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-shard-" + shardId);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static int shardIndex(String accountNumber, int shardCount) {
+        return Math.floorMod(accountNumber.hashCode(), shardCount);
+    }
+
+    int getShardId() {
+        return shardId;
+    }
+
+    boolean isFenced() {
+        return fenced;
+    }
+
+    void fence() {
+        fenced = true;
+    }
+
+    CompletableFuture<Long> resolve(String accountNumber, String notFoundMessage) {
+        return CompletableFuture.supplyAsync(() -> load(accountNumber, notFoundMessage).id, writer);
+    }
+
+    /**
+     * Validates and journals an entry whose source account (if any) is owned by this
+     * shard, then applies the debit and the credit. A credit to an account of another
+     * shard is queued on that shard's writer before the returned future completes, so it
+     * is part of applying the journaled entry: it happens whether or not the caller is
+     * still waiting, and ahead of anything submitted to that shard afterwards.
+     */
+    CompletableFuture<LedgerEntry> apply(LedgerEntry draft, LedgerShard destination) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (fenced) {
+                throw new RuntimeException("Ledger shard " + shardId + " is fenced after a failed flush");
+            }
+            AccountState from = draft.getFromAccountNumber() != null
+                    ? accounts.get(draft.getFromAccountNumber()) : null;
+            if (from != null && from.balance.subtract(draft.getAmount()).compareTo(from.debitFloor) < 0) {
+                throw new RuntimeException("Insufficient balance");
+            }
+
+            LedgerEntry entry = draft.withSequence(nextSequence);
+            try {
+                journal.append(entry);
+            } catch (IOException e) {
+                // The record may be on disk, torn or whole; either way nothing can safely follow it
+                fenced = true;
+                logger.error("Ledger shard {} fenced: failed to write journal entry {}", shardId,
+                        entry.getTransactionId(), e);
+                throw new LedgerEngine.OutcomeUnknownException(entry.getTransactionId());
+            }
+            nextSequence++;
+            pending.add(entry);
+
+            if (from != null) {
+                from.balance = from.balance.subtract(entry.getAmount());
+            }
+            if (isLocal(entry.getToAccountNumber())) {
+                AccountState to = accounts.get(entry.getToAccountNumber());
+                to.balance = to.balance.add(entry.getAmount());
+            } else if (entry.getToAccountNumber() != null) {
+                creditRemote(destination, entry);
+            }
+            return entry;
+        }, writer);
+    }
+
+    // The flush of this shard writes the credit to the database; only the other shard's memory needs it
+    private void creditRemote(LedgerShard destination, LedgerEntry entry) {
+        try {
+            destination.credit(entry.getToAccountNumber(), entry.getAmount());
+        } catch (RejectedExecutionException e) {
+            // Only while shutting down, when the destination's balances are being discarded
+            logger.warn("Ledger shard {} stopped before crediting {} for {}", destination.getShardId(),
+                    entry.getToAccountNumber(), entry.getTransactionId());
+        }
+    }
+
+    // The account was loaded by resolve() before the entry was applied and is never evicted
+    private void credit(String accountNumber, BigDecimal amount) {
+        writer.execute(() -> {
+            AccountState state = accounts.get(accountNumber);
+            state.balance = state.balance.add(amount);
+        });
+    }
+
+    CompletableFuture<Optional<BigDecimal>> balance(String accountNumber) {
+        return CompletableFuture.supplyAsync(() -> Optional.ofNullable(accounts.get(accountNumber))
+                .map(state -> state.balance), writer);
+    }
+
+    /**
+     * Hands the entries appended since the last drain to the flusher.
+     */
+    CompletableFuture<List<LedgerEntry>> drain() {
+        return CompletableFuture.supplyAsync(() -> {
+            List<LedgerEntry> drained = pending;
+            pending = new ArrayList<>();
+            return drained;
+        }, writer);
+    }
+
+    /**
+     * Puts back entries whose flush failed so the next flush retries them in order.
+     */
+    CompletableFuture<Void> requeue(List<LedgerEntry> entries) {
+        return CompletableFuture.runAsync(() -> {
+            List<LedgerEntry> restored = new ArrayList<>(entries);
+            restored.addAll(pending);
+            pending = restored;
+        }, writer);
+    }
+
+    /**
+     * Drops flushed entries from the journal so that it only holds the unflushed tail.
+     */
+    CompletableFuture<Void> compact() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                journal.rewrite(pending);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to compact ledger journal", e);
+            }
+        }, writer);
+    }
+
+    void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isLocal(String accountNumber) {
+        return accountNumber != null && shardIndex(accountNumber, shardCount) == shardId;
+    }
+
+    private AccountState load(String accountNumber, String notFoundMessage) {
+        AccountState state = accounts.get(accountNumber);
+        if (state == null) {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new RuntimeException(notFoundMessage));
+            // Credits a hot account received before the engine started may still sit in its
+            // balance slots; folding them later moves them but does not change this total
+            BigDecimal balance = accountRepository.findBalanceIncludingSlots(account.getId());
+            state = new AccountState(account.getId(), balance, account.getDebitFloor());
+            accounts.put(accountNumber, state);
+        }
+        return state;
+    }
+
+    private static class AccountState {
+        private final Long id;
+        private final BigDecimal debitFloor;
+        private BigDecimal balance;
+
+        private AccountState(Long id, BigDecimal balance, BigDecimal debitFloor) {
+            this.id = id;
+            this.balance = balance;
+            this.debitFloor = debitFloor;
+        }
+    }
+}
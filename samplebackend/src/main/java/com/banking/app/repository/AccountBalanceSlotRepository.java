@@ -0,0 +1,38 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.AccountBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+    
+    @Modifying
+    @Query("UPDATE AccountBalanceSlot s SET s.amount = s.amount + :amount " +
+           "WHERE s.account.id = :accountId AND s.slotIndex = :slotIndex")
+    int credit(@Param("accountId") Long accountId, @Param("slotIndex") int slotIndex,
+               @Param("amount") BigDecimal amount);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.account.id = :accountId ORDER BY s.slotIndex")
+    List<AccountBalanceSlot> lockByAccountId(@Param("accountId") Long accountId);
+    
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM AccountBalanceSlot s WHERE s.account.id = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+    
+    @Modifying
+    @Query("UPDATE AccountBalanceSlot s SET s.amount = 0 WHERE s.account.id = :accountId")
+    int clearByAccountId(@Param("accountId") Long accountId);
+    
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSlot s WHERE s.account.id = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -1,10 +1,19 @@
 package com.banking.app.repository;
 
+import com.banking.app.dto.AccountMetadata;
+import com.banking.app.dto.AccountResponse;
 import com.banking.app.entity.Account;
 import com.banking.app.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +28,64 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     
     boolean existsByAccountNumber(String accountNumber);
     
+    // Read model for the account endpoints: the account's own columns, nothing joined
+    @Query("SELECT new com.banking.app.dto.AccountResponse(a.id, a.accountNumber, a.accountType, a.balance, " +
+           "a.isActive, a.interestRate, a.minimumBalance, a.overdraftLimit, a.hot, a.createdAt, a.updatedAt) " +
+           "FROM Account a WHERE a.user.id = :userId ORDER BY a.id")
+    List<AccountResponse> findResponsesByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.banking.app.dto.AccountResponse(a.id, a.accountNumber, a.accountType, a.balance, " +
+           "a.isActive, a.interestRate, a.minimumBalance, a.overdraftLimit, a.hot, a.createdAt, a.updatedAt) " +
+           "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountResponse> findResponseByAccountNumber(@Param("accountNumber") String accountNumber);
+    
+    // Cached by AccountMetadataCache: everything but the balance and the hot account state
+    @Query("SELECT new com.banking.app.dto.AccountMetadata(a.id, a.accountNumber, a.accountType, a.isActive, " +
+           "a.interestRate, a.minimumBalance, a.overdraftLimit, a.user.id, a.createdAt) " +
+           "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountMetadata> findMetadataByAccountNumber(@Param("accountNumber") String accountNumber);
+    
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+    
     List<Account> findByAccountType(Account.AccountType accountType);
-}
\ No newline at end of file
+    
+    // Rows are locked in account number order so concurrent callers cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.accountNumber")
+    List<Account> lockByAccountNumbers(@Param("accountNumbers") Collection<String> accountNumbers);
+    
+    /**
+     * Debits the account only if the result stays at or above its debit floor
+     * (see {@link Account#getDebitFloor()}). Returns 0 when the account is missing
+     * or the funds are insufficient.
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1 " +
+           "WHERE a.accountNumber = :accountNumber AND a.balance - :amount >= " +
+           "CASE WHEN COALESCE(a.overdraftLimit, 0) > 0 THEN -a.overdraftLimit " +
+           "ELSE COALESCE(a.minimumBalance, 0) END")
+    int debitIfSufficient(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+    
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1 " +
+           "WHERE a.accountNumber = :accountNumber")
+    int credit(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+    
+    List<Account> findByHotTrue();
+    
+    @Modifying
+    @Query("UPDATE Account a SET a.hot = :hot, a.balanceSlots = :slots, a.version = a.version + 1 WHERE a.id = :id")
+    int updateHot(@Param("id") Long id, @Param("hot") boolean hot, @Param("slots") Integer slots);
+    
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :delta, a.version = a.version + 1 WHERE a.id = :id")
+    int adjustBalance(@Param("id") Long id, @Param("delta") BigDecimal delta);
+    
+    /**
+     * {@code accounts.balance} plus the balance slots not folded yet, read in one
+     * statement so a concurrent fold cannot be counted twice or missed.
+     */
+    @Query("SELECT a.balance + COALESCE((SELECT SUM(s.amount) FROM AccountBalanceSlot s " +
+           "WHERE s.account.id = a.id), 0) FROM Account a WHERE a.id = :id")
+    BigDecimal findBalanceIncludingSlots(@Param("id") Long id);
+}
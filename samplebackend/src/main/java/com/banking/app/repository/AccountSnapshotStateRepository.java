@@ -0,0 +1,31 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.AccountSnapshotState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountSnapshotStateRepository extends JpaRepository<AccountSnapshotState, Long> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountSnapshotState s WHERE s.accountId = :accountId")
+    Optional<AccountSnapshotState> lockByAccountId(@Param("accountId") Long accountId);
+    
+    // Plain insert: save() would merge over a row another writer created and backfilled
+    @Modifying
+    @Query(value = "INSERT INTO account_snapshot_states (account_id, backfilled) VALUES (:accountId, FALSE)",
+           nativeQuery = true)
+    int insert(@Param("accountId") Long accountId);
+    
+    @Query("SELECT a.id FROM Account a WHERE a.id NOT IN " +
+           "(SELECT s.accountId FROM AccountSnapshotState s WHERE s.backfilled = true) ORDER BY a.id")
+    List<Long> findAccountIdsNotBackfilled();
+}
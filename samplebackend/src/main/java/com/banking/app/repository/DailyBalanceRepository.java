@@ -0,0 +1,28 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.DailyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyBalanceRepository extends JpaRepository<DailyBalance, Long> {
+    
+    @Query("SELECT d FROM DailyBalance d WHERE d.account.id = :accountId AND d.balanceDate >= :from " +
+           "ORDER BY d.balanceDate")
+    List<DailyBalance> findFrom(@Param("accountId") Long accountId, @Param("from") LocalDate from);
+    
+    @Query("SELECT d FROM DailyBalance d WHERE d.account.id = :accountId " +
+           "AND d.balanceDate BETWEEN :start AND :end ORDER BY d.balanceDate")
+    List<DailyBalance> findBetween(@Param("accountId") Long accountId,
+                                   @Param("start") LocalDate start, @Param("end") LocalDate end);
+    
+    // Latest snapshot strictly before the given day
+    Optional<DailyBalance> findFirstByAccountIdAndBalanceDateBeforeOrderByBalanceDateDesc(
+            Long accountId, LocalDate balanceDate);
+}
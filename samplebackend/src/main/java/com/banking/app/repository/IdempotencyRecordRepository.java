@@ -0,0 +1,33 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    // A plain INSERT, unlike save(), so a key claimed concurrently fails on the primary key
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_records (idempotency_key, request_hash, status, created_at, expires_at) " +
+                   "VALUES (:key, :requestHash, 'IN_PROGRESS', :now, :expiresAt)", nativeQuery = true)
+    int insertInProgress(@Param("key") String key, @Param("requestHash") String requestHash,
+                         @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.requestHash = :requestHash, " +
+           "r.status = com.banking.app.entity.IdempotencyRecord$RecordStatus.IN_PROGRESS, " +
+           "r.statusCode = NULL, r.responseBody = NULL, r.createdAt = :now, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.expiresAt < :now")
+    int takeOverExpired(@Param("key") String key, @Param("requestHash") String requestHash,
+                        @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,24 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.MonthlyStatement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyStatementRepository extends JpaRepository<MonthlyStatement, Long> {
+    
+    Optional<MonthlyStatement> findByAccountIdAndPeriodStart(Long accountId, LocalDate periodStart);
+    
+    @Query("SELECT a.id FROM Account a WHERE (a.createdAt IS NULL OR a.createdAt < :periodEnd) " +
+           "AND NOT EXISTS (SELECT m.id FROM MonthlyStatement m " +
+           "WHERE m.account.id = a.id AND m.periodStart = :periodStart) ORDER BY a.id")
+    List<Long> findAccountIdsWithoutStatement(@Param("periodStart") LocalDate periodStart,
+                                              @Param("periodEnd") LocalDateTime periodEnd);
+}
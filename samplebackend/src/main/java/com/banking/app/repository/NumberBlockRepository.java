@@ -0,0 +1,19 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.NumberBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NumberBlockRepository extends JpaRepository<NumberBlock, String> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM NumberBlock b WHERE b.sequenceName = :sequenceName")
+    Optional<NumberBlock> lockBySequence(@Param("sequenceName") String sequenceName);
+}
@@ -0,0 +1,304 @@
+package com.banking.app.repository;
+
+import com.banking.app.archive.TransactionArchive;
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads an account's transaction history. A filter of the form
+ * {@code from_account_id = ? OR to_account_id = ?} cannot be served by one index, so
+ * MySQL scans the table and sorts the matches. Instead every query here is a
+ * {@code UNION ALL} of two range scans, one over {@code (from_account_id, created_at)}
+ * and one over {@code (to_account_id, created_at)}, each already in
+ * {@code (created_at, id)} order and cut to the rows the page can use before the two
+ * halves are merged. Rows come back as {@link TransactionResponse}s with the account
+ * numbers joined in, so reading a page loads no entities.
+ * <p>
+ * Transactions moved to the {@link TransactionArchive} are merged back in by date, so
+ * callers see the same history whether or not part of it has been archived.
+ */
+@Repository
+public class TransactionHistoryRepository {
+
+    private static final String COUNT_SQL = "SELECT " +
+            "(SELECT COUNT(*) FROM transactions WHERE from_account_id = :accountId) + " +
+            "(SELECT COUNT(*) FROM transactions WHERE to_account_id = :accountId " +
+            "AND (from_account_id IS NULL OR from_account_id <> :accountId))";
+
+    // Account numbers are joined in per branch; the branch limit still applies to the
+    // index scan, so only rows that survive it are looked up
+    private static final String BRANCH_COLUMNS = "t.id, t.transaction_id, t.reference_number, t.transaction_type, " +
+            "t.amount, t.description, t.status, t.failure_reason, fa.account_number AS from_account_number, " +
+            "ta.account_number AS to_account_number, t.created_at, t.updated_at";
+
+    private static final String BRANCH_FROM = " FROM transactions t" +
+            " LEFT JOIN accounts fa ON fa.id = t.from_account_id" +
+            " LEFT JOIN accounts ta ON ta.id = t.to_account_id";
+
+    // Rows written before created_at was recorded have none. They sort as the oldest, which
+    // is where NULL sorts in MySQL and H2, so they come last in newest-first history
+    private static final Comparator<TransactionResponse> HISTORY_ORDER = Comparator
+            .comparing(TransactionResponse::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TransactionResponse::getId);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    /**
+     * The whole history of an account, newest first.
+     */
+    public List<TransactionResponse> findAll(Long accountId) {
+        return read(accountId, null, null, null, null, true, 0, null);
+    }
+
+    /**
+     * History between two instants (inclusive), newest first.
+     */
+    public List<TransactionResponse> findBetween(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
+        return read(accountId, startDate, endDate, null, null, true, 0, null);
+    }
+
+    /**
+     * One page of history, newest first. Each half of the union only reads
+     * {@code offset + size} index entries rather than the whole history.
+     */
+    public Page<TransactionResponse> findPage(Long accountId, Pageable pageable) {
+        List<TransactionResponse> content = read(accountId, null, null, null, null, true,
+                (int) pageable.getOffset(), pageable.getPageSize());
+        long total = ((Number) entityManager.createNativeQuery(COUNT_SQL)
+                .setParameter("accountId", accountId)
+                .getSingleResult()).longValue() + transactionArchive.count(accountId);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Up to {@code limit} rows strictly before {@code (createdAt, id)}, newest first.
+     * With no position the newest rows are returned. Either bound of the date range may be
+     * null, leaving that end open; undated rows only match when both are. A position with
+     * an id but no {@code createdAt} is an undated row, which sorts as the oldest.
+     */
+    public List<TransactionResponse> findOlderThan(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                                                   LocalDateTime createdAt, Long id, int limit) {
+        return read(accountId, startDate, endDate, createdAt, id, true, 0, limit);
+    }
+
+    /**
+     * Up to {@code limit} rows strictly after {@code (createdAt, id)}, oldest first.
+     */
+    public List<TransactionResponse> findNewerThan(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                                                   LocalDateTime createdAt, Long id, int limit) {
+        return read(accountId, startDate, endDate, createdAt, id, false, 0, limit);
+    }
+
+    /**
+     * The history within an optional, possibly open-ended date range, oldest first, for
+     * reading in one pass. Table rows come from a streamed query, so the stream has to be
+     * consumed and closed inside a read-only transaction.
+     */
+    public Stream<TransactionResponse> stream(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
+        Stream<TransactionResponse> hot = historyQuery(accountId, startDate, endDate, null, null, false, 0, null)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, 1000)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(row -> toResponse((Object[]) row));
+        if (transactionArchive.isEmpty()) {
+            return hot;
+        }
+        // Old rows the archiver had to leave behind (pending, not yet snapshotted) sit
+        // between archived ones, so the table and the archive are merged by date
+        Iterator<TransactionResponse> merged = TransactionArchive.merge(hot.iterator(),
+                archived(accountId, startDate, endDate, false), HISTORY_ORDER);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(hot::close);
+    }
+
+    /**
+     * Runs the query against the table and, when there is an archive, against the archive
+     * too. Both sides then have to supply {@code offset + limit} rows, since the page may
+     * start anywhere in either of them.
+     */
+    private List<TransactionResponse> read(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                                           LocalDateTime createdAt, Long id, boolean newestFirst,
+                                           int offset, Integer limit) {
+        boolean seek = id != null;
+        // Archived rows are all dated, so none of them is older than an undated one
+        if (transactionArchive.isEmpty() || (seek && createdAt == null && newestFirst)) {
+            return query(accountId, startDate, endDate, createdAt, id, newestFirst, offset, limit);
+        }
+        List<TransactionResponse> hot = query(accountId, startDate, endDate, createdAt, id, newestFirst, 0,
+                limit != null ? offset + limit : null);
+
+        LocalDateTime from = startDate;
+        LocalDateTime to = endDate;
+        if (seek && createdAt != null) {
+            if (newestFirst && (to == null || createdAt.isBefore(to))) {
+                to = createdAt;
+            } else if (!newestFirst && (from == null || createdAt.isAfter(from))) {
+                from = createdAt;
+            }
+        }
+        Iterator<TransactionResponse> cold = archived(accountId, from, to, newestFirst);
+        Iterator<TransactionResponse> merged = TransactionArchive.merge(hot.iterator(), cold,
+                newestFirst ? HISTORY_ORDER.reversed() : HISTORY_ORDER);
+
+        List<TransactionResponse> result = new ArrayList<>();
+        int skipped = 0;
+        while (merged.hasNext() && (limit == null || result.size() < limit)) {
+            TransactionResponse transaction = merged.next();
+            // The archive is cut at the cursor's instant; drop the rows at that instant
+            // which are on the wrong side of the cursor's id
+            if (seek && createdAt != null && createdAt.equals(transaction.getCreatedAt())
+                    && (newestFirst ? transaction.getId() >= id : transaction.getId() <= id)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    private Iterator<TransactionResponse> archived(Long accountId, LocalDateTime from, LocalDateTime to,
+                                                   boolean newestFirst) {
+        Iterator<Transaction> archived = transactionArchive.scan(accountId, from, to, newestFirst);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return archived.hasNext();
+            }
+
+            @Override
+            public TransactionResponse next() {
+                return TransactionResponse.from(archived.next());
+            }
+        };
+    }
+
+    private List<TransactionResponse> query(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                                            LocalDateTime createdAt, Long id, boolean newestFirst,
+                                            int offset, Integer limit) {
+        List<?> rows = historyQuery(accountId, startDate, endDate, createdAt, id, newestFirst, offset, limit)
+                .getResultList();
+        List<TransactionResponse> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(toResponse((Object[]) row));
+        }
+        return result;
+    }
+
+    private Query historyQuery(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                               LocalDateTime createdAt, Long id, boolean newestFirst,
+                               int offset, Integer limit) {
+        boolean seek = id != null;
+        String direction = newestFirst ? "DESC" : "ASC";
+
+        StringBuilder filter = new StringBuilder();
+        if (startDate != null) {
+            filter.append(" AND t.created_at >= :startDate");
+        }
+        if (endDate != null) {
+            filter.append(" AND t.created_at <= :endDate");
+        }
+        if (seek) {
+            filter.append(seekFilter(createdAt != null, newestFirst));
+        }
+        String order = "t.created_at " + direction + ", t.id " + direction;
+        String branchLimit = limit != null ? " LIMIT :branchLimit" : "";
+
+        // Each half orders by its account column too, a constant there, so that the order
+        // matches the index prefix and the scan stops after the limit. The second half skips
+        // rows the first already returned (transfers to the same account). The union is the
+        // outermost query: H2 reuses the result of a derived table between executions even
+        // when the parameters inside it change, which returned stale pages
+        String sql = "(SELECT " + BRANCH_COLUMNS + BRANCH_FROM + " WHERE t.from_account_id = :accountId" + filter +
+                " ORDER BY t.from_account_id, " + order + branchLimit + ")" +
+                " UNION ALL " +
+                "(SELECT " + BRANCH_COLUMNS + BRANCH_FROM + " WHERE t.to_account_id = :accountId" +
+                " AND (t.from_account_id IS NULL OR t.from_account_id <> :accountId)" + filter +
+                " ORDER BY t.to_account_id, " + order + branchLimit + ")" +
+                " ORDER BY created_at " + direction + ", id " + direction;
+
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("accountId", accountId);
+        if (startDate != null) {
+            query.setParameter("startDate", startDate);
+        }
+        if (endDate != null) {
+            query.setParameter("endDate", endDate);
+        }
+        if (seek) {
+            query.setParameter("id", id);
+            if (createdAt != null) {
+                query.setParameter("createdAt", createdAt);
+            }
+        }
+        if (limit != null) {
+            query.setParameter("branchLimit", offset + limit)
+                    .setFirstResult(offset)
+                    .setMaxResults(limit);
+        }
+        return query;
+    }
+
+    private static TransactionResponse toResponse(Object[] columns) {
+        return new TransactionResponse(
+                ((Number) columns[0]).longValue(),
+                (String) columns[1],
+                (String) columns[2],
+                Transaction.TransactionType.valueOf((String) columns[3]),
+                (BigDecimal) columns[4],
+                (String) columns[5],
+                Transaction.TransactionStatus.valueOf((String) columns[6]),
+                (String) columns[7],
+                (String) columns[8],
+                (String) columns[9],
+                toLocalDateTime(columns[10]),
+                toLocalDateTime(columns[11]));
+    }
+
+    // Rows strictly past (createdAt, id) in the direction of reading; undated rows are the oldest
+    private static String seekFilter(boolean dated, boolean newestFirst) {
+        if (!dated) {
+            return newestFirst
+                    ? " AND t.created_at IS NULL AND t.id < :id"
+                    : " AND (t.created_at IS NOT NULL OR t.id > :id)";
+        }
+        return newestFirst
+                ? " AND (t.created_at < :createdAt OR t.created_at IS NULL" +
+                  " OR (t.created_at = :createdAt AND t.id < :id))"
+                : " AND (t.created_at > :createdAt OR (t.created_at = :createdAt AND t.id > :id))";
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value == null || value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        return ((Timestamp) value).toLocalDateTime();
+    }
+}
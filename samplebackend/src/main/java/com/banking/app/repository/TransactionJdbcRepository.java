@@ -0,0 +1,107 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Writes {@link Transaction} rows with plain JDBC. Hibernate cannot batch inserts for
+ * IDENTITY ids and needs the account entities to set the foreign keys, so bulk and
+ * fast paths write through here instead. Runs in the caller's JPA transaction.
+ */
+@Repository
+public class TransactionJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO transactions (transaction_id, transaction_type, " +
+            "amount, description, status, reference_number, created_at, updated_at, " +
+            "from_account_id, to_account_id, snapshotted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE)";
+
+    private static final String INSERT_BY_ACCOUNT_NUMBER_SQL = "INSERT INTO transactions (transaction_id, " +
+            "transaction_type, amount, description, status, reference_number, created_at, updated_at, " +
+            "from_account_id, to_account_id, snapshotted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, " +
+            "(SELECT id FROM accounts WHERE account_number = ?), " +
+            "(SELECT id FROM accounts WHERE account_number = ?), FALSE)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the transactions in JDBC batches of {@code batchSize} and sets the generated
+     * ids on them.
+     */
+    public void insertAll(List<Transaction> transactions, int batchSize) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < transactions.size(); start += batchSize) {
+                    List<Transaction> chunk = transactions.subList(start,
+                            Math.min(start + batchSize, transactions.size()));
+                    for (Transaction transaction : chunk) {
+                        setCommonColumns(ps, transaction);
+                        setAccountId(ps, 9, transaction.getFromAccount());
+                        setAccountId(ps, 10, transaction.getToAccount());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        for (Transaction transaction : chunk) {
+                            if (!keys.next()) {
+                                break;
+                            }
+                            transaction.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Inserts a transaction whose account foreign keys are resolved from account numbers
+     * inside the statement, and returns the generated id.
+     */
+    public Long insert(Transaction transaction, String fromAccountNumber, String toAccountNumber) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_BY_ACCOUNT_NUMBER_SQL,
+                    Statement.RETURN_GENERATED_KEYS);
+            setCommonColumns(ps, transaction);
+            ps.setString(9, fromAccountNumber);
+            ps.setString(10, toAccountNumber);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private static void setAccountId(PreparedStatement ps, int index, Account account) throws SQLException {
+        if (account != null) {
+            ps.setLong(index, account.getId());
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+    
+    private static void setCommonColumns(PreparedStatement ps, Transaction transaction) throws SQLException {
+        ps.setString(1, transaction.getTransactionId());
+        ps.setString(2, transaction.getTransactionType().name());
+        ps.setBigDecimal(3, transaction.getAmount());
+        ps.setString(4, transaction.getDescription());
+        ps.setString(5, transaction.getStatus().name());
+        ps.setString(6, transaction.getReferenceNumber());
+        ps.setTimestamp(7, Timestamp.valueOf(transaction.getCreatedAt()));
+        ps.setTimestamp(8, Timestamp.valueOf(transaction.getUpdatedAt()));
+    }
+}
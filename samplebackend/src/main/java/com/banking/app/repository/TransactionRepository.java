@@ -1,15 +1,18 @@
 package com.banking.app.repository;
 
+import com.banking.app.dto.TransactionStatusResponse;
 import com.banking.app.entity.Transaction;
-import com.banking.app.entity.Account;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,19 +21,86 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     Optional<Transaction> findByTransactionId(String transactionId);
     
-    List<Transaction> findByFromAccountOrToAccountOrderByCreatedAtDesc(Account fromAccount, Account toAccount);
-    
-    Page<Transaction> findByFromAccountOrToAccountOrderByCreatedAtDesc(
-            Account fromAccount, Account toAccount, Pageable pageable);
-    
-    @Query("SELECT t FROM Transaction t WHERE (t.fromAccount = :account OR t.toAccount = :account) " +
-           "AND t.createdAt BETWEEN :startDate AND :endDate ORDER BY t.createdAt DESC")
-    List<Transaction> findAccountTransactionsBetweenDates(
-            @Param("account") Account account,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate);
+    // Not an entity, so never answered from a persistence context that already holds the row
+    @Query("SELECT new com.banking.app.dto.TransactionStatusResponse(t.transactionId, t.referenceNumber, " +
+           "t.transactionType, t.amount, t.status, t.failureReason, t.updatedAt) " +
+           "FROM Transaction t WHERE t.transactionId = :transactionId")
+    Optional<TransactionStatusResponse> findStatusByTransactionId(@Param("transactionId") String transactionId);
     
+    @EntityGraph(Transaction.WITH_ACCOUNTS)
     List<Transaction> findByStatus(Transaction.TransactionStatus status);
     
+    @EntityGraph(Transaction.WITH_ACCOUNTS)
     List<Transaction> findByTransactionType(Transaction.TransactionType transactionType);
-}
\ No newline at end of file
+    
+    @EntityGraph(Transaction.WITH_ACCOUNTS)
+    @Query("SELECT t FROM Transaction t " +
+           "WHERE t.status = com.banking.app.entity.Transaction$TransactionStatus.PENDING " +
+           "AND t.transactionType = com.banking.app.entity.Transaction$TransactionType.TRANSFER ORDER BY t.id")
+    List<Transaction> findPendingTransfers();
+    
+    // Resolving makes the row eligible for the daily balance rollup, legacy rows included
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.failureReason = :failureReason, t.updatedAt = :now, " +
+           "t.snapshotted = false WHERE t.id = :id AND t.status = com.banking.app.entity.Transaction$TransactionStatus.PENDING")
+    int resolvePending(@Param("id") Long id,
+                       @Param("status") Transaction.TransactionStatus status,
+                       @Param("failureReason") String failureReason,
+                       @Param("now") LocalDateTime now);
+    
+    // Daily balance snapshots. Rows reach the rollup once they are no longer PENDING;
+    // failed and cancelled rows are only marked.
+    @Query("SELECT t FROM Transaction t WHERE t.snapshotted = false " +
+           "AND t.status <> com.banking.app.entity.Transaction$TransactionStatus.PENDING ORDER BY t.id")
+    List<Transaction> findUnsnapshotted(Pageable limit);
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.snapshotted = true WHERE t.id IN :ids AND t.snapshotted = false")
+    int markSnapshotted(@Param("ids") Collection<Long> ids);
+    
+    long countBySnapshottedFalseAndCreatedAtBefore(LocalDateTime before);
+    
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.toAccount.id = :accountId " +
+           "AND t.status = com.banking.app.entity.Transaction$TransactionStatus.COMPLETED " +
+           "AND t.createdAt >= :from AND t.createdAt <= :to")
+    BigDecimal sumCredits(@Param("accountId") Long accountId,
+                          @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.fromAccount.id = :accountId " +
+           "AND t.status = com.banking.app.entity.Transaction$TransactionStatus.COMPLETED " +
+           "AND t.createdAt >= :from AND t.createdAt <= :to")
+    BigDecimal sumDebits(@Param("accountId") Long accountId,
+                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    // Completed before the given instant but not yet in the snapshots
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.toAccount.id = :accountId THEN t.amount ELSE 0 END), 0) - " +
+           "COALESCE(SUM(CASE WHEN t.fromAccount.id = :accountId THEN t.amount ELSE 0 END), 0) " +
+           "FROM Transaction t WHERE t.snapshotted = false " +
+           "AND t.status = com.banking.app.entity.Transaction$TransactionStatus.COMPLETED " +
+           "AND t.createdAt < :before AND (t.fromAccount.id = :accountId OR t.toAccount.id = :accountId)")
+    BigDecimal sumUnsnapshottedNet(@Param("accountId") Long accountId, @Param("before") LocalDateTime before);
+    
+    // Per-day totals of the rows written before snapshots existed: [day, amount, count]
+    @Query("SELECT CAST(t.createdAt AS LocalDate), SUM(t.amount), COUNT(t) FROM Transaction t " +
+           "WHERE t.toAccount.id = :accountId AND t.snapshotted IS NULL " +
+           "AND t.status = com.banking.app.entity.Transaction$TransactionStatus.COMPLETED " +
+           "GROUP BY CAST(t.createdAt AS LocalDate)")
+    List<Object[]> sumLegacyCreditsByDay(@Param("accountId") Long accountId);
+    
+    @Query("SELECT CAST(t.createdAt AS LocalDate), SUM(t.amount), COUNT(t) FROM Transaction t " +
+           "WHERE t.fromAccount.id = :accountId AND t.snapshotted IS NULL " +
+           "AND t.status = com.banking.app.entity.Transaction$TransactionStatus.COMPLETED " +
+           "GROUP BY CAST(t.createdAt AS LocalDate)")
+    List<Object[]> sumLegacyDebitsByDay(@Param("accountId") Long accountId);
+    
+    // Archiving. Only rows already in the daily balance snapshots may leave the table;
+    // legacy rows (no flag) only once every account has been backfilled
+    @EntityGraph(Transaction.WITH_ACCOUNTS)
+    @Query("SELECT t FROM Transaction t WHERE t.createdAt < :before " +
+           "AND t.status <> com.banking.app.entity.Transaction$TransactionStatus.PENDING " +
+           "AND (t.snapshotted = true OR (:includeLegacy = true AND t.snapshotted IS NULL)) " +
+           "ORDER BY t.id")
+    List<Transaction> findArchivable(@Param("before") LocalDateTime before,
+                                     @Param("includeLegacy") boolean includeLegacy,
+                                     Pageable limit);
+}
@@ -1,10 +1,19 @@
 package com.banking.app.repository;
 
+import com.banking.app.dto.UserIdentifiers;
+import com.banking.app.dto.UserProfileResponse;
 import com.banking.app.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -18,4 +27,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByAadharNumber(String aadharNumber);
     
     Optional<User> findByPhoneNumber(String phoneNumber);
+    
+    // Signup uniqueness: whichever users hold any of the three, in one round trip
+    @Query("SELECT new com.banking.app.dto.UserIdentifiers(u.email, u.panNumber, u.aadharNumber) " +
+           "FROM User u WHERE u.email = :email OR u.panNumber = :panNumber OR u.aadharNumber = :aadharNumber")
+    List<UserIdentifiers> findIdentifiersMatching(@Param("email") String email,
+                                                  @Param("panNumber") String panNumber,
+                                                  @Param("aadharNumber") String aadharNumber);
+    
+    // Every user's identifiers, fetched from a server-side cursor; consume inside a
+    // read-only transaction
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.banking.app.dto.UserIdentifiers(u.email, u.panNumber, u.aadharNumber) FROM User u")
+    Stream<UserIdentifiers> streamIdentifiers();
+    
+    @Query("SELECT new com.banking.app.dto.UserProfileResponse(u.id, u.email, u.firstName, u.lastName, " +
+           "u.phoneNumber, u.dateOfBirth, u.address, u.panNumber, u.aadharNumber, u.role, u.isActive, " +
+           "u.createdAt, u.updatedAt) FROM User u WHERE u.id = :id")
+    Optional<UserProfileResponse> findProfileById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.AccountMetadata;
+import com.banking.app.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps {@link AccountMetadata} by account number, so that reads which only need to
+ * resolve an account do not query it each time. Holds at most
+ * {@code banking.account-cache.max-size} accounts, least recently used evicted first, each
+ * for {@code banking.account-cache.ttl-seconds}. {@link AccountService} invalidates an
+ * account when it changes; the TTL bounds how long another instance's change goes unseen.
+ * The balance is never cached. Reported as the {@code accounts} cache in the
+ * {@code cache.*} metrics.
+ */
+@Service
+public class AccountMetadataCache {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${banking.account-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.account-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${banking.account-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Account number -> metadata, in access order
+    private Map<String, Entry> entries;
+
+    // Guarded by entries. Bumped on every invalidation, so that a load which started
+    // before one does not put back what it read
+    private long invalidations;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        new Metrics(this).bindTo(meterRegistry);
+    }
+
+    public Optional<AccountMetadata> get(String accountNumber) {
+        if (!enabled) {
+            return accountRepository.findMetadataByAccountNumber(accountNumber);
+        }
+        long generation;
+        synchronized (entries) {
+            Entry entry = entries.get(accountNumber);
+            if (entry != null) {
+                if (!entry.isExpired()) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.metadata);
+                }
+                entries.remove(accountNumber);
+                evictions.incrementAndGet();
+            }
+            generation = invalidations;
+        }
+        misses.incrementAndGet();
+
+        // Unknown numbers are not cached: the account may be created at any time
+        Optional<AccountMetadata> loaded = accountRepository.findMetadataByAccountNumber(accountNumber);
+        loaded.ifPresent(metadata -> {
+            synchronized (entries) {
+                if (invalidations == generation) {
+                    entries.put(accountNumber, new Entry(metadata,
+                            System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+                    puts.incrementAndGet();
+                }
+            }
+        });
+        return loaded;
+    }
+
+    public AccountMetadata require(String accountNumber) {
+        return get(accountNumber).orElseThrow(() -> new RuntimeException("Account not found"));
+    }
+
+    /**
+     * Drops the account, to be called once a change to it has been committed.
+     */
+    public void invalidate(String accountNumber) {
+        synchronized (entries) {
+            entries.remove(accountNumber);
+            invalidations++;
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final AccountMetadata metadata;
+        private final long expiresAtNanos;
+
+        private Entry(AccountMetadata metadata, long expiresAtNanos) {
+            this.metadata = metadata;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+
+    private static class Metrics extends CacheMeterBinder<AccountMetadataCache> {
+
+        private Metrics(AccountMetadataCache cache) {
+            super(cache, "accounts", Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            AccountMetadataCache cache = getCache();
+            return cache != null ? (long) cache.size() : null;
+        }
+
+        @Override
+        protected long hitCount() {
+            AccountMetadataCache cache = getCache();
+            return cache != null ? cache.hits.get() : 0;
+        }
+
+        @Override
+        protected Long missCount() {
+            AccountMetadataCache cache = getCache();
+            return cache != null ? cache.misses.get() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            AccountMetadataCache cache = getCache();
+            return cache != null ? cache.evictions.get() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            AccountMetadataCache cache = getCache();
+            return cache != null ? cache.puts.get() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        }
+    }
+}
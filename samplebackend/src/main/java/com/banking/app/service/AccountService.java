@@ -1,18 +1,22 @@
 package com.banking.app.service;
 
+import com.banking.app.concurrency.BalanceConcurrencyStrategy;
+import com.banking.app.dto.AccountResponse;
 import com.banking.app.entity.Account;
 import com.banking.app.entity.User;
+import com.banking.app.ledger.LedgerEngine;
 import com.banking.app.repository.AccountRepository;
 import com.banking.app.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 
 @Service
+@Timed("banking.service")
 public class AccountService {
     
     @Autowired
@@ -21,12 +25,28 @@ public class AccountService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private BalanceConcurrencyStrategy concurrencyStrategy;
+    
+    @Autowired
+    private HotAccountService hotAccountService;
+    
+    @Autowired
+    private IdGenerationService idGenerationService;
+    
+    @Autowired
+    private AccountMetadataCache accountMetadataCache;
+    
+    // Present only when banking.ledger.mode=memory
+    @Autowired(required = false)
+    private LedgerEngine ledgerEngine;
+    
     public Account createAccount(Long userId, Account.AccountType accountType) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         Account account = new Account();
-        account.setAccountNumber(generateAccountNumber());
+        account.setAccountNumber(idGenerationService.nextAccountNumber());
         account.setAccountType(accountType);
         account.setBalance(BigDecimal.ZERO);
         account.setIsActive(true);
@@ -35,7 +55,9 @@ public class AccountService {
         // Set default values based on account type
         setAccountDefaults(account, accountType);
         
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        accountMetadataCache.invalidate(saved.getAccountNumber());
+        return saved;
     }
     
     private void setAccountDefaults(Account account, Account.AccountType accountType) {
@@ -60,32 +82,54 @@ public class AccountService {
         }
     }
     
-    private String generateAccountNumber() {
-        String accountNumber;
-        do {
-            accountNumber = "ACC" + System.currentTimeMillis() + 
-                           String.format("%04d", new Random().nextInt(10000));
-        } while (accountRepository.existsByAccountNumber(accountNumber));
-        
-        return accountNumber;
+    public List<AccountResponse> getUserAccounts(Long userId) {
+        List<AccountResponse> accounts = accountRepository.findResponsesByUserId(userId);
+        accounts.forEach(this::applyCurrentBalance);
+        return accounts;
     }
     
-    public List<Account> getUserAccounts(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return accountRepository.findByUser(user);
+    public Optional<AccountResponse> getAccountByNumber(String accountNumber) {
+        Optional<AccountResponse> account = accountRepository.findResponseByAccountNumber(accountNumber);
+        account.ifPresent(this::applyCurrentBalance);
+        return account;
     }
     
-    public Optional<Account> getAccountByNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber);
+    // The stored column can lag behind: in ledger mode the engine is newer, and hot
+    // accounts keep credits in balance slots until they are folded
+    private void applyCurrentBalance(AccountResponse account) {
+        if (ledgerEngine != null) {
+            ledgerEngine.getBalance(account.getAccountNumber()).ifPresent(account::setBalance);
+        } else if (Boolean.TRUE.equals(account.getHot())) {
+            account.setBalance(hotAccountService.currentBalance(account.getId(), account.getBalance()));
+        }
     }
     
+    /**
+     * Adds {@code amount}, which may be negative, to the balance. In ledger mode the change
+     * is made by the engine as a deposit or withdrawal, since the engine holds the balance.
+     */
     public Account updateBalance(String accountNumber, BigDecimal amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        account.setBalance(account.getBalance().add(amount));
-        return accountRepository.save(account);
+        if (ledgerEngine != null) {
+            if (amount.signum() > 0) {
+                ledgerEngine.deposit(accountNumber, amount, "Balance adjustment", idGenerationService.nextTransactionId());
+            } else if (amount.signum() < 0) {
+                ledgerEngine.withdraw(accountNumber, amount.negate(), "Balance adjustment",
+                        idGenerationService.nextTransactionId());
+            }
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new RuntimeException("Account not found"));
+            ledgerEngine.getBalance(accountNumber).ifPresent(account::setBalance);
+            return account;
+        }
+        return concurrencyStrategy.execute(List.of(accountNumber), accounts -> {
+            Account account = accounts.get(accountNumber);
+            if (account == null) {
+                throw new RuntimeException("Account not found");
+            }
+            
+            account.setBalance(account.getBalance().add(amount));
+            return accountRepository.save(account);
+        });
     }
     
     public Account deactivateAccount(String accountNumber) {
@@ -93,6 +137,8 @@ public class AccountService {
                 .orElseThrow(() -> new RuntimeException("Account not found"));
         
         account.setIsActive(false);
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        accountMetadataCache.invalidate(accountNumber);
+        return saved;
     }
 }
\ No newline at end of file
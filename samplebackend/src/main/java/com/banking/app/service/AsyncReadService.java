@@ -0,0 +1,96 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.AccountResponse;
+import com.banking.app.dto.TransactionCursorPage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the account and history reads behind {@code /reads} off the request thread, so a
+ * request waiting on the database holds no servlet thread. Reads run on a pool of
+ * {@code banking.reads.threads}, and the connection pool bounds how many query at once.
+ * Reads beyond {@code banking.reads.queue-capacity} waiting for the pool are rejected
+ * with {@link QueueFullException}.
+ */
+@Service
+public class AsyncReadService {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Value("${banking.reads.threads:20}")
+    private int threads;
+
+    @Value("${banking.reads.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadFactory() {
+                    private int count;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "read-" + count++);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CompletableFuture<List<AccountResponse>> getUserAccounts(Long userId) {
+        return read(() -> accountService.getUserAccounts(userId));
+    }
+
+    public CompletableFuture<AccountResponse> getAccountByNumber(String accountNumber) {
+        return read(() -> accountService.getAccountByNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found")));
+    }
+
+    /**
+     * One page of {@link TransactionService#getAccountTransactionsByCursor}.
+     */
+    public CompletableFuture<TransactionCursorPage> getAccountTransactions(String accountNumber,
+                                                                          LocalDateTime startDate,
+                                                                          LocalDateTime endDate,
+                                                                          String cursor, int size) {
+        return read(() -> transactionService.getAccountTransactionsByCursor(accountNumber,
+                startDate, endDate, cursor, size));
+    }
+
+    private <T> CompletableFuture<T> read(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new QueueFullException());
+        }
+    }
+
+    /**
+     * Thrown when a read cannot be queued because the pool is busy and its queue full.
+     */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException() {
+            super("Too many reads in progress, please retry later");
+        }
+    }
+}
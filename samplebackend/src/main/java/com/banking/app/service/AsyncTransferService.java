@@ -0,0 +1,180 @@
+package com.banking.app.service;
+
+import com.banking.app.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Accepts transfers without waiting for them. A transfer is stored as PENDING and queued
+ * on the partition of its source account; each partition has one worker thread, so
+ * transfers from the same account are applied in the order they were accepted. Each
+ * partition has a fixed capacity, and a full partition rejects new transfers instead of
+ * queueing them. PENDING transfers left over from a previous run are queued again on startup.
+ */
+@Service
+public class AsyncTransferService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransferService.class);
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Value("${banking.async-transfers.partitions:8}")
+    private int partitionCount;
+    
+    @Value("${banking.async-transfers.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    private final List<Partition> partitions = new ArrayList<>();
+    
+    // Transaction id -> callbacks waiting for that transfer to leave PENDING
+    private final Map<Long, List<Runnable>> listeners = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new Partition(i));
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPendingTransfers() {
+        List<Transaction> pending;
+        try {
+            pending = transactionService.getPendingTransfers();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load pending transfers", e);
+            return;
+        }
+        for (Transaction transaction : pending) {
+            String fromAccountNumber = transaction.getFromAccount().getAccountNumber();
+            partitionOf(fromAccountNumber).queue.add(new Task(transaction.getId(), fromAccountNumber,
+                    transaction.getToAccount().getAccountNumber(), transaction.getAmount(), false));
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Queued {} pending transfers from a previous run", pending.size());
+        }
+    }
+    
+    /**
+     * Stores the transfer as PENDING and queues it.
+     *
+     * @throws QueueFullException when the source account's partition is at capacity
+     */
+    public Transaction submit(String fromAccountNumber, String toAccountNumber,
+                              BigDecimal amount, String description) {
+        Partition partition = partitionOf(fromAccountNumber);
+        if (!partition.capacity.tryAcquire()) {
+            throw new QueueFullException();
+        }
+        try {
+            Transaction transaction = transactionService.createPendingTransfer(
+                    fromAccountNumber, toAccountNumber, amount, description);
+            partition.queue.add(new Task(transaction.getId(), fromAccountNumber, toAccountNumber, amount, true));
+            return transaction;
+        } catch (RuntimeException e) {
+            partition.capacity.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Runs {@code listener} on the worker thread once this instance has processed the
+     * transfer. Returns a handle that unregisters it.
+     */
+    public Runnable onResolved(Long id, Runnable listener) {
+        listeners.computeIfAbsent(id, key -> new CopyOnWriteArrayList<>()).add(listener);
+        return () -> listeners.computeIfPresent(id, (key, registered) -> {
+            registered.remove(listener);
+            return registered.isEmpty() ? null : registered;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        partitions.forEach(partition -> partition.worker.shutdownNow());
+    }
+    
+    private Partition partitionOf(String accountNumber) {
+        return partitions.get(Math.floorMod(accountNumber.hashCode(), partitionCount));
+    }
+    
+    private void process(Partition partition) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                task = partition.queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                transactionService.completePendingTransfer(task.id, task.fromAccountNumber,
+                        task.toAccountNumber, task.amount);
+            } catch (RuntimeException e) {
+                logger.error("Failed to process pending transfer {}", task.id, e);
+            } finally {
+                if (task.counted) {
+                    partition.capacity.release();
+                }
+                List<Runnable> waiting = listeners.remove(task.id);
+                if (waiting != null) {
+                    waiting.forEach(Runnable::run);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Thrown when a transfer cannot be queued because its partition is full.
+     */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException() {
+            super("Too many pending transfers, please retry later");
+        }
+    }
+    
+    private class Partition {
+        private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private final Semaphore capacity = new Semaphore(queueCapacity);
+        private final ExecutorService worker;
+        
+        private Partition(int index) {
+            worker = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "async-transfer-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            worker.execute(() -> process(this));
+        }
+    }
+    
+    // counted: holds a capacity permit (recovered transfers do not)
+    private static class Task {
+        private final Long id;
+        private final String fromAccountNumber;
+        private final String toAccountNumber;
+        private final BigDecimal amount;
+        private final boolean counted;
+        
+        private Task(Long id, String fromAccountNumber, String toAccountNumber, BigDecimal amount, boolean counted) {
+            this.id = id;
+            this.fromAccountNumber = fromAccountNumber;
+            this.toAccountNumber = toAccountNumber;
+            this.amount = amount;
+            this.counted = counted;
+        }
+    }
+}
@@ -6,8 +6,12 @@ import com.banking.app.dto.SignupRequest;
 import com.banking.app.entity.User;
 import com.banking.app.repository.UserRepository;
 import com.banking.app.config.JwtUtils;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -29,11 +33,33 @@ public class AuthService {
     @Autowired
     JwtUtils jwtUtils;
     
-    public AuthResponse authenticateUser(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager
-                .authenticate(new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()));
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    LoginRateLimiter loginRateLimiter;
+    
+    @Autowired
+    SignupScreeningService signupScreeningService;
+    
+    public AuthResponse authenticateUser(LoginRequest loginRequest, String clientAddress) {
+        loginRateLimiter.acquire(clientAddress, loginRequest.getEmail());
+        Authentication authentication;
+        try {
+            authentication = authenticationManager
+                    .authenticate(new UsernamePasswordAuthenticationToken(
+                            loginRequest.getEmail(),
+                            loginRequest.getPassword()));
+        } catch (BadCredentialsException e) {
+            loginRateLimiter.recordFailure(clientAddress, loginRequest.getEmail());
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // Raised while looking up the user, which hashes too when the email is unknown
+            if (e.getCause() instanceof PasswordHashingService.BusyException busy) {
+                throw busy;
+            }
+            throw e;
+        }
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateToken((UserPrincipal) authentication.getPrincipal());
@@ -48,20 +74,19 @@ public class AuthService {
                 userPrincipal.getAuthorities().iterator().next().getAuthority());
     }
     
-    public User registerUser(SignupRequest signUpRequest) {
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            throw new RuntimeException("Error: Email is already taken!");
-        }
-        
-        if (signUpRequest.getPanNumber() != null && 
-            userRepository.existsByPanNumber(signUpRequest.getPanNumber())) {
-            throw new RuntimeException("Error: PAN number is already registered!");
+    public void logout(String token) {
+        Claims claims = token != null ? jwtUtils.verifiedClaims(token) : null;
+        if (claims == null) {
+            throw new RuntimeException("Error: Invalid or expired token!");
         }
+        tokenRevocationService.revokeToken(claims);
+    }
+    
+    public User registerUser(SignupRequest signUpRequest, String clientAddress) {
+        loginRateLimiter.acquire(clientAddress, signUpRequest.getEmail());
         
-        if (signUpRequest.getAadharNumber() != null && 
-            userRepository.existsByAadharNumber(signUpRequest.getAadharNumber())) {
-            throw new RuntimeException("Error: Aadhar number is already registered!");
-        }
+        signupScreeningService.checkAvailable(signUpRequest.getEmail(),
+                signUpRequest.getPanNumber(), signUpRequest.getAadharNumber());
         
         // Create new user's account
         User user = new User();
@@ -77,6 +102,14 @@ public class AuthService {
         user.setRole(User.UserRole.CUSTOMER);
         user.setIsActive(true);
         
-        return userRepository.save(user);
+        try {
+            user = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Taken since the check, or on another instance the screen has not heard of
+            throw signupScreeningService.toSignupError(e, signUpRequest.getEmail(),
+                    signUpRequest.getPanNumber(), signUpRequest.getAadharNumber());
+        }
+        signupScreeningService.record(user);
+        return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,474 @@
+package com.banking.app.service;
+
+import com.banking.app.archive.TransactionArchive;
+import com.banking.app.dto.AccountMetadata;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.AccountSnapshotState;
+import com.banking.app.entity.DailyBalance;
+import com.banking.app.entity.MonthlyStatement;
+import com.banking.app.entity.Transaction;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.AccountSnapshotStateRepository;
+import com.banking.app.repository.DailyBalanceRepository;
+import com.banking.app.repository.MonthlyStatementRepository;
+import com.banking.app.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a closing balance per account and day in {@code daily_balances}, so that the
+ * balance at any instant is one snapshot read plus the transactions of that day, and
+ * statement totals of closed months are materialized once in {@code monthly_statements}.
+ * <p>
+ * Completed transactions are folded into the snapshots shortly after they commit by a
+ * scheduled rollup, which claims them through their {@code snapshotted} flag. Rows written
+ * before snapshots existed are folded in per account by the backfill, either for all
+ * accounts in parallel or lazily on the first query for an account.
+ */
+@Service
+public class BalanceSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceSnapshotService.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DailyBalanceRepository dailyBalanceRepository;
+
+    @Autowired
+    private AccountSnapshotStateRepository stateRepository;
+
+    @Autowired
+    private MonthlyStatementRepository monthlyStatementRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountMetadataCache accountMetadataCache;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${banking.snapshots.rollup-batch-size:500}")
+    private int rollupBatchSize;
+
+    @Value("${banking.snapshots.backfill-threads:4}")
+    private int backfillThreads;
+
+    private TransactionTemplate writeTemplate;
+
+    private TransactionTemplate readTemplate;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        // Reads that combine snapshots with the rows not yet in them must see one snapshot of both
+        readTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Balance of the account at the given instant: the latest snapshot before that day,
+     * plus completed rows the rollup has not reached yet, plus the day's own rows.
+     */
+    public BigDecimal balanceAt(String accountNumber, LocalDateTime at) {
+        AccountMetadata account = accountMetadataCache.require(accountNumber);
+        ensureBackfilled(account.getId());
+        // One REPEATABLE READ transaction, so a rollup committing between the parts cannot
+        // move rows from the unsnapshotted sum into the snapshot already read
+        return readTemplate.execute(status -> {
+            LocalDateTime dayStart = at.toLocalDate().atStartOfDay();
+            return closingBefore(account.getId(), at.toLocalDate())
+                    .add(transactionRepository.sumUnsnapshottedNet(account.getId(), dayStart))
+                    .add(transactionRepository.sumCredits(account.getId(), dayStart, at))
+                    .subtract(transactionRepository.sumDebits(account.getId(), dayStart, at))
+                    .add(archivedNet(account.getId(), dayStart, at));
+        });
+    }
+
+    /**
+     * Whether every account's legacy rows are in the snapshots, after which the archiver
+     * may move rows from before the snapshots existed out of the table.
+     */
+    public boolean isBackfilled() {
+        return stateRepository.findAccountIdsNotBackfilled().isEmpty();
+    }
+
+    /**
+     * Statement totals of a closed month. Served from {@code monthly_statements} when
+     * materialized; otherwise computed from the snapshots, and stored if they are final.
+     */
+    public MonthlyStatement getStatement(String accountNumber, YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new RuntimeException("Statement period has not closed yet");
+        }
+        AccountMetadata account = accountMetadataCache.require(accountNumber);
+        Optional<MonthlyStatement> stored = monthlyStatementRepository
+                .findByAccountIdAndPeriodStart(account.getId(), month.atDay(1));
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        ensureBackfilled(account.getId());
+        if (!snapshotsFinal(month)) {
+            catchUp();
+        }
+        MonthlyStatement statement = readTemplate.execute(status -> computeStatement(account.getId(), month));
+        if (snapshotsFinal(month)) {
+            return store(statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Materializes the statements of the month that closed last, once no transaction of
+     * that month is still pending or waiting for the rollup. Retried daily until done.
+     */
+    @Scheduled(cron = "${banking.snapshots.statement-cron:0 15 0 * * *}")
+    public void materializeClosedMonth() {
+        try {
+            materializeStatements(YearMonth.now().minusMonths(1));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to materialize monthly statements", e);
+        }
+    }
+
+    public int materializeStatements(YearMonth month) {
+        catchUp();
+        if (!snapshotsFinal(month)) {
+            logger.info("Snapshots for {} are not final yet, statements deferred", month);
+            return 0;
+        }
+        int created = 0;
+        List<Long> accountIds = monthlyStatementRepository.findAccountIdsWithoutStatement(
+                month.atDay(1), month.plusMonths(1).atDay(1).atStartOfDay());
+        for (Long accountId : accountIds) {
+            ensureBackfilled(accountId);
+            store(readTemplate.execute(status -> computeStatement(accountId, month)));
+            created++;
+        }
+        logger.info("Materialized {} statements for {}", created, month);
+        return created;
+    }
+
+    @Scheduled(fixedDelayString = "${banking.snapshots.rollup-interval-ms:1000}")
+    public void scheduledRollup() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to roll up daily balances", e);
+        }
+    }
+
+    /**
+     * Folds one batch of resolved transactions into the daily snapshots and returns how
+     * many rows it took. Instances racing for the same rows roll back all but one claim.
+     */
+    public int rollup() {
+        List<Transaction> batch = transactionRepository.findUnsnapshotted(PageRequest.of(0, rollupBatchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, SortedMap<LocalDate, DayDelta>> deltas = new TreeMap<>();
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            ids.add(transaction.getId());
+            if (transaction.getStatus() != Transaction.TransactionStatus.COMPLETED) {
+                continue;
+            }
+            LocalDate day = transaction.getCreatedAt() != null
+                    ? transaction.getCreatedAt().toLocalDate() : LocalDate.now();
+            if (transaction.getFromAccount() != null) {
+                delta(deltas, transaction.getFromAccount().getId(), day).debit(transaction.getAmount(), 1);
+            }
+            if (transaction.getToAccount() != null) {
+                delta(deltas, transaction.getToAccount().getId(), day).credit(transaction.getAmount(), 1);
+            }
+        }
+
+        ensureStates(deltas.keySet());
+        boolean claimed = Boolean.TRUE.equals(writeTemplate.execute(status -> {
+            if (transactionRepository.markSnapshotted(ids) != ids.size()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            // Accounts are locked in id order, so concurrent writers cannot deadlock
+            deltas.forEach((accountId, days) -> {
+                stateRepository.lockByAccountId(accountId).orElseThrow();
+                apply(accountId, days);
+            });
+            return true;
+        }));
+        return claimed ? batch.size() : 0;
+    }
+
+    /**
+     * Starts backfilling every account that has not been backfilled yet, on
+     * {@code banking.snapshots.backfill-threads} threads. Returns false if a backfill
+     * is already running.
+     */
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread runner = new Thread(() -> {
+            try {
+                backfillAll();
+            } catch (RuntimeException e) {
+                logger.warn("Balance snapshot backfill failed", e);
+            } finally {
+                backfillRunning.set(false);
+            }
+        }, "snapshot-backfill");
+        runner.setDaemon(true);
+        runner.start();
+        return true;
+    }
+
+    public int backfillAll() {
+        List<Long> accountIds = stateRepository.findAccountIdsNotBackfilled();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, backfillThreads), r -> {
+            Thread thread = new Thread(r, "snapshot-backfill-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(accountIds.size());
+            for (Long accountId : accountIds) {
+                results.add(executor.submit(() -> backfill(accountId)));
+            }
+            int backfilled = 0;
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    if (results.get(i).get()) {
+                        backfilled++;
+                    }
+                } catch (ExecutionException e) {
+                    logger.warn("Failed to backfill balance snapshots of account {}", accountIds.get(i), e.getCause());
+                }
+            }
+            logger.info("Backfilled balance snapshots of {} accounts", backfilled);
+            return backfilled;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Backfill interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Folds the account's rows written before snapshots existed into its snapshots.
+     * Returns false if that was already done.
+     */
+    public boolean backfill(Long accountId) {
+        ensureStates(List.of(accountId));
+        return Boolean.TRUE.equals(writeTemplate.execute(status -> {
+            AccountSnapshotState state = stateRepository.lockByAccountId(accountId).orElseThrow();
+            if (Boolean.TRUE.equals(state.getBackfilled())) {
+                return false;
+            }
+            SortedMap<LocalDate, DayDelta> days = new TreeMap<>();
+            for (Object[] row : transactionRepository.sumLegacyCreditsByDay(accountId)) {
+                days.computeIfAbsent(toLocalDate(row[0]), day -> new DayDelta())
+                        .credit((BigDecimal) row[1], ((Number) row[2]).longValue());
+            }
+            for (Object[] row : transactionRepository.sumLegacyDebitsByDay(accountId)) {
+                days.computeIfAbsent(toLocalDate(row[0]), day -> new DayDelta())
+                        .debit((BigDecimal) row[1], ((Number) row[2]).longValue());
+            }
+            if (!days.isEmpty()) {
+                apply(accountId, days);
+            }
+            state.setBackfilled(true);
+            return true;
+        }));
+    }
+
+    private void catchUp() {
+        while (rollup() == rollupBatchSize) {
+            // Keep going while full batches come back
+        }
+    }
+
+    private void ensureBackfilled(Long accountId) {
+        boolean backfilled = stateRepository.findById(accountId)
+                .map(state -> Boolean.TRUE.equals(state.getBackfilled()))
+                .orElse(false);
+        if (!backfilled) {
+            backfill(accountId);
+        }
+    }
+
+    // The state row is the per-account lock, so it has to exist before anyone locks it
+    private void ensureStates(Collection<Long> accountIds) {
+        Set<Long> missing = new HashSet<>(accountIds);
+        stateRepository.findAllById(accountIds).forEach(state -> missing.remove(state.getAccountId()));
+        for (Long accountId : missing) {
+            try {
+                writeTemplate.executeWithoutResult(status -> stateRepository.insert(accountId));
+            } catch (DataIntegrityViolationException e) {
+                // Another writer created it first
+            }
+        }
+    }
+
+    /**
+     * Adds per-day deltas to the account's snapshots: existing days get the delta, missing
+     * days get a row, and the closing balance of every later day is carried forward.
+     * The caller holds the account's state lock.
+     */
+    private void apply(Long accountId, SortedMap<LocalDate, DayDelta> days) {
+        LocalDate first = days.firstKey();
+        BigDecimal closing = closingBefore(accountId, first);
+        Map<LocalDate, DailyBalance> existing = new TreeMap<>();
+        for (DailyBalance row : dailyBalanceRepository.findFrom(accountId, first)) {
+            existing.put(row.getBalanceDate(), row);
+        }
+
+        Set<LocalDate> dates = new TreeSet<>(existing.keySet());
+        dates.addAll(days.keySet());
+        Account account = accountRepository.getReferenceById(accountId);
+        List<DailyBalance> created = new ArrayList<>();
+        for (LocalDate date : dates) {
+            DailyBalance row = existing.get(date);
+            if (row == null) {
+                row = new DailyBalance(null, account, date, BigDecimal.ZERO, BigDecimal.ZERO, 0L, BigDecimal.ZERO);
+                created.add(row);
+            }
+            DayDelta delta = days.get(date);
+            if (delta != null) {
+                row.setTotalCredits(row.getTotalCredits().add(delta.credits));
+                row.setTotalDebits(row.getTotalDebits().add(delta.debits));
+                row.setTransactionCount(row.getTransactionCount() + delta.count);
+            }
+            closing = closing.add(row.getTotalCredits()).subtract(row.getTotalDebits());
+            row.setClosingBalance(closing);
+        }
+        dailyBalanceRepository.saveAll(created);
+    }
+
+    private MonthlyStatement computeStatement(Long accountId, YearMonth month) {
+        LocalDate start = month.atDay(1);
+        BigDecimal opening = closingBefore(accountId, start)
+                .add(transactionRepository.sumUnsnapshottedNet(accountId, start.atStartOfDay()));
+        BigDecimal credits = BigDecimal.ZERO;
+        BigDecimal debits = BigDecimal.ZERO;
+        long count = 0;
+        for (DailyBalance day : dailyBalanceRepository.findBetween(accountId, start, month.atEndOfMonth())) {
+            credits = credits.add(day.getTotalCredits());
+            debits = debits.add(day.getTotalDebits());
+            count += day.getTransactionCount();
+        }
+        return new MonthlyStatement(null, accountRepository.getReferenceById(accountId), start, opening,
+                opening.add(credits).subtract(debits), credits, debits, count, LocalDateTime.now());
+    }
+
+    private MonthlyStatement store(MonthlyStatement statement) {
+        try {
+            return writeTemplate.execute(status -> monthlyStatementRepository.save(statement));
+        } catch (DataIntegrityViolationException e) {
+            // Materialized concurrently; both computed the same totals
+            return monthlyStatementRepository.findByAccountIdAndPeriodStart(
+                    statement.getAccount().getId(), statement.getPeriodStart()).orElseThrow();
+        }
+    }
+
+    // Final once no transaction up to the end of the month is pending or waiting for the rollup
+    private boolean snapshotsFinal(YearMonth month) {
+        return transactionRepository.countBySnapshottedFalseAndCreatedAtBefore(
+                month.plusMonths(1).atDay(1).atStartOfDay()) == 0;
+    }
+
+    // Net of the completed archived transactions within [from, to]
+    private BigDecimal archivedNet(Long accountId, LocalDateTime from, LocalDateTime to) {
+        BigDecimal net = BigDecimal.ZERO;
+        Iterator<Transaction> archived = transactionArchive.scan(accountId, from, to, false);
+        while (archived.hasNext()) {
+            Transaction transaction = archived.next();
+            if (transaction.getStatus() != Transaction.TransactionStatus.COMPLETED) {
+                continue;
+            }
+            if (transaction.getToAccount() != null && accountId.equals(transaction.getToAccount().getId())) {
+                net = net.add(transaction.getAmount());
+            }
+            if (transaction.getFromAccount() != null && accountId.equals(transaction.getFromAccount().getId())) {
+                net = net.subtract(transaction.getAmount());
+            }
+        }
+        return net;
+    }
+
+    private BigDecimal closingBefore(Long accountId, LocalDate day) {
+        return dailyBalanceRepository.findFirstByAccountIdAndBalanceDateBeforeOrderByBalanceDateDesc(accountId, day)
+                .map(DailyBalance::getClosingBalance)
+                .orElse(BigDecimal.ZERO);
+    }
+
+    private static DayDelta delta(Map<Long, SortedMap<LocalDate, DayDelta>> deltas, Long accountId, LocalDate day) {
+        return deltas.computeIfAbsent(accountId, id -> new TreeMap<>()).computeIfAbsent(day, d -> new DayDelta());
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static class DayDelta {
+        private BigDecimal credits = BigDecimal.ZERO;
+        private BigDecimal debits = BigDecimal.ZERO;
+        private long count;
+
+        private void credit(BigDecimal amount, long transactions) {
+            credits = credits.add(amount);
+            count += transactions;
+        }
+
+        private void debit(BigDecimal amount, long transactions) {
+            debits = debits.add(amount);
+            count += transactions;
+        }
+    }
+}
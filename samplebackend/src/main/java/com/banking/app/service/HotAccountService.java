@@ -0,0 +1,192 @@
+package com.banking.app.service;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.AccountBalanceSlot;
+import com.banking.app.repository.AccountBalanceSlotRepository;
+import com.banking.app.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads credits to hot accounts (merchant, payroll) over N balance slot rows so they
+ * no longer contend on the single {@code accounts} row. The true balance of a hot account
+ * is {@code accounts.balance} plus the sum of its slots; debits fold the slots back into
+ * the row first, and a scheduled job folds them periodically.
+ * <p>
+ * The set of hot accounts is loaded at startup and reloaded when this instance marks or
+ * unmarks an account. Another instance may credit with an outdated set for a while, which
+ * is safe: a credit to an account that has lost its slots falls back to the row.
+ */
+@Service
+public class HotAccountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotAccountService.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate foldTemplate;
+
+    // Account number -> hot account, replaced wholesale on refresh
+    private volatile Map<String, HotAccount> hotAccounts = Map.of();
+
+    @PostConstruct
+    void init() {
+        foldTemplate = new TransactionTemplate(transactionManager);
+        foldTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Until an account is marked or unmarked, credits simply go to the accounts row
+            logger.warn("Failed to load hot accounts", e);
+        }
+    }
+
+    /**
+     * Id of the account if it is hot, as far as this instance knows; otherwise null.
+     */
+    public Long hotAccountId(String accountNumber) {
+        HotAccount hot = hotAccounts.get(accountNumber);
+        return hot != null ? hot.id : null;
+    }
+
+    /**
+     * Credits a random slot of a hot account. Returns false when the account is not hot
+     * (as far as this instance knows), in which case the caller credits the row itself.
+     * Must run inside the caller's transaction.
+     */
+    public boolean creditSlot(String accountNumber, BigDecimal amount) {
+        HotAccount hot = hotAccounts.get(accountNumber);
+        if (hot == null) {
+            return false;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(hot.slots);
+        return slotRepository.credit(hot.id, slot, amount) > 0;
+    }
+
+    /**
+     * Moves the slot totals of a hot account into {@code accounts.balance} in its own
+     * transaction, so that a following debit sees the whole balance. Does nothing for
+     * accounts that are not hot.
+     */
+    public void consolidate(String accountNumber) {
+        HotAccount hot = hotAccounts.get(accountNumber);
+        if (hot != null) {
+            fold(hot.id);
+        }
+    }
+
+    /**
+     * Balance including slot credits that have not been folded yet.
+     */
+    public BigDecimal currentBalance(Account account) {
+        if (!Boolean.TRUE.equals(account.getHot())) {
+            return account.getBalance();
+        }
+        return currentBalance(account.getId(), account.getBalance());
+    }
+
+    public BigDecimal currentBalance(Long accountId, BigDecimal storedBalance) {
+        return storedBalance.add(slotRepository.sumByAccountId(accountId));
+    }
+
+    public Account markHot(String accountNumber, int slots) {
+        if (slots < 1) {
+            throw new RuntimeException("At least one balance slot is required");
+        }
+        foldTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new RuntimeException("Account not found"));
+            foldSlots(account.getId());
+            slotRepository.deleteByAccountId(account.getId());
+            for (int i = 0; i < slots; i++) {
+                slotRepository.save(new AccountBalanceSlot(null, account, i, BigDecimal.ZERO));
+            }
+            accountRepository.updateHot(account.getId(), true, slots);
+        });
+        refresh();
+        return accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+    }
+
+    public Account unmarkHot(String accountNumber) {
+        foldTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new RuntimeException("Account not found"));
+            foldSlots(account.getId());
+            slotRepository.deleteByAccountId(account.getId());
+            accountRepository.updateHot(account.getId(), false, null);
+        });
+        refresh();
+        return accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+    }
+
+    @Scheduled(fixedDelayString = "${banking.hot-accounts.fold-interval-ms:1000}")
+    public void foldAll() {
+        Map<String, HotAccount> current = hotAccounts;
+        if (current.isEmpty()) {
+            return;
+        }
+        for (HotAccount hot : current.values()) {
+            try {
+                fold(hot.id);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to fold balance slots of account {}", hot.id, e);
+            }
+        }
+    }
+
+    public void refresh() {
+        List<Account> accounts = accountRepository.findByHotTrue();
+        Map<String, HotAccount> refreshed = new HashMap<>();
+        for (Account account : accounts) {
+            int slots = account.getBalanceSlots() != null ? account.getBalanceSlots() : 1;
+            refreshed.put(account.getAccountNumber(), new HotAccount(account.getId(), slots));
+        }
+        hotAccounts = refreshed;
+    }
+
+    private void fold(Long accountId) {
+        foldTemplate.executeWithoutResult(status -> foldSlots(accountId));
+    }
+
+    // Slot rows are locked first so no credit lands between summing and clearing them
+    private void foldSlots(Long accountId) {
+        List<AccountBalanceSlot> slots = slotRepository.lockByAccountId(accountId);
+        BigDecimal total = slots.stream()
+                .map(AccountBalanceSlot::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() != 0) {
+            accountRepository.adjustBalance(accountId, total);
+            slotRepository.clearByAccountId(accountId);
+        }
+    }
+
+    private static class HotAccount {
+        private final Long id;
+        private final int slots;
+
+        private HotAccount(Long id, int slots) {
+            this.id = id;
+            this.slots = slots;
+        }
+    }
+}
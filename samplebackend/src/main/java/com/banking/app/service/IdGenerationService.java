@@ -0,0 +1,78 @@
+package com.banking.app.service;
+
+import com.banking.app.id.NumberBlockAllocator;
+import com.banking.app.id.SnowflakeIdGenerator;
+import com.banking.app.repository.NumberBlockRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Central source of identifiers. Transaction ids and reference numbers are Snowflake ids;
+ * account numbers are drawn from blocks reserved in the database, so none of them needs a
+ * uniqueness check before use.
+ */
+@Service
+public class IdGenerationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdGenerationService.class);
+    
+    @Autowired
+    private NumberBlockRepository numberBlockRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${banking.id.node-id:-1}")
+    private int nodeId;
+    
+    @Value("${banking.id.block-size:100}")
+    private int blockSize;
+    
+    private SnowflakeIdGenerator snowflake;
+    private NumberBlockAllocator accountNumbers;
+    
+    @PostConstruct
+    void init() {
+        if (nodeId < 0) {
+            nodeId = deriveNodeId();
+            logger.warn("banking.id.node-id is not set, using {} derived from the host name; " +
+                    "set it explicitly when running several instances", nodeId);
+        }
+        snowflake = new SnowflakeIdGenerator(nodeId);
+        accountNumbers = new NumberBlockAllocator("account", blockSize, numberBlockRepository, transactionManager);
+    }
+    
+    public long nextId() {
+        return snowflake.nextId();
+    }
+    
+    public String nextTransactionId() {
+        return "TXN" + snowflake.nextId();
+    }
+    
+    public String nextReferenceNumber() {
+        return "REF" + Long.toString(snowflake.nextId(), 36).toUpperCase();
+    }
+    
+    public String nextAccountNumber() {
+        return "ACC" + String.format("%012d", accountNumbers.next());
+    }
+    
+    private static int deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return Math.floorMod(host.hashCode(), SnowflakeIdGenerator.MAX_NODE_ID + 1);
+    }
+}
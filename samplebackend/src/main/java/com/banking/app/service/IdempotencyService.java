@@ -0,0 +1,301 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.ApiResponse;
+import com.banking.app.entity.IdempotencyRecord;
+import com.banking.app.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes money-moving requests safe to retry. A request carrying an {@code Idempotency-Key}
+ * header runs once per key and caller; repeats get the stored response back without
+ * touching any account. Keys are claimed in the {@code idempotency_records} table before
+ * the operation runs, and recent responses are kept in a bounded in-memory cache.
+ * Duplicates that arrive while the first request is still running on this instance wait
+ * for its response; on another instance they get 409 Conflict.
+ * Only successful responses are stored; after a failure the key can be used again.
+ */
+@Service
+public class IdempotencyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    
+    public static final String HEADER = "Idempotency-Key";
+    
+    private static final int MAX_KEY_LENGTH = 100;
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${banking.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+    
+    @Value("${banking.idempotency.cache-size:10000}")
+    private int cacheSize;
+    
+    @Value("${banking.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    // Scoped key -> in-flight or completed request, oldest evicted first once full
+    private Map<String, Entry> cache;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        cache = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+    
+    /**
+     * Runs {@code action} unless a request with the same key has already completed, in
+     * which case its response is returned. {@code request} identifies the parameters, so
+     * a key reused for a different request is rejected.
+     */
+    public ResponseEntity<?> execute(String key, String operation, Supplier<ResponseEntity<?>> action,
+                                     Object... request) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse(false, "Error: " + HEADER + " must be at most " +
+                            MAX_KEY_LENGTH + " characters"));
+        }
+        
+        String scopedKey = currentUsername() + ":" + key;
+        Entry entry = new Entry(hash(operation, request), LocalDateTime.now().plusMinutes(ttlMinutes));
+        Entry existing;
+        synchronized (cache) {
+            existing = cache.get(scopedKey);
+            if (existing == null || existing.isExpired()) {
+                cache.put(scopedKey, entry);
+                existing = null;
+            }
+        }
+        if (existing != null) {
+            return awaitDuplicate(existing, entry.requestHash);
+        }
+        
+        try {
+            ResponseEntity<?> stored = claim(scopedKey, entry);
+            if (stored != null) {
+                return stored;
+            }
+            ResponseEntity<?> response = action.get();
+            complete(scopedKey, entry, response);
+            return response;
+        } catch (RuntimeException e) {
+            forget(scopedKey, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${banking.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        synchronized (cache) {
+            cache.values().removeIf(Entry::isExpired);
+        }
+        try {
+            Integer purged = transactionTemplate.execute(status ->
+                    idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            logger.debug("Purged {} expired idempotency records", purged);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to purge expired idempotency records", e);
+        }
+    }
+    
+    // Returns the stored response or a rejection, or null once this request owns the key
+    private ResponseEntity<?> claim(String scopedKey, Entry entry) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> found = idempotencyRecordRepository.findById(scopedKey);
+        if (found.isPresent() && found.get().getExpiresAt().isAfter(now)) {
+            IdempotencyRecord record = found.get();
+            if (!record.getRequestHash().equals(entry.requestHash)) {
+                forget(scopedKey, entry);
+                entry.response.completeExceptionally(new IllegalStateException("Key reused"));
+                return mismatch();
+            }
+            if (record.getStatus() == IdempotencyRecord.RecordStatus.COMPLETED) {
+                StoredResponse stored = new StoredResponse(record.getStatusCode(), record.getResponseBody());
+                entry.response.complete(stored);
+                return stored.replay();
+            }
+            forget(scopedKey, entry);
+            entry.response.completeExceptionally(new IllegalStateException("In progress elsewhere"));
+            return inProgress();
+        }
+        
+        // Neither statement can overwrite a row another instance has just claimed: the
+        // insert fails on the primary key, and the update only matches an expired row
+        boolean claimed;
+        try {
+            claimed = Boolean.TRUE.equals(transactionTemplate.execute(status -> found.isPresent()
+                    ? idempotencyRecordRepository.takeOverExpired(scopedKey, entry.requestHash, now,
+                            entry.expiresAt) == 1
+                    : idempotencyRecordRepository.insertInProgress(scopedKey, entry.requestHash, now,
+                            entry.expiresAt) == 1));
+        } catch (DataIntegrityViolationException e) {
+            claimed = false;
+        }
+        if (!claimed) {
+            // Another instance claimed the key between the lookup and the write
+            forget(scopedKey, entry);
+            entry.response.completeExceptionally(new IllegalStateException("Claimed elsewhere"));
+            return inProgress();
+        }
+        return null;
+    }
+    
+    private void complete(String scopedKey, Entry entry, ResponseEntity<?> response) {
+        int statusCode = response.getStatusCode().value();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            forget(scopedKey, entry);
+            entry.response.complete(new StoredResponse(statusCode, response.getBody()));
+            release(scopedKey);
+            return;
+        }
+        
+        entry.response.complete(new StoredResponse(statusCode, response.getBody()));
+        try {
+            String body = objectMapper.writeValueAsString(response.getBody());
+            idempotencyRecordRepository.save(new IdempotencyRecord(scopedKey, entry.requestHash,
+                    IdempotencyRecord.RecordStatus.COMPLETED, statusCode, body, LocalDateTime.now(), entry.expiresAt));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The operation already happened; later repeats on this instance still replay
+            // from the cache, while other instances answer 409 until the record expires
+            logger.error("Failed to store response for idempotency key {}", scopedKey, e);
+        }
+    }
+    
+    private ResponseEntity<?> awaitDuplicate(Entry existing, String requestHash) {
+        if (!existing.requestHash.equals(requestHash)) {
+            return mismatch();
+        }
+        try {
+            return existing.response.get(waitTimeoutMs, TimeUnit.MILLISECONDS).replay();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException | TimeoutException e) {
+            return inProgress();
+        }
+    }
+    
+    private void forget(String scopedKey, Entry entry) {
+        synchronized (cache) {
+            cache.remove(scopedKey, entry);
+        }
+    }
+    
+    private void release(String scopedKey) {
+        try {
+            idempotencyRecordRepository.deleteById(scopedKey);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to release idempotency key {}", scopedKey, e);
+        }
+    }
+    
+    private static ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse(false, "Error: A request with this " + HEADER + " is still in progress"));
+    }
+    
+    private static ResponseEntity<?> mismatch() {
+        return ResponseEntity.unprocessableEntity()
+                .body(new ApiResponse(false, "Error: " + HEADER + " was already used for a different request"));
+    }
+    
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+    
+    private static String hash(String operation, Object... request) {
+        StringJoiner joiner = new StringJoiner("|", operation + "|", "");
+        for (Object part : request) {
+            // 10, 10.0 and 1E+1 are the same amount
+            joiner.add(part instanceof BigDecimal amount
+                    ? amount.stripTrailingZeros().toPlainString() : String.valueOf(part));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(joiner.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static class Entry {
+        private final String requestHash;
+        private final LocalDateTime expiresAt;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        
+        private Entry(String requestHash, LocalDateTime expiresAt) {
+            this.requestHash = requestHash;
+            this.expiresAt = expiresAt;
+        }
+        
+        private boolean isExpired() {
+            return expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+    
+    // Body is the original object when cached locally, or its JSON when read back from the table
+    private static class StoredResponse {
+        private final int statusCode;
+        private final Object body;
+        
+        private StoredResponse(int statusCode, Object body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+        
+        private ResponseEntity<?> replay() {
+            return ResponseEntity.status(statusCode)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Idempotent-Replayed", "true")
+                    .body(body);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.banking.app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets in front of sign-in and sign-up, so that a burst from one address, or
+ * password guessing against one account, is turned away before it costs a password hash.
+ * Each client address may make {@code banking.login-limit.per-address-burst} attempts at
+ * once, refilled at {@code per-address-per-minute}. Each account may have as many failed
+ * password checks from one address as the {@code per-account-*} settings allow. Those are
+ * counted per address, so failures from an attacker's address do not lock the account's
+ * owner out elsewhere. Guessing spread over many addresses is caught by a second bucket
+ * per account, across all addresses, sized by the larger {@code account-wide-*} settings.
+ * Once it is empty the account is locked out everywhere until it refills. Limits are kept
+ * per instance.
+ */
+@Service
+public class LoginRateLimiter {
+
+    @Value("${banking.login-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.login-limit.per-address-burst:20}")
+    private int perAddressBurst;
+
+    @Value("${banking.login-limit.per-address-per-minute:60}")
+    private int perAddressPerMinute;
+
+    @Value("${banking.login-limit.per-account-burst:5}")
+    private int perAccountBurst;
+
+    @Value("${banking.login-limit.per-account-per-minute:10}")
+    private int perAccountPerMinute;
+
+    @Value("${banking.login-limit.account-wide-burst:50}")
+    private int accountWideBurst;
+
+    @Value("${banking.login-limit.account-wide-per-minute:20}")
+    private int accountWidePerMinute;
+
+    private final Map<String, Bucket> addresses = new ConcurrentHashMap<>();
+
+    private final Map<String, Bucket> accounts = new ConcurrentHashMap<>();
+
+    private final Map<String, Bucket> accountsWide = new ConcurrentHashMap<>();
+
+    /**
+     * Takes one attempt from the address, once it and the account (the email, both as seen
+     * from this address and across all addresses) have attempts left. Either may be null.
+     * An attempt turned away by the account costs the address nothing.
+     *
+     * @throws LimitExceededException when any of the buckets is empty
+     */
+    public void acquire(String clientAddress, String email) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        Bucket address = clientAddress != null ? addresses.computeIfAbsent(clientAddress,
+                key -> new Bucket(perAddressBurst, perAddressPerMinute)) : null;
+        // Accounts only get a bucket once a password check has failed
+        Bucket account = email != null ? accounts.get(accountKey(clientAddress, email)) : null;
+        Bucket accountWide = email != null ? accountsWide.get(normalize(email)) : null;
+        reject(Math.max(Math.max(waitNanos(address, now), waitNanos(account, now)), waitNanos(accountWide, now)));
+        if (address != null) {
+            reject(address.tryTake(now));
+        }
+    }
+
+    /**
+     * Charges the account, as seen from this address and across all addresses, for a failed
+     * password check.
+     */
+    public void recordFailure(String clientAddress, String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        accounts.computeIfAbsent(accountKey(clientAddress, email),
+                key -> new Bucket(perAccountBurst, perAccountPerMinute)).tryTake(now);
+        accountsWide.computeIfAbsent(normalize(email),
+                key -> new Bucket(accountWideBurst, accountWidePerMinute)).tryTake(now);
+    }
+
+    // A full bucket is the same as no bucket, so idle ones are dropped
+    @Scheduled(fixedDelayString = "${banking.login-limit.cleanup-interval-ms:60000}")
+    public void dropIdleBuckets() {
+        long now = System.nanoTime();
+        addresses.values().removeIf(bucket -> bucket.isFull(now));
+        accounts.values().removeIf(bucket -> bucket.isFull(now));
+        accountsWide.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static String accountKey(String clientAddress, String email) {
+        return clientAddress + "|" + normalize(email);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long waitNanos(Bucket bucket, long now) {
+        return bucket != null ? bucket.waitNanos(now) : 0;
+    }
+
+    private static void reject(long waitNanos) {
+        if (waitNanos > 0) {
+            throw new LimitExceededException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+    }
+
+    private static class Bucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(int capacity, int perMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        // 0 when a token is available, otherwise how long until one is
+        private synchronized long waitNanos(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        // 0 when a token was taken, otherwise how long until one is available
+        private synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+
+    /**
+     * Thrown when the address or the account has no attempts left.
+     */
+    public static class LimitExceededException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public LimitExceededException(long retryAfterSeconds) {
+            super("Too many attempts, please retry later");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.banking.app.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The application's {@link PasswordEncoder}. BCrypt is deliberately slow, so hashing and
+ * checking passwords run on a pool of {@code banking.password-hashing.threads} threads
+ * instead of the request thread, and a burst of logins can occupy no more cores than that.
+ * At most {@code banking.password-hashing.queue-capacity} hashes wait for a thread; beyond
+ * that they are rejected with {@link BusyException} rather than queued.
+ * <p>
+ * Passwords are hashed at cost {@code banking.password-hashing.bcrypt-strength}. A stored
+ * hash of any other cost is reported by {@link #upgradeEncoding}, and Spring Security
+ * rehashes it on the next successful login.
+ * <p>
+ * Hashing time is recorded as {@code banking.password.hash}, tagged with the operation,
+ * and the time spent waiting for a thread as {@code banking.password.hash.wait}.
+ */
+@Service
+public class PasswordHashingService implements PasswordEncoder {
+
+    // $2a$10$..., $2b$12$... and the other BCrypt variants
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    // Unset: half the cores, leaving the rest to everything else
+    @Value("${banking.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${banking.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${banking.password-hashing.bcrypt-strength:10}")
+    private int strength;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BCryptPasswordEncoder bcrypt;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+
+    private Timer matchesTimer;
+
+    private Timer waitTimer;
+
+    @PostConstruct
+    void init() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadFactory() {
+                    private int count;
+
+                    @Override
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "password-hashing-" + count++);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = hashTimer("encode");
+        matchesTimer = hashTimer("matches");
+        waitTimer = Timer.builder("banking.password.hash.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("banking.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("banking.password.hash")
+                .description("Time to hash or check a password with BCrypt")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * True for a BCrypt hash of a cost other than the configured one, higher or lower.
+     * False while the queue is full: the rehash can wait for a quieter login.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || executor.getQueue().remainingCapacity() == 0) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            throw new BusyException();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Thrown when every hashing thread is busy and the queue is full.
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Too many sign-in attempts in progress, please retry later");
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.UserIdentifiers;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Checks that a new user's email, PAN and Aadhar number are not taken. Bloom filters over
+ * the three columns, loaded once the application is ready and added to on every signup,
+ * answer most checks without the database: a value they have never seen is certainly
+ * new. Only when one of them may have been seen does a single query look up all three.
+ * <p>
+ * The filters only know this instance's signups, so a value taken on another instance
+ * since startup gets past them. The unique constraints on {@code users} catch it, and
+ * {@link #toSignupError} turns the violation into the message the check would have given.
+ * Databases created before the constraints were named keep the unique index Hibernate
+ * generated for the email, so a duplicate key under any other name is looked up again.
+ * Filters are sized for {@code banking.signup-screen.expected-users} at
+ * {@code false-positive-rate}; beyond that more signups fall through to the query.
+ * Reported as {@code signup.screen{result=skipped|queried}}.
+ */
+@Service
+public class SignupScreeningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignupScreeningService.class);
+
+    public static final String EMAIL_TAKEN = "Error: Email is already taken!";
+    public static final String PAN_NUMBER_TAKEN = "Error: PAN number is already registered!";
+    public static final String AADHAR_NUMBER_TAKEN = "Error: Aadhar number is already registered!";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${banking.signup-screen.enabled:true}")
+    private boolean enabled;
+
+    @Value("${banking.signup-screen.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${banking.signup-screen.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private BloomFilter emails;
+    private BloomFilter panNumbers;
+    private BloomFilter aadharNumbers;
+
+    // Until loaded the filters know nothing, so every check queries
+    private volatile boolean loaded;
+
+    private Counter skipped;
+    private Counter queried;
+
+    @PostConstruct
+    void init() {
+        emails = new BloomFilter(expectedUsers, falsePositiveRate);
+        panNumbers = new BloomFilter(expectedUsers, falsePositiveRate);
+        aadharNumbers = new BloomFilter(expectedUsers, falsePositiveRate);
+        skipped = Counter.builder("signup.screen").tag("result", "skipped").register(meterRegistry);
+        queried = Counter.builder("signup.screen").tag("result", "queried").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            AtomicLong count = new AtomicLong();
+            transaction.executeWithoutResult(status -> {
+                try (Stream<UserIdentifiers> users = userRepository.streamIdentifiers()) {
+                    users.forEach(user -> {
+                        add(user);
+                        count.incrementAndGet();
+                    });
+                }
+            });
+            loaded = true;
+            logger.info("Signup screen loaded {} users", count.get());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load the signup screen, every signup will be checked in the database", e);
+        }
+    }
+
+    /**
+     * @throws RuntimeException with the message for the first identifier that is taken
+     */
+    public void checkAvailable(String email, String panNumber, String aadharNumber) {
+        if (loaded && !emails.mightContain(email)
+                && (panNumber == null || !panNumbers.mightContain(panNumber))
+                && (aadharNumber == null || !aadharNumbers.mightContain(aadharNumber))) {
+            skipped.increment();
+            return;
+        }
+        queried.increment();
+
+        RuntimeException error = takenError(email, panNumber, aadharNumber);
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Adds a user who has just been saved.
+     */
+    public void record(User user) {
+        add(new UserIdentifiers(user.getEmail(), user.getPanNumber(), user.getAadharNumber()));
+    }
+
+    /**
+     * The error a signup that broke one of the unique constraints should report: the same
+     * as {@link #checkAvailable} would have, or the violation itself for any other. A
+     * duplicate key under a constraint name not known here is looked up again.
+     */
+    public RuntimeException toSignupError(DataIntegrityViolationException e,
+                                          String email, String panNumber, String aadharNumber) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        if (message.contains(User.UK_EMAIL)) {
+            return new RuntimeException(EMAIL_TAKEN);
+        }
+        if (message.contains(User.UK_PAN_NUMBER)) {
+            return new RuntimeException(PAN_NUMBER_TAKEN);
+        }
+        if (message.contains(User.UK_AADHAR_NUMBER)) {
+            return new RuntimeException(AADHAR_NUMBER_TAKEN);
+        }
+        if (isDuplicateKey(e)) {
+            RuntimeException error = takenError(email, panNumber, aadharNumber);
+            if (error != null) {
+                return error;
+            }
+        }
+        return e;
+    }
+
+    // The message for the first identifier that is taken, or null when none is
+    private RuntimeException takenError(String email, String panNumber, String aadharNumber) {
+        List<UserIdentifiers> taken = userRepository.findIdentifiersMatching(email, panNumber, aadharNumber);
+        if (taken.stream().anyMatch(user -> same(user.getEmail(), email))) {
+            return new RuntimeException(EMAIL_TAKEN);
+        }
+        if (taken.stream().anyMatch(user -> same(user.getPanNumber(), panNumber))) {
+            return new RuntimeException(PAN_NUMBER_TAKEN);
+        }
+        if (taken.stream().anyMatch(user -> same(user.getAadharNumber(), aadharNumber))) {
+            return new RuntimeException(AADHAR_NUMBER_TAKEN);
+        }
+        return null;
+    }
+
+    // MySQL reports a duplicate key as error 1062 (SQLState 23000), H2 and PostgreSQL as 23505
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql
+                    && (sql.getErrorCode() == 1062 || "23505".equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(UserIdentifiers user) {
+        emails.put(user.getEmail());
+        panNumbers.put(user.getPanNumber());
+        aadharNumbers.put(user.getAadharNumber());
+    }
+
+    private static boolean same(String stored, String requested) {
+        return stored != null && requested != null && normalize(stored).equals(normalize(requested));
+    }
+
+    // MySQL's default collations ignore case and trailing spaces, so values it treats as
+    // equal must hash alike
+    private static String normalize(String value) {
+        return value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bits;
+        private final int hashes;
+
+        private BloomFilter(long expected, double falsePositiveRate) {
+            long wanted = (long) Math.ceil(-Math.max(1, expected) * Math.log(falsePositiveRate)
+                    / (Math.log(2) * Math.log(2)));
+            words = new AtomicLongArray((int) Math.max(1, (wanted + 63) / 64));
+            bits = words.length() * 64L;
+            hashes = Math.max(1, (int) Math.round((double) bits / Math.max(1, expected) * Math.log(2)));
+        }
+
+        private void put(String value) {
+            if (value == null) {
+                return;
+            }
+            long hash = fnv1a(normalize(value));
+            long h1 = mix(hash);
+            long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long hash = fnv1a(normalize(value));
+            long h1 = mix(hash);
+            long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long fnv1a(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        // SplitMix64 finalizer
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.AccountMetadata;
+import com.banking.app.dto.StatementLine;
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.repository.TransactionHistoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes account statements as CSV or NDJSON straight to an output stream. Rows come
+ * from the streamed history query as read models, so no entity is loaded and memory use
+ * does not grow with the length of the history.
+ */
+@Service
+public class StatementExportService {
+    
+    public enum Format {
+        CSV, NDJSON;
+        
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Unsupported export format: " + value);
+        }
+    }
+    
+    private static final String CSV_HEADER = "transactionId,referenceNumber,transactionType,status,amount," +
+            "description,fromAccountNumber,toAccountNumber,createdAt";
+    
+    @Autowired
+    private AccountMetadataCache accountMetadataCache;
+    
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public AccountMetadata requireAccount(String accountNumber) {
+        return accountMetadataCache.require(accountNumber);
+    }
+    
+    /**
+     * Writes the account's transactions, oldest first, optionally limited to a date range
+     * that may be open at either end. Does not close {@code out}.
+     */
+    @Transactional(readOnly = true)
+    public void export(AccountMetadata account, LocalDateTime startDate, LocalDateTime endDate,
+                       Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        
+        try (Stream<TransactionResponse> transactions = transactionHistoryRepository.stream(account.getId(),
+                startDate, endDate)) {
+            Iterator<TransactionResponse> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                StatementLine line = StatementLine.from(iterator.next());
+                if (format == Format.CSV) {
+                    writeCsv(writer, line);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(line));
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
+    }
+    
+    private static void writeCsv(Writer writer, StatementLine line) throws IOException {
+        writer.write(csv(line.getTransactionId()));
+        writer.write(',');
+        writer.write(csv(line.getReferenceNumber()));
+        writer.write(',');
+        writer.write(csv(line.getTransactionType()));
+        writer.write(',');
+        writer.write(csv(line.getStatus()));
+        writer.write(',');
+        writer.write(line.getAmount() != null ? line.getAmount().toPlainString() : "");
+        writer.write(',');
+        writer.write(csv(line.getDescription()));
+        writer.write(',');
+        writer.write(csv(line.getFromAccountNumber()));
+        writer.write(',');
+        writer.write(csv(line.getToAccountNumber()));
+        writer.write(',');
+        writer.write(csv(line.getCreatedAt()));
+        writer.write('\n');
+    }
+    
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Keep spreadsheets from evaluating free text such as descriptions as formulas
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
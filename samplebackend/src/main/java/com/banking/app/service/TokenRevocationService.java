@@ -0,0 +1,156 @@
+package com.banking.app.service;
+
+import com.banking.app.config.JwtUtils;
+import com.banking.app.entity.TokenRevocation;
+import com.banking.app.repository.TokenRevocationRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens are accepted from their claims alone, so a logout, a deactivated user or a
+ * changed role has to be remembered here until the tokens concerned expire. Revocations
+ * are written to the {@code token_revocations} table and held in memory; every
+ * {@code banking.revocation.refresh-interval-ms} each instance reads the rows others
+ * have added since its last read. A revocation applies at once on the instance that
+ * made it and within one interval on the others.
+ * <p>
+ * Revoking a user only reaches tokens that carry the {@code uid} claim. Older tokens are
+ * never revoked that way. They carry no role either, so {@code AuthTokenFilter} loads
+ * their user on every request: a deactivated user's legacy tokens are turned away only
+ * because of that load, and a changed role applies to them at once.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Rows are stamped before they commit, so each read reaches this far back
+    private static final Duration LOOKBACK = Duration.ofMinutes(1);
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Token id -> when the token expires
+    private final Map<String, LocalDateTime> revokedTokens = new ConcurrentHashMap<>();
+
+    // User id -> tokens issued up to this instant are revoked
+    private final Map<Long, LocalDateTime> revokedUsers = new ConcurrentHashMap<>();
+
+    // Null until the first read, which loads every revocation still in force
+    private volatile LocalDateTime loadedUntil;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Whether the token was revoked itself, or its user was revoked after it was issued.
+     * Always false for a token without a {@code uid} claim that was not revoked alone.
+     */
+    public boolean isRevoked(Claims claims) {
+        if (claims.getId() != null && revokedTokens.containsKey(claims.getId())) {
+            return true;
+        }
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        if (userId == null || claims.getIssuedAt() == null) {
+            return false;
+        }
+        LocalDateTime revokedAt = revokedUsers.get(userId);
+        return revokedAt != null && !issuedAt(claims).isAfter(revokedAt);
+    }
+
+    /**
+     * Revokes one token, as on logout. Tokens without an id cannot be revoked alone.
+     */
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null) {
+            throw new RuntimeException("Token cannot be revoked");
+        }
+        LocalDateTime expiresAt = toLocalDateTime(claims.getExpiration());
+        tokenRevocationRepository.save(new TokenRevocation(null, claims.getId(), null,
+                LocalDateTime.now(), expiresAt));
+        revokedTokens.put(claims.getId(), expiresAt);
+    }
+
+    /**
+     * Revokes every token issued to the user so far.
+     */
+    public void revokeUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationRepository.save(new TokenRevocation(null, null, userId, now,
+                now.plus(Duration.ofMillis(jwtExpirationMs))));
+        revokedUsers.merge(userId, now, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${banking.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<TokenRevocation> rows = loadedUntil == null
+                    ? tokenRevocationRepository.findByExpiresAtAfter(now)
+                    : tokenRevocationRepository.findByRevokedAtAfter(loadedUntil.minus(LOOKBACK));
+            for (TokenRevocation row : rows) {
+                if (row.getTokenId() != null) {
+                    revokedTokens.put(row.getTokenId(), row.getExpiresAt());
+                } else if (row.getUserId() != null) {
+                    revokedUsers.merge(row.getUserId(), row.getRevokedAt(), (a, b) -> a.isAfter(b) ? a : b);
+                }
+            }
+            loadedUntil = now;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load token revocations", e);
+        }
+
+        // Tokens they cover have expired by now
+        revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        LocalDateTime oldestInForce = now.minus(Duration.ofMillis(jwtExpirationMs));
+        revokedUsers.values().removeIf(revokedAt -> revokedAt.isBefore(oldestInForce));
+    }
+
+    @Scheduled(fixedDelayString = "${banking.revocation.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        try {
+            Integer purged = transactionTemplate.execute(status ->
+                    tokenRevocationRepository.deleteExpired(LocalDateTime.now()));
+            logger.debug("Purged {} expired token revocations", purged);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to purge expired token revocations", e);
+        }
+    }
+
+    // Tokens from before the millisecond claim only have whole seconds, and count as revoked
+    // for the rest of the second in which their user was revoked
+    private static LocalDateTime issuedAt(Claims claims) {
+        Long millis = claims.get(JwtUtils.CLAIM_ISSUED_AT_MILLIS, Long.class);
+        return toLocalDateTime(millis != null ? new Date(millis) : claims.getIssuedAt());
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
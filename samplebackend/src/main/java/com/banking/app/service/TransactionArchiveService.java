@@ -0,0 +1,143 @@
+package com.banking.app.service;
+
+import com.banking.app.archive.TransactionArchive;
+import com.banking.app.entity.Transaction;
+import com.banking.app.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves transactions older than {@code banking.archive.min-age-days} from the
+ * {@code transactions} table to the {@link TransactionArchive}, one segment per batch:
+ * the segment is written and published first and the rows are deleted after, so a crash
+ * in between leaves rows in both places, which readers return once. Pending rows and rows
+ * the balance snapshots have not taken in yet stay in the table.
+ * <p>
+ * Segments are written to this instance's local disk, but the rows are deleted from the
+ * table every instance reads, so archiving refuses to run when {@code banking.instances}
+ * says the database is shared.
+ */
+@Service
+public class TransactionArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${banking.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${banking.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${banking.archive.segment-rows:100000}")
+    private int segmentRows;
+
+    @Value("${banking.archive.delete-batch-size:1000}")
+    private int deleteBatchSize;
+
+    @Value("${banking.instances:1}")
+    private int instances;
+
+    private TransactionTemplate readTemplate;
+
+    private TransactionTemplate writeTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        writeTemplate = new TransactionTemplate(transactionManager);
+        if (enabled && instances > 1) {
+            logger.error("Transaction archiving is enabled but will not run: banking.instances is {}, "
+                    + "and archived rows would disappear from the other instances' history", instances);
+        }
+    }
+
+    @Scheduled(cron = "${banking.archive.cron:0 0 3 * * *}")
+    public void scheduledArchive() {
+        if (!enabled || instances > 1) {
+            return;
+        }
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to archive transactions", e);
+        }
+    }
+
+    /**
+     * Archives every eligible transaction. Returns the number of rows moved, or -1 when
+     * a run is already in progress.
+     *
+     * @throws RuntimeException when more than one instance shares the database
+     */
+    public long archive() {
+        if (instances > 1) {
+            throw new RuntimeException("Archiving needs a single instance: the segments are local to this one, "
+                    + "but banking.instances is " + instances);
+        }
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            // Legacy rows can only leave once all accounts' snapshots include them
+            balanceSnapshotService.backfillAll();
+            boolean includeLegacy = balanceSnapshotService.isBackfilled();
+            LocalDateTime before = LocalDateTime.now().minusDays(minAgeDays);
+
+            long archived = 0;
+            while (true) {
+                List<Transaction> batch = readTemplate.execute(status ->
+                        transactionRepository.findArchivable(before, includeLegacy, PageRequest.of(0, segmentRows)));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    transactionArchive.append(batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to write archive segment", e);
+                }
+                List<Long> ids = batch.stream().map(Transaction::getId).toList();
+                for (int start = 0; start < ids.size(); start += deleteBatchSize) {
+                    List<Long> chunk = ids.subList(start, Math.min(start + deleteBatchSize, ids.size()));
+                    writeTemplate.executeWithoutResult(status -> transactionRepository.deleteAllByIdInBatch(chunk));
+                }
+                archived += batch.size();
+                logger.info("Archived {} transactions up to id {}", batch.size(), ids.get(ids.size() - 1));
+                if (batch.size() < segmentRows) {
+                    break;
+                }
+            }
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -1,40 +1,267 @@
 package com.banking.app.service;
 
+import com.banking.app.commit.GroupCommitWriter;
+import com.banking.app.concurrency.BalanceConcurrencyStrategy;
+import com.banking.app.dto.AccountMetadata;
+import com.banking.app.dto.BatchTransactionItem;
+import com.banking.app.dto.BatchTransactionResult;
+import com.banking.app.dto.TransactionCursorPage;
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.dto.TransactionStatusResponse;
 import com.banking.app.entity.Account;
 import com.banking.app.entity.Transaction;
+import com.banking.app.ledger.LedgerEngine;
 import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.TransactionHistoryRepository;
+import com.banking.app.repository.TransactionJdbcRepository;
 import com.banking.app.repository.TransactionRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Service
+@Timed("banking.service")
 @Transactional
 public class TransactionService {
     
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+    
     @Autowired
     private AccountRepository accountRepository;
     
+    @Autowired
+    private AccountMetadataCache accountMetadataCache;
+    
+    @Autowired
+    private TransactionJdbcRepository transactionJdbcRepository;
+    
+    @Autowired
+    private BalanceConcurrencyStrategy concurrencyStrategy;
+    
+    @Autowired
+    private HotAccountService hotAccountService;
+    
+    @Autowired
+    private IdGenerationService idGenerationService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.batch.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+    
+    @Value("${banking.balance.atomic-updates:true}")
+    private boolean atomicUpdates;
+    
+    @Value("${banking.group-commit.enabled:false}")
+    private boolean groupCommit;
+    
+    @Value("${banking.group-commit.window-ms:2}")
+    private long groupCommitWindowMs;
+    
+    @Value("${banking.group-commit.max-batch-size:100}")
+    private int groupCommitMaxBatchSize;
+    
+    @Value("${banking.group-commit.timeout-ms:10000}")
+    private long groupCommitTimeoutMs;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    // Present only when banking.group-commit.enabled=true and the ledger is off
+    private GroupCommitWriter<BatchTransactionItem, Transaction> groupCommitWriter;
+    
+    // Present only when banking.ledger.mode=memory
+    @Autowired(required = false)
+    private LedgerEngine ledgerEngine;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (groupCommit && ledgerEngine == null) {
+            groupCommitWriter = new GroupCommitWriter<>("transactions",
+                    items -> {
+                        consolidateDebited(items);
+                        return transactionTemplate.execute(status -> applyItems(items));
+                    },
+                    groupCommitWindowMs, groupCommitMaxBatchSize, groupCommitTimeoutMs, meterRegistry);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.shutdown();
+        }
+    }
+    
+    // The fast path and the strategies open their own transaction, so these run outside the class-level one
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Transaction transferMoney(String fromAccountNumber, String toAccountNumber, 
                                    BigDecimal amount, String description) {
-        Account fromAccount = accountRepository.findByAccountNumber(fromAccountNumber)
-                .orElseThrow(() -> new RuntimeException("Source account not found"));
+        if (ledgerEngine != null) {
+            return ledgerEngine.transfer(fromAccountNumber, toAccountNumber, amount, description,
+                    idGenerationService.nextTransactionId());
+        }
+        if (groupCommitWriter != null) {
+            return groupCommitWriter.submit(new BatchTransactionItem(BatchTransactionItem.Operation.TRANSFER,
+                    fromAccountNumber, toAccountNumber, null, amount, description));
+        }
+        // Debits must see credits still sitting in a hot account's balance slots
+        hotAccountService.consolidate(fromAccountNumber);
+        if (atomicUpdates) {
+            return atomicTransfer(fromAccountNumber, toAccountNumber, amount, description);
+        }
         
-        Account toAccount = accountRepository.findByAccountNumber(toAccountNumber)
-                .orElseThrow(() -> new RuntimeException("Destination account not found"));
+        return concurrencyStrategy.execute(lockedAccounts(fromAccountNumber, toAccountNumber), accounts -> {
+            Account fromAccount = requireAccount(accounts, fromAccountNumber, "Source account not found");
+            Account toAccount = debitAndCredit(fromAccount, accounts, toAccountNumber, amount);
+            
+            // Create transaction record
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(idGenerationService.nextTransactionId());
+            transaction.setTransactionType(Transaction.TransactionType.TRANSFER);
+            transaction.setAmount(amount);
+            transaction.setDescription(description);
+            transaction.setFromAccount(fromAccount);
+            transaction.setToAccount(toAccount);
+            transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+            transaction.setReferenceNumber(idGenerationService.nextReferenceNumber());
+            
+            return transactionRepository.save(transaction);
+        });
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Transaction deposit(String accountNumber, BigDecimal amount, String description) {
+        if (ledgerEngine != null) {
+            return ledgerEngine.deposit(accountNumber, amount, description, idGenerationService.nextTransactionId());
+        }
+        if (groupCommitWriter != null) {
+            return groupCommitWriter.submit(new BatchTransactionItem(BatchTransactionItem.Operation.DEPOSIT,
+                    null, null, accountNumber, amount, description));
+        }
+        // A hot account is credited in a balance slot, without locking its row
+        if (atomicUpdates || hotAccountService.hotAccountId(accountNumber) != null) {
+            return transactionTemplate.execute(status -> {
+                creditOrFail(accountNumber, amount, "Account not found");
+                return insertTransaction(Transaction.TransactionType.DEPOSIT, amount, description,
+                        null, accountNumber);
+            });
+        }
         
-        // Check if source account has sufficient balance
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
+        return concurrencyStrategy.execute(List.of(accountNumber), accounts -> {
+            Account account = credit(accounts, accountNumber, amount, "Account not found");
+            
+            // Create transaction record
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(idGenerationService.nextTransactionId());
+            transaction.setTransactionType(Transaction.TransactionType.DEPOSIT);
+            transaction.setAmount(amount);
+            transaction.setDescription(description);
+            transaction.setToAccount(account);
+            transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+            transaction.setReferenceNumber(idGenerationService.nextReferenceNumber());
+            
+            return transactionRepository.save(transaction);
+        });
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Transaction withdraw(String accountNumber, BigDecimal amount, String description) {
+        if (ledgerEngine != null) {
+            return ledgerEngine.withdraw(accountNumber, amount, description, idGenerationService.nextTransactionId());
+        }
+        if (groupCommitWriter != null) {
+            return groupCommitWriter.submit(new BatchTransactionItem(BatchTransactionItem.Operation.WITHDRAWAL,
+                    null, null, accountNumber, amount, description));
+        }
+        hotAccountService.consolidate(accountNumber);
+        if (atomicUpdates) {
+            return transactionTemplate.execute(status -> {
+                debitOrFail(accountNumber, amount, "Account not found");
+                return insertTransaction(Transaction.TransactionType.WITHDRAWAL, amount, description,
+                        accountNumber, null);
+            });
+        }
+        
+        return concurrencyStrategy.execute(List.of(accountNumber), accounts -> {
+            Account account = requireAccount(accounts, accountNumber, "Account not found");
+            
+            // Check that the debit keeps the account above its floor
+            if (!account.canDebit(amount)) {
+                throw new RuntimeException("Insufficient balance");
+            }
+            
+            // Debit from account
+            account.setBalance(account.getBalance().subtract(amount));
+            accountRepository.save(account);
+            
+            // Create transaction record
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(idGenerationService.nextTransactionId());
+            transaction.setTransactionType(Transaction.TransactionType.WITHDRAWAL);
+            transaction.setAmount(amount);
+            transaction.setDescription(description);
+            transaction.setFromAccount(account);
+            transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+            transaction.setReferenceNumber(idGenerationService.nextReferenceNumber());
+            
+            return transactionRepository.save(transaction);
+        });
+    }
+    
+    /**
+     * Transfer through guarded UPDATE statements only: no account is loaded, and the
+     * balance rules are enforced by the database. Rows are updated in account number
+     * order so opposing transfers cannot deadlock.
+     */
+    private Transaction atomicTransfer(String fromAccountNumber, String toAccountNumber,
+                                       BigDecimal amount, String description) {
+        return transactionTemplate.execute(status -> {
+            atomicDebitAndCredit(fromAccountNumber, toAccountNumber, amount);
+            return insertTransaction(Transaction.TransactionType.TRANSFER, amount, description,
+                    fromAccountNumber, toAccountNumber);
+        });
+    }
+    
+    private void atomicDebitAndCredit(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        if (fromAccountNumber.compareTo(toAccountNumber) <= 0) {
+            debitOrFail(fromAccountNumber, amount, "Source account not found");
+            creditOrFail(toAccountNumber, amount, "Destination account not found");
+        } else {
+            creditOrFail(toAccountNumber, amount, "Destination account not found");
+            debitOrFail(fromAccountNumber, amount, "Source account not found");
+        }
+    }
+    
+    private Account debitAndCredit(Account fromAccount, Map<String, Account> accounts, String toAccountNumber,
+                                   BigDecimal amount) {
+        // Check that the debit keeps the source account above its floor
+        if (!fromAccount.canDebit(amount)) {
             throw new RuntimeException("Insufficient balance");
         }
         
@@ -43,95 +270,484 @@ public class TransactionService {
         accountRepository.save(fromAccount);
         
         // Credit to destination account
-        toAccount.setBalance(toAccount.getBalance().add(amount));
-        accountRepository.save(toAccount);
-        
-        // Create transaction record
+        return credit(accounts, toAccountNumber, amount, "Destination account not found");
+    }
+    
+    /**
+     * Credits an account the strategy loaded, or a hot account it left unlocked (see
+     * {@link #lockedAccounts}). Hot accounts are credited in a balance slot. Returns the
+     * account to record on the transaction.
+     */
+    private Account credit(Map<String, Account> accounts, String accountNumber, BigDecimal amount,
+                           String notFoundMessage) {
+        Account account = accounts.get(accountNumber);
+        if (account != null) {
+            if (!hotAccountService.creditSlot(accountNumber, amount)) {
+                account.setBalance(account.getBalance().add(amount));
+                accountRepository.save(account);
+            }
+            return account;
+        }
+        Long hotAccountId = hotAccountService.hotAccountId(accountNumber);
+        if (hotAccountId == null) {
+            throw new RuntimeException(notFoundMessage);
+        }
+        // Falls back to the row if the account stopped being hot since it was left unlocked
+        creditOrFail(accountNumber, amount, notFoundMessage);
+        return accountReference(hotAccountId, accountNumber);
+    }
+    
+    // A hot account that is only credited is left out, so the strategy does not lock its row
+    private List<String> lockedAccounts(String fromAccountNumber, String toAccountNumber) {
+        if (!fromAccountNumber.equals(toAccountNumber) && hotAccountService.hotAccountId(toAccountNumber) != null) {
+            return List.of(fromAccountNumber);
+        }
+        return List.of(fromAccountNumber, toAccountNumber);
+    }
+    
+    private void debitOrFail(String accountNumber, BigDecimal amount, String notFoundMessage) {
+        if (accountRepository.debitIfSufficient(accountNumber, amount) == 0) {
+            // Only the failure path pays for telling the two causes apart
+            throw new RuntimeException(accountRepository.existsByAccountNumber(accountNumber)
+                    ? "Insufficient balance" : notFoundMessage);
+        }
+    }
+    
+    private void creditOrFail(String accountNumber, BigDecimal amount, String notFoundMessage) {
+        if (hotAccountService.creditSlot(accountNumber, amount)) {
+            return;
+        }
+        if (accountRepository.credit(accountNumber, amount) == 0) {
+            throw new RuntimeException(notFoundMessage);
+        }
+    }
+    
+    private Transaction insertTransaction(Transaction.TransactionType type, BigDecimal amount, String description,
+                                          String fromAccountNumber, String toAccountNumber) {
+        LocalDateTime now = LocalDateTime.now();
         Transaction transaction = new Transaction();
-        transaction.setTransactionId(generateTransactionId());
-        transaction.setTransactionType(Transaction.TransactionType.TRANSFER);
+        transaction.setTransactionId(idGenerationService.nextTransactionId());
+        transaction.setTransactionType(type);
         transaction.setAmount(amount);
         transaction.setDescription(description);
-        transaction.setFromAccount(fromAccount);
-        transaction.setToAccount(toAccount);
+        transaction.setFromAccount(accountReference(fromAccountNumber));
+        transaction.setToAccount(accountReference(toAccountNumber));
         transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-        transaction.setReferenceNumber(UUID.randomUUID().toString());
-        
-        return transactionRepository.save(transaction);
+        transaction.setReferenceNumber(idGenerationService.nextReferenceNumber());
+        transaction.setCreatedAt(now);
+        transaction.setUpdatedAt(now);
+        transaction.setId(transactionJdbcRepository.insert(transaction, fromAccountNumber, toAccountNumber));
+        return transaction;
     }
     
-    public Transaction deposit(String accountNumber, BigDecimal amount, String description) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
-        
-        // Credit to account
-        account.setBalance(account.getBalance().add(amount));
-        accountRepository.save(account);
+    private static Account accountReference(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+    
+    // Enough for Hibernate to write the foreign key and for the response to show the number
+    private static Account accountReference(AccountMetadata metadata) {
+        return accountReference(metadata.getId(), metadata.getAccountNumber());
+    }
+    
+    private static Account accountReference(Long id, String accountNumber) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+    
+    // The ledger engine owns balances in memory mode, so pending transfers would bypass it
+    public boolean supportsPendingTransfers() {
+        return ledgerEngine == null;
+    }
+    
+    /**
+     * Records a transfer as PENDING without moving any money, after the checks that need
+     * no lock. {@link #completePendingTransfer} applies it later.
+     */
+    public Transaction createPendingTransfer(String fromAccountNumber, String toAccountNumber,
+                                             BigDecimal amount, String description) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("Amount must be positive");
+        }
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new RuntimeException("Source and destination accounts must differ");
+        }
+        AccountMetadata fromAccount = accountMetadataCache.get(fromAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Source account not found"));
+        AccountMetadata toAccount = accountMetadataCache.get(toAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Destination account not found"));
         
-        // Create transaction record
+        LocalDateTime now = LocalDateTime.now();
         Transaction transaction = new Transaction();
-        transaction.setTransactionId(generateTransactionId());
-        transaction.setTransactionType(Transaction.TransactionType.DEPOSIT);
+        transaction.setTransactionId(idGenerationService.nextTransactionId());
+        transaction.setTransactionType(Transaction.TransactionType.TRANSFER);
         transaction.setAmount(amount);
         transaction.setDescription(description);
-        transaction.setToAccount(account);
-        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-        transaction.setReferenceNumber(UUID.randomUUID().toString());
-        
+        transaction.setFromAccount(accountReference(fromAccount));
+        transaction.setToAccount(accountReference(toAccount));
+        transaction.setStatus(Transaction.TransactionStatus.PENDING);
+        transaction.setReferenceNumber(idGenerationService.nextReferenceNumber());
+        transaction.setCreatedAt(now);
+        transaction.setUpdatedAt(now);
         return transactionRepository.save(transaction);
     }
     
-    public Transaction withdraw(String accountNumber, BigDecimal amount, String description) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
+    /**
+     * Moves the money of a PENDING transfer and marks it COMPLETED in the same database
+     * transaction, or marks it FAILED with the reason. The status only changes while the
+     * row is still PENDING, so a transfer that is applied twice rolls back the second time.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void completePendingTransfer(Long id, String fromAccountNumber, String toAccountNumber,
+                                        BigDecimal amount) {
+        try {
+            hotAccountService.consolidate(fromAccountNumber);
+            if (atomicUpdates) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    atomicDebitAndCredit(fromAccountNumber, toAccountNumber, amount);
+                    resolvePendingOrFail(id, Transaction.TransactionStatus.COMPLETED, null);
+                });
+            } else {
+                concurrencyStrategy.execute(lockedAccounts(fromAccountNumber, toAccountNumber), accounts -> {
+                    debitAndCredit(requireAccount(accounts, fromAccountNumber, "Source account not found"),
+                            accounts, toAccountNumber, amount);
+                    resolvePendingOrFail(id, Transaction.TransactionStatus.COMPLETED, null);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            String reason = e.getMessage() != null && e.getMessage().length() > 255
+                    ? e.getMessage().substring(0, 255) : e.getMessage();
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.resolvePending(
+                    id, Transaction.TransactionStatus.FAILED, reason, LocalDateTime.now()));
+        }
+    }
+    
+    private void resolvePendingOrFail(Long id, Transaction.TransactionStatus status, String failureReason) {
+        if (transactionRepository.resolvePending(id, status, failureReason, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Transaction is no longer pending");
+        }
+    }
+    
+    public List<Transaction> getPendingTransfers() {
+        return transactionRepository.findPendingTransfers();
+    }
+    
+    public Optional<Transaction> getTransaction(String transactionId) {
+        return transactionRepository.findByTransactionId(transactionId);
+    }
+    
+    /**
+     * The current status as stored. Unlike {@link #getTransaction}, this does not return an
+     * entity the caller's persistence context loaded earlier, so a pending transfer
+     * completed since then is seen as completed.
+     */
+    public Optional<TransactionStatusResponse> getTransactionStatus(String transactionId) {
+        return transactionRepository.findStatusByTransactionId(transactionId);
+    }
+    
+    /**
+     * Applies a list of transfers, deposits and withdrawals in one database transaction.
+     * All involved accounts are locked up front in account number order, so concurrent
+     * batches cannot deadlock. Each item succeeds or fails on its own; a failed item
+     * leaves balances untouched and is reported in its result.
+     */
+    // Hot account folds take a connection of their own, so they run before the batch transaction opens
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BatchTransactionResult> processBatch(List<BatchTransactionItem> items) {
+        if (ledgerEngine != null) {
+            return processBatchSequentially(items);
+        }
         
-        // Check if account has sufficient balance
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient balance");
+        consolidateDebited(items);
+        List<GroupCommitWriter.Result<Transaction>> outcomes = transactionTemplate.execute(status -> applyItems(items));
+        List<BatchTransactionResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            GroupCommitWriter.Result<Transaction> outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                results.add(new BatchTransactionResult(i, true, "Completed",
+                        outcome.getValue().getTransactionId(), outcome.getValue().getReferenceNumber()));
+            } else {
+                results.add(BatchTransactionResult.failed(i, outcome.getFailure()));
+            }
+        }
+        return results;
+    }
+    
+    // Debits in the batch must see credits still sitting in a hot account's balance slots
+    private void consolidateDebited(List<BatchTransactionItem> items) {
+        Set<String> debited = new TreeSet<>();
+        Set<String> credited = new TreeSet<>();
+        accountsOf(items, debited, credited);
+        debited.forEach(hotAccountService::consolidate);
+    }
+    
+    private static void accountsOf(List<BatchTransactionItem> items, Set<String> debited, Set<String> credited) {
+        for (BatchTransactionItem item : items) {
+            if (item.getOperation() == BatchTransactionItem.Operation.TRANSFER) {
+                addIfPresent(debited, item.getFromAccountNumber());
+                addIfPresent(credited, item.getToAccountNumber());
+            } else if (item.getOperation() == BatchTransactionItem.Operation.DEPOSIT) {
+                addIfPresent(credited, item.getAccountNumber());
+            } else {
+                addIfPresent(debited, item.getAccountNumber());
+            }
         }
+    }
+    
+    // Body of processBatch and of the group commit writer; runs in the caller's transaction,
+    // after consolidateDebited()
+    private List<GroupCommitWriter.Result<Transaction>> applyItems(List<BatchTransactionItem> items) {
+        Set<String> debited = new TreeSet<>();
+        Set<String> credited = new TreeSet<>();
+        accountsOf(items, debited, credited);
         
-        // Debit from account
-        account.setBalance(account.getBalance().subtract(amount));
-        accountRepository.save(account);
+        // Hot accounts that are only credited are not locked; their credits go to a balance slot
+        Map<String, Account> hotCredited = new HashMap<>();
+        Set<String> accountNumbers = new TreeSet<>(debited);
+        for (String accountNumber : credited) {
+            Long hotAccountId = debited.contains(accountNumber) ? null : hotAccountService.hotAccountId(accountNumber);
+            if (hotAccountId != null) {
+                hotCredited.put(accountNumber, accountReference(hotAccountId, accountNumber));
+            } else {
+                accountNumbers.add(accountNumber);
+            }
+        }
         
-        // Create transaction record
-        Transaction transaction = new Transaction();
-        transaction.setTransactionId(generateTransactionId());
-        transaction.setTransactionType(Transaction.TransactionType.WITHDRAWAL);
-        transaction.setAmount(amount);
-        transaction.setDescription(description);
-        transaction.setFromAccount(account);
-        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-        transaction.setReferenceNumber(UUID.randomUUID().toString());
+        Map<String, Account> accounts = new HashMap<>();
+        if (!accountNumbers.isEmpty()) {
+            for (Account account : accountRepository.lockByAccountNumbers(accountNumbers)) {
+                accounts.put(account.getAccountNumber(), account);
+            }
+        }
         
-        return transactionRepository.save(transaction);
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>();
+        List<GroupCommitWriter.Result<Transaction>> results = new ArrayList<>(items.size());
+        // One slot credit per hot account, made after the loop in account number order
+        Map<String, BigDecimal> slotCredits = new TreeMap<>();
+        
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            Account from = null;
+            Account to = null;
+            Transaction.TransactionType type;
+            
+            switch (item.getOperation()) {
+                case TRANSFER:
+                    type = Transaction.TransactionType.TRANSFER;
+                    from = accounts.get(item.getFromAccountNumber());
+                    to = accounts.getOrDefault(item.getToAccountNumber(), hotCredited.get(item.getToAccountNumber()));
+                    if (from == null) {
+                        results.add(GroupCommitWriter.Result.failed("Source account not found"));
+                        continue;
+                    }
+                    if (to == null) {
+                        results.add(GroupCommitWriter.Result.failed("Destination account not found"));
+                        continue;
+                    }
+                    break;
+                case DEPOSIT:
+                    type = Transaction.TransactionType.DEPOSIT;
+                    to = accounts.getOrDefault(item.getAccountNumber(), hotCredited.get(item.getAccountNumber()));
+                    if (to == null) {
+                        results.add(GroupCommitWriter.Result.failed("Account not found"));
+                        continue;
+                    }
+                    break;
+                default:
+                    type = Transaction.TransactionType.WITHDRAWAL;
+                    from = accounts.get(item.getAccountNumber());
+                    if (from == null) {
+                        results.add(GroupCommitWriter.Result.failed("Account not found"));
+                        continue;
+                    }
+                    break;
+            }
+            
+            if (from != null && !from.canDebit(item.getAmount())) {
+                results.add(GroupCommitWriter.Result.failed("Insufficient balance"));
+                continue;
+            }
+            
+            // Balance changes are flushed once per account at commit. A locked row is
+            // credited in memory, so later items' balance checks see the credit
+            if (from != null) {
+                from.setBalance(from.getBalance().subtract(item.getAmount()));
+            }
+            if (to != null && hotCredited.containsKey(to.getAccountNumber())) {
+                slotCredits.merge(to.getAccountNumber(), item.getAmount(), BigDecimal::add);
+            } else if (to != null) {
+                to.setBalance(to.getBalance().add(item.getAmount()));
+            }
+            
+            Transaction transaction = new Transaction();
+            transaction.setTransactionId(idGenerationService.nextTransactionId());
+            transaction.setTransactionType(type);
+            transaction.setAmount(item.getAmount());
+            transaction.setDescription(item.getDescription());
+            transaction.setFromAccount(from);
+            transaction.setToAccount(to);
+            transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+            transaction.setReferenceNumber(idGenerationService.nextReferenceNumber());
+            transaction.setCreatedAt(now);
+            transaction.setUpdatedAt(now);
+            transactions.add(transaction);
+            
+            results.add(GroupCommitWriter.Result.success(transaction));
+        }
+        
+        slotCredits.forEach((accountNumber, amount) -> creditOrFail(accountNumber, amount, "Account not found"));
+        transactionJdbcRepository.insertAll(transactions, jdbcBatchSize);
+        return results;
+    }
+    
+    private List<BatchTransactionResult> processBatchSequentially(List<BatchTransactionItem> items) {
+        List<BatchTransactionResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransactionItem item = items.get(i);
+            try {
+                Transaction transaction;
+                switch (item.getOperation()) {
+                    case TRANSFER:
+                        transaction = transferMoney(item.getFromAccountNumber(), item.getToAccountNumber(),
+                                item.getAmount(), item.getDescription());
+                        break;
+                    case DEPOSIT:
+                        transaction = deposit(item.getAccountNumber(), item.getAmount(), item.getDescription());
+                        break;
+                    default:
+                        transaction = withdraw(item.getAccountNumber(), item.getAmount(), item.getDescription());
+                        break;
+                }
+                results.add(new BatchTransactionResult(i, true, "Completed",
+                        transaction.getTransactionId(), transaction.getReferenceNumber()));
+            } catch (RuntimeException e) {
+                results.add(BatchTransactionResult.failed(i, e.getMessage()));
+            }
+        }
+        return results;
+    }
+    
+    private static Account requireAccount(Map<String, Account> accounts, String accountNumber, String message) {
+        Account account = accounts.get(accountNumber);
+        if (account == null) {
+            throw new RuntimeException(message);
+        }
+        return account;
     }
     
-    public List<Transaction> getAccountTransactions(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
+    private static void addIfPresent(Set<String> accountNumbers, String accountNumber) {
+        if (accountNumber != null) {
+            accountNumbers.add(accountNumber);
+        }
+    }
+    
+    public List<TransactionResponse> getAccountTransactions(String accountNumber) {
+        Long accountId = accountMetadataCache.require(accountNumber).getId();
         
-        return transactionRepository.findByFromAccountOrToAccountOrderByCreatedAtDesc(account, account);
+        return transactionHistoryRepository.findAll(accountId);
     }
     
-    public Page<Transaction> getAccountTransactionsPaginated(String accountNumber, Pageable pageable) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
+    public Page<TransactionResponse> getAccountTransactionsPaginated(String accountNumber, Pageable pageable) {
+        Long accountId = accountMetadataCache.require(accountNumber).getId();
         
-        return transactionRepository.findByFromAccountOrToAccountOrderByCreatedAtDesc(
-                account, account, pageable);
+        return transactionHistoryRepository.findPage(accountId, pageable);
     }
     
-    public List<Transaction> getAccountTransactionsBetweenDates(String accountNumber, 
-                                                               LocalDateTime startDate, 
-                                                               LocalDateTime endDate) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found"));
+    public List<TransactionResponse> getAccountTransactionsBetweenDates(String accountNumber, 
+                                                                       LocalDateTime startDate, 
+                                                                       LocalDateTime endDate) {
+        Long accountId = accountMetadataCache.require(accountNumber).getId();
         
-        return transactionRepository.findAccountTransactionsBetweenDates(account, startDate, endDate);
+        return transactionHistoryRepository.findBetween(accountId, startDate, endDate);
     }
     
-    private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis();
+    /**
+     * Keyset pagination over an account's history, optionally limited to a date range
+     * that may be open at either end.
+     * Pages seek on {@code (createdAt, id)} instead of skipping an offset, and no count
+     * query is run, so deep pages cost the same as the first one.
+     */
+    public TransactionCursorPage getAccountTransactionsByCursor(String accountNumber,
+                                                               LocalDateTime startDate,
+                                                               LocalDateTime endDate,
+                                                               String cursor, int size) {
+        Long accountId = accountMetadataCache.require(accountNumber).getId();
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        // One extra row tells whether there is another page
+        int fetch = limit + 1;
+        
+        if (cursor == null || cursor.isEmpty()) {
+            List<TransactionResponse> rows = transactionHistoryRepository.findOlderThan(accountId, startDate, endDate,
+                    null, null, fetch);
+            List<TransactionResponse> items = rows.subList(0, Math.min(rows.size(), limit));
+            return new TransactionCursorPage(items,
+                    rows.size() > limit ? encodeCursor(true, items.get(items.size() - 1)) : null, null);
+        }
+        
+        Cursor position = decodeCursor(cursor);
+        if (position.older) {
+            List<TransactionResponse> rows = transactionHistoryRepository.findOlderThan(accountId, startDate, endDate,
+                    position.createdAt, position.id, fetch);
+            List<TransactionResponse> items = rows.subList(0, Math.min(rows.size(), limit));
+            if (items.isEmpty()) {
+                return new TransactionCursorPage(items, null, null);
+            }
+            return new TransactionCursorPage(items,
+                    rows.size() > limit ? encodeCursor(true, items.get(items.size() - 1)) : null,
+                    encodeCursor(false, items.get(0)));
+        }
+        
+        List<TransactionResponse> rows = transactionHistoryRepository.findNewerThan(accountId, startDate, endDate,
+                position.createdAt, position.id, fetch);
+        List<TransactionResponse> items = new ArrayList<>(rows.subList(0, Math.min(rows.size(), limit)));
+        Collections.reverse(items);
+        if (items.isEmpty()) {
+            return new TransactionCursorPage(items, null, null);
+        }
+        return new TransactionCursorPage(items,
+                encodeCursor(true, items.get(items.size() - 1)),
+                rows.size() > limit ? encodeCursor(false, items.get(0)) : null);
     }
+    
+    // Cursor tokens are "<o|n>|<createdAt>|<id>" in URL-safe Base64: o pages to older rows, n to newer.
+    // createdAt is empty for rows written before it was recorded
+    private static String encodeCursor(boolean older, TransactionResponse transaction) {
+        LocalDateTime createdAt = transaction.getCreatedAt();
+        String raw = (older ? "o" : "n") + "|" + (createdAt != null ? createdAt : "") + "|" + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Cursor decodeCursor(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !(parts[0].equals("o") || parts[0].equals("n"))) {
+                throw new IllegalArgumentException(token);
+            }
+            return new Cursor(parts[0].equals("o"), parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    private static class Cursor {
+        private final boolean older;
+        private final LocalDateTime createdAt;
+        private final Long id;
+        
+        private Cursor(boolean older, LocalDateTime createdAt, Long id) {
+            this.older = older;
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+    
 }
\ No newline at end of file
@@ -20,14 +20,22 @@ public class UserPrincipal implements UserDetails {
     
     private Collection<? extends GrantedAuthority> authorities;
     
+    private boolean enabled;
+    
     public UserPrincipal(Long id, String firstName, String lastName, String email, String password,
                         Collection<? extends GrantedAuthority> authorities) {
+        this(id, firstName, lastName, email, password, authorities, true);
+    }
+    
+    public UserPrincipal(Long id, String firstName, String lastName, String email, String password,
+                        Collection<? extends GrantedAuthority> authorities, boolean enabled) {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
         this.email = email;
         this.password = password;
         this.authorities = authorities;
+        this.enabled = enabled;
     }
     
     public static UserPrincipal create(User user) {
@@ -41,7 +49,8 @@ public class UserPrincipal implements UserDetails {
             user.getLastName(),
             user.getEmail(),
             user.getPassword(),
-            authorities
+            authorities,
+            !Boolean.FALSE.equals(user.getIsActive())
         );
     }
     
@@ -61,6 +70,12 @@ public class UserPrincipal implements UserDetails {
         return email;
     }
     
+    // The role name without the ROLE_ prefix
+    @JsonIgnore
+    public String getRole() {
+        return authorities.iterator().next().getAuthority().substring("ROLE_".length());
+    }
+    
     @Override
     public String getUsername() {
         return email;
@@ -93,6 +108,6 @@ public class UserPrincipal implements UserDetails {
     
     @Override
     public boolean isEnabled() {
-        return true;
+        return enabled;
     }
 }
\ No newline at end of file
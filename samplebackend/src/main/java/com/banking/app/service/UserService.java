@@ -0,0 +1,52 @@
+package com.banking.app.service;
+
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Changes to what a user may do. Request tokens carry the role and are accepted without
+ * loading the user, so every change made here also revokes the tokens issued so far; the
+ * user signs in again to get a token that reflects it.
+ */
+@Service
+@Transactional
+public class UserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    public User deactivate(Long userId) {
+        return update(userId, user -> user.setIsActive(false));
+    }
+
+    public User activate(Long userId) {
+        return update(userId, user -> user.setIsActive(true));
+    }
+
+    public User changeRole(Long userId, User.UserRole role) {
+        if (role == null) {
+            throw new RuntimeException("Role is required");
+        }
+        return update(userId, user -> user.setRole(role));
+    }
+
+    // The revocation is written in the same transaction as the change
+    private User update(Long userId, Consumer<User> change) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        change.accept(user);
+        user.setUpdatedAt(LocalDateTime.now());
+        User saved = userRepository.save(user);
+        tokenRevocationService.revokeUser(userId);
+        return saved;
+    }
+}
@@ -0,0 +1,275 @@
+package com.banking.app.archive;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writing segments and reading them back: every field survives, each account finds its
+ * entries through the block index for any time range and in either direction, and a
+ * transaction present in several places is returned once.
+ */
+class ArchiveSegmentTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 3, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        Transaction full = transaction(7, START.plusNanos(123_456_000), 1L, 2L);
+        full.setDescription("Rent, März");
+        full.setFailureReason("none");
+        full.setUpdatedAt(START.plusSeconds(5).plusNanos(1_000));
+        Transaction sparse = transaction(8, START.plusSeconds(1), null, 1L);
+        sparse.setDescription(null);
+        sparse.setReferenceNumber(null);
+        sparse.setUpdatedAt(null);
+        sparse.setTransactionType(Transaction.TransactionType.DEPOSIT);
+
+        ArchiveSegment segment = write(List.of(full, sparse), 256);
+        List<Transaction> read = list(segment.scan(1L, null, null, false));
+
+        assertEquals(2, read.size());
+        assertSameTransaction(full, read.get(0));
+        assertSameTransaction(sparse, read.get(1));
+        assertTrue(read.get(0).getSnapshotted());
+        assertEquals("10.50", read.get(0).getAmount().toPlainString());
+    }
+
+    @Test
+    void storesTransactionOncePerAccountItTouches() throws IOException {
+        ArchiveSegment segment = write(List.of(
+                transaction(1, START, 1L, 2L),
+                transaction(2, START, 3L, 3L),
+                transaction(3, START, null, 2L)), 2);
+
+        assertEquals(1, segment.count(1L));
+        assertEquals(2, segment.count(2L));
+        assertEquals(1, segment.count(3L));
+        assertEquals(0, segment.count(4L));
+        assertEquals(List.of(2L), ids(segment.scan(3L, null, null, true)));
+        assertFalse(segment.scan(4L, null, null, false).hasNext());
+    }
+
+    @Test
+    void scansAnyRangeAcrossBlocksInBothDirections() throws IOException {
+        // Several accounts interleaved, runs of equal instants straddling block boundaries
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= 60; i++) {
+            transactions.add(transaction(i, START.plusMinutes(i / 4), (long) (i % 3 + 1), (long) (i % 5 + 1)));
+        }
+        ArchiveSegment segment = write(transactions, 3);
+
+        List<LocalDateTime> bounds = new ArrayList<>();
+        bounds.add(null);
+        for (int minute = -1; minute <= 16; minute++) {
+            bounds.add(START.plusMinutes(minute));
+        }
+        for (long account = 1; account <= 5; account++) {
+            for (LocalDateTime from : bounds) {
+                for (LocalDateTime to : bounds) {
+                    if (from != null && to != null && to.isBefore(from)) {
+                        continue;
+                    }
+                    List<Long> expected = expected(transactions, account, from, to);
+                    String range = "account " + account + " in [" + from + ", " + to + "]";
+                    assertEquals(expected, ids(segment.scan(account, from, to, false)), range);
+                    assertEquals(reversed(expected), ids(segment.scan(account, from, to, true)), range);
+                }
+            }
+        }
+    }
+
+    @Test
+    void stopsReadingOnceRangeIsPassed() throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            transactions.add(transaction(i, START.plusMinutes(i), 1L, null));
+        }
+        ArchiveSegment segment = write(transactions, 4);
+
+        Iterator<Transaction> newest = segment.scan(1L, null, null, true);
+
+        assertEquals(30L, newest.next().getId());
+        assertEquals(29L, newest.next().getId());
+    }
+
+    @Test
+    void writesThroughTemporaryFile() throws IOException {
+        write(List.of(transaction(1, START, 1L, 2L)), 256);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("segment.seg"), files.map(file -> file.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegments() throws IOException {
+        Path garbage = Files.write(directory.resolve("garbage.seg"), new byte[64]);
+        assertThrows(IOException.class, () -> ArchiveSegment.open(garbage));
+
+        Path segment = directory.resolve("segment.seg");
+        ArchiveSegment.write(segment, List.of(transaction(1, START, 1L, 2L)), 256);
+        byte[] bytes = Files.readAllBytes(segment);
+        Path truncated = Files.write(directory.resolve("truncated.seg"),
+                Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> ArchiveSegment.open(truncated));
+    }
+
+    @Test
+    void archiveReturnsTransactionsInOverlappingSegmentsOnce() throws IOException {
+        TransactionArchive archive = archive();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            transactions.add(transaction(i, START.plusMinutes(i / 2), 1L, 2L));
+        }
+        // A run that was interrupted after writing part of its batch, then retried
+        archive.append(transactions.subList(0, 8));
+        archive.append(transactions.subList(4, 12));
+        archive.append(transactions.subList(4, 12));
+
+        assertEquals(ids(transactions.iterator()), ids(archive.scan(1L, null, null, false)));
+        assertEquals(reversed(ids(transactions.iterator())), ids(archive.scan(2L, null, null, true)));
+    }
+
+    @Test
+    void mergeDropsArchivedCopiesOfTableRows() {
+        List<Transaction> hot = List.of(transaction(2, START.plusMinutes(1), 1L, 2L),
+                transaction(4, START.plusMinutes(3), 1L, 2L));
+        List<Transaction> cold = List.of(transaction(1, START, 1L, 2L),
+                transaction(2, START.plusMinutes(1), 1L, 2L),
+                transaction(3, START.plusMinutes(3), 1L, 2L));
+
+        Iterator<Transaction> merged = TransactionArchive.merge(hot.iterator(), cold.iterator(),
+                TransactionArchive.order(false));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(merged));
+    }
+
+    @Test
+    void loadSkipsUnfinishedSegments() throws IOException {
+        TransactionArchive archive = archive();
+        archive.append(List.of(transaction(1, START, 1L, 2L)));
+        Files.write(directory.resolve("transactions-2-3.seg.tmp"), new byte[] {1, 2, 3});
+
+        TransactionArchive reloaded = archive();
+        reloaded.load();
+
+        assertEquals(List.of(1L), ids(reloaded.scan(1L, null, null, false)));
+        assertFalse(Files.exists(directory.resolve("transactions-2-3.seg.tmp")));
+    }
+
+    private ArchiveSegment write(List<Transaction> transactions, int blockEntries) throws IOException {
+        Path path = directory.resolve("segment.seg");
+        ArchiveSegment.write(path, transactions, blockEntries);
+        return ArchiveSegment.open(path);
+    }
+
+    private TransactionArchive archive() {
+        TransactionArchive archive = new TransactionArchive();
+        ReflectionTestUtils.setField(archive, "archiveDir", directory.toString());
+        ReflectionTestUtils.setField(archive, "blockEntries", 3);
+        return archive;
+    }
+
+    private static List<Long> expected(List<Transaction> transactions, long account,
+                                       LocalDateTime from, LocalDateTime to) {
+        return transactions.stream()
+                .filter(t -> touches(t.getFromAccount(), account) || touches(t.getToAccount(), account))
+                .filter(t -> from == null || !t.getCreatedAt().isBefore(from))
+                .filter(t -> to == null || !t.getCreatedAt().isAfter(to))
+                .sorted(TransactionArchive.order(false))
+                .map(Transaction::getId)
+                .toList();
+    }
+
+    private static boolean touches(Account account, long accountId) {
+        return account != null && account.getId() == accountId;
+    }
+
+    private static Transaction transaction(long id, LocalDateTime createdAt, Long fromId, Long toId) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionId("TXN" + id);
+        transaction.setReferenceNumber("REF" + id);
+        transaction.setTransactionType(Transaction.TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("10.50"));
+        transaction.setDescription("transfer " + id);
+        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(createdAt);
+        transaction.setUpdatedAt(createdAt);
+        transaction.setFromAccount(account(fromId));
+        transaction.setToAccount(account(toId));
+        return transaction;
+    }
+
+    private static Account account(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(String.format("ACC%012d", id));
+        return account;
+    }
+
+    private static void assertSameTransaction(Transaction expected, Transaction actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTransactionId(), actual.getTransactionId());
+        assertEquals(expected.getReferenceNumber(), actual.getReferenceNumber());
+        assertEquals(expected.getTransactionType(), actual.getTransactionType());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getFailureReason(), actual.getFailureReason());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+        assertAccount(expected.getFromAccount(), actual.getFromAccount());
+        assertAccount(expected.getToAccount(), actual.getToAccount());
+    }
+
+    private static void assertAccount(Account expected, Account actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getAccountNumber(), actual.getAccountNumber());
+    }
+
+    private static List<Long> ids(Iterator<Transaction> transactions) {
+        List<Long> ids = new ArrayList<>();
+        transactions.forEachRemaining(transaction -> ids.add(transaction.getId()));
+        return ids;
+    }
+
+    private static List<Transaction> list(Iterator<Transaction> transactions) {
+        List<Transaction> list = new ArrayList<>();
+        transactions.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static List<Long> reversed(List<Long> ids) {
+        List<Long> reversed = new ArrayList<>(ids);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+}
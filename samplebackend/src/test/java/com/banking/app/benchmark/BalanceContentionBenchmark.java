@@ -0,0 +1,149 @@
+package com.banking.app.benchmark;
+
+import com.banking.app.concurrency.BalanceConcurrencyStrategy;
+import com.banking.app.concurrency.OptimisticConcurrencyStrategy;
+import com.banking.app.concurrency.PessimisticConcurrencyStrategy;
+import com.banking.app.concurrency.StripedLockConcurrencyStrategy;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures deposit throughput and optimistic retry rates for each balance concurrency
+ * strategy, and for the guarded single-statement update, while a growing number of
+ * threads hit the same account.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "logging.level.org.hibernate.orm.jdbc.batch=OFF",
+    "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"
+})
+class BalanceContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+    private static final int OPERATIONS_PER_THREAD = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void depositsIntoOneHotAccount() throws Exception {
+        User user = new User();
+        user.setEmail("contention@example.com");
+        user.setPassword("password");
+        user.setFirstName("Hot");
+        user.setLastName("Account");
+        user = userRepository.save(user);
+
+        List<BalanceConcurrencyStrategy> strategies = List.of(
+                new PessimisticConcurrencyStrategy(accountRepository, transactionManager),
+                new OptimisticConcurrencyStrategy(accountRepository, transactionManager, 50, 2),
+                new StripedLockConcurrencyStrategy(accountRepository, transactionManager, 1024));
+
+        Object target = AopTestUtils.getTargetObject(transactionService);
+        ReflectionTestUtils.setField(target, "atomicUpdates", false);
+        System.out.printf("%n%-12s %8s %12s %10s %12s %8s%n",
+                "strategy", "threads", "ops/sec", "retries", "retries/op", "failed");
+
+        for (BalanceConcurrencyStrategy strategy : strategies) {
+            ReflectionTestUtils.setField(target, "concurrencyStrategy", strategy);
+            measure(user, strategy.getName(), strategy::getRetryCount);
+        }
+        ReflectionTestUtils.setField(target, "atomicUpdates", true);
+        measure(user, "atomic", () -> 0L);
+    }
+
+    private void measure(User user, String name, LongSupplier retryCount) throws InterruptedException {
+        for (int threads : THREAD_COUNTS) {
+            String accountNumber = accountService.createAccount(user.getId(), Account.AccountType.CURRENT)
+                    .getAccountNumber();
+            long retriesBefore = retryCount.getAsLong();
+            AtomicLong failed = new AtomicLong();
+
+            long elapsedNanos = run(threads, () -> {
+                try {
+                    transactionService.deposit(accountNumber, BigDecimal.ONE, "contention");
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+            });
+
+            long operations = (long) threads * OPERATIONS_PER_THREAD;
+            long succeeded = operations - failed.get();
+            long retries = retryCount.getAsLong() - retriesBefore;
+            System.out.printf("%-12s %8d %12.0f %10d %12.3f %8d%n",
+                    name, threads, succeeded / (elapsedNanos / 1e9),
+                    retries, (double) retries / operations, failed.get());
+
+            // No strategy may lose an update
+            BigDecimal balance = accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance();
+            assertEquals(0, balance.compareTo(BigDecimal.valueOf(succeeded)), name);
+        }
+    }
+
+    private long run(int threads, Runnable operation) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Runnable> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> {
+                try {
+                    start.await();
+                    for (int n = 0; n < OPERATIONS_PER_THREAD; n++) {
+                        operation.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        workers.forEach(executor::execute);
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+}
@@ -0,0 +1,156 @@
+package com.banking.app.benchmark;
+
+import com.banking.app.config.JwtUtils;
+import com.banking.app.dto.ApiResponse;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.TransactionService;
+import com.banking.app.service.UserPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Average time per operation of the security and service hot paths, one thread at a time:
+ * issuing and verifying tokens, building the principal, BCrypt, serializing entity lists
+ * and the money movements against H2. Results are written to
+ * {@code target/benchmark-results/HotPathBenchmark.json}; see {@link MicroBenchmarks}.
+ * Run with {@code mvn test -Pbenchmark -Dtest=HotPathBenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "banking.password-hashing.bcrypt-strength=10",
+    "jwt.cache-size=1000"
+})
+class HotPathBenchmark {
+
+    // More distinct tokens than jwt.cache-size, so cycling through them always misses
+    private static final int UNCACHED_TOKENS = 2_000;
+    private static final int LIST_SIZE = 50;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void hotPaths() throws Exception {
+        User user = new User();
+        user.setEmail("hotpath@example.com");
+        user.setPassword(passwordEncoder.encode("hot-path-password"));
+        user.setFirstName("Hot");
+        user.setLastName("Path");
+        user = userRepository.save(user);
+        UserPrincipal principal = UserPrincipal.create(user);
+
+        MicroBenchmarks benchmarks = new MicroBenchmarks(HotPathBenchmark.class);
+
+        // Security
+        benchmarks.run("jwtGenerateToken", () -> jwtUtils.generateToken(principal));
+        String token = jwtUtils.generateToken(principal);
+        benchmarks.run("jwtValidateCached", () -> jwtUtils.validateJwtToken(token));
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < UNCACHED_TOKENS; i++) {
+            tokens.add(jwtUtils.generateToken(principal));
+        }
+        int[] next = {0};
+        benchmarks.run("jwtValidateUncached",
+                () -> jwtUtils.validateJwtToken(tokens.get(next[0]++ % UNCACHED_TOKENS)));
+        User finalUser = user;
+        benchmarks.run("userPrincipalCreate", () -> UserPrincipal.create(finalUser));
+        String hash = user.getPassword();
+        benchmarks.run("bcryptEncode", () -> passwordEncoder.encode("hot-path-password"));
+        benchmarks.run("bcryptMatches", () -> passwordEncoder.matches("hot-path-password", hash));
+
+        // Serialization of entity lists as the controllers once returned them
+        List<Account> accounts = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < LIST_SIZE; i++) {
+            accounts.add(account(user, i));
+        }
+        for (int i = 0; i < LIST_SIZE; i++) {
+            transactions.add(transaction(accounts.get(i), accounts.get((i + 1) % LIST_SIZE), i));
+        }
+        ApiResponse accountsResponse = new ApiResponse(true, "Accounts retrieved successfully!", accounts);
+        ApiResponse transactionsResponse = new ApiResponse(true, "Transactions retrieved successfully!", transactions);
+        benchmarks.run("jsonAccounts" + LIST_SIZE, () -> objectMapper.writeValueAsBytes(accountsResponse));
+        benchmarks.run("jsonTransactions" + LIST_SIZE, () -> objectMapper.writeValueAsBytes(transactionsResponse));
+
+        // Money movements against H2; the balances return to where they started
+        String from = accountService.createAccount(user.getId(), Account.AccountType.CURRENT).getAccountNumber();
+        String to = accountService.createAccount(user.getId(), Account.AccountType.CURRENT).getAccountNumber();
+        transactionService.deposit(from, new BigDecimal("1000000"), "seed");
+        transactionService.deposit(to, new BigDecimal("1000000"), "seed");
+        boolean[] forward = {true};
+        benchmarks.run("transferMoney", () -> {
+            forward[0] = !forward[0];
+            return forward[0]
+                    ? transactionService.transferMoney(from, to, BigDecimal.ONE, "benchmark")
+                    : transactionService.transferMoney(to, from, BigDecimal.ONE, "benchmark");
+        });
+        benchmarks.run("deposit", () -> transactionService.deposit(from, BigDecimal.ONE, "benchmark"));
+        benchmarks.run("withdraw", () -> transactionService.withdraw(from, BigDecimal.ONE, "benchmark"));
+
+        assertTrue(benchmarks.write().toFile().length() > 0);
+    }
+
+    private static Account account(User user, int i) {
+        Account account = new Account();
+        account.setId((long) i);
+        account.setAccountNumber(String.format("ACC%010d", i));
+        account.setAccountType(Account.AccountType.SAVINGS);
+        account.setBalance(new BigDecimal("1234.56"));
+        account.setInterestRate(3.5);
+        account.setMinimumBalance(new BigDecimal("500.00"));
+        account.setCreatedAt(LocalDateTime.now());
+        account.setUpdatedAt(LocalDateTime.now());
+        account.setUser(user);
+        return account;
+    }
+
+    private static Transaction transaction(Account from, Account to, int i) {
+        Transaction transaction = new Transaction();
+        transaction.setId((long) i);
+        transaction.setTransactionId(String.format("TXN%012d", i));
+        transaction.setTransactionType(Transaction.TransactionType.TRANSFER);
+        transaction.setAmount(new BigDecimal("42.00"));
+        transaction.setDescription("Transfer " + i);
+        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        transaction.setReferenceNumber(String.format("REF%012d", i));
+        transaction.setCreatedAt(LocalDateTime.now());
+        transaction.setUpdatedAt(LocalDateTime.now());
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        return transaction;
+    }
+}
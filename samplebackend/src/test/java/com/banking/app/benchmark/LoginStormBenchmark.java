@@ -0,0 +1,145 @@
+package com.banking.app.benchmark;
+
+import com.banking.app.dto.LoginRequest;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.AuthService;
+import com.banking.app.service.PasswordHashingService;
+import com.banking.app.service.TransactionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures logins per second and the latency of transfers made alongside them, while
+ * {@code 4 x cores} threads sign in without pause: first with BCrypt on the signing-in
+ * threads, as before the hashing pool, then on the pool. The login rate limit is off, as
+ * for a storm spread over many addresses.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "banking.login-limit.enabled=false",
+    "banking.password-hashing.bcrypt-strength=10"
+})
+class LoginStormBenchmark {
+
+    private static final int USERS = 50;
+    private static final int STORM_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+    private static final long PHASE_SECONDS = 5;
+    private static final String PASSWORD = "storm-password";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private DaoAuthenticationProvider authenticationProvider;
+
+    @Test
+    void transferLatencyDuringLoginStorm() throws Exception {
+        List<String> emails = new ArrayList<>();
+        String hash = passwordHashingService.encode(PASSWORD);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("storm" + i + "@example.com");
+            user.setPassword(hash);
+            user.setFirstName("Login");
+            user.setLastName("Storm");
+            user.setRole(User.UserRole.CUSTOMER);
+            user.setIsActive(true);
+            emails.add(userRepository.save(user).getEmail());
+        }
+        Long ownerId = userRepository.findByEmail(emails.get(0)).orElseThrow().getId();
+        String from = accountService.createAccount(ownerId, Account.AccountType.CURRENT).getAccountNumber();
+        String to = accountService.createAccount(ownerId, Account.AccountType.CURRENT).getAccountNumber();
+        transactionService.deposit(from, new BigDecimal("1000000"), "seed");
+
+        System.out.printf("%n%-14s %8s %12s %10s %14s %14s %12s%n", "hashing", "threads",
+                "logins/sec", "rejected", "transfer p50", "transfer p99", "transfers");
+        measure("none", 0, emails, from, to);
+        try {
+            authenticationProvider.setPasswordEncoder(new BCryptPasswordEncoder(10));
+            measure("caller", STORM_THREADS, emails, from, to);
+        } finally {
+            authenticationProvider.setPasswordEncoder(passwordHashingService);
+        }
+        measure("pool", STORM_THREADS, emails, from, to);
+    }
+
+    private void measure(String name, int threads, List<String> emails, String from, String to)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong logins = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        ExecutorService storm = Executors.newFixedThreadPool(Math.max(1, threads));
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            storm.execute(() -> {
+                for (int n = offset; running.get(); n++) {
+                    try {
+                        authService.authenticateUser(new LoginRequest(emails.get(n % emails.size()), PASSWORD), null);
+                        logins.incrementAndGet();
+                    } catch (PasswordHashingService.BusyException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        long begin = System.nanoTime();
+        long deadline = begin + TimeUnit.SECONDS.toNanos(PHASE_SECONDS);
+        for (int n = 0; System.nanoTime() < deadline; n++) {
+            long start = System.nanoTime();
+            transactionService.transferMoney(n % 2 == 0 ? from : to, n % 2 == 0 ? to : from,
+                    BigDecimal.ONE, "storm");
+            latencies.add(System.nanoTime() - start);
+        }
+        long elapsed = System.nanoTime() - begin;
+        running.set(false);
+        storm.shutdown();
+        assertTrue(storm.awaitTermination(1, TimeUnit.MINUTES));
+
+        Collections.sort(latencies);
+        System.out.printf("%-14s %8d %12.1f %10d %12.2fms %12.2fms %12d%n", name, threads,
+                logins.get() / (elapsed / 1e9), rejected.get(),
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies.size());
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size())));
+    }
+}
@@ -0,0 +1,130 @@
+package com.banking.app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A small in-process harness for timing single operations: warmup iterations, then
+ * measured iterations of a fixed length, each scored as the average microseconds per
+ * operation. Results are printed and can be written as JSON in the layout of JMH's
+ * {@code -rf json} output, one file per benchmark class, so runs on different commits can
+ * be compared with the same tools.
+ * <p>
+ * Iterations are set with {@code -Dbenchmark.warmup-iterations},
+ * {@code -Dbenchmark.iterations} and {@code -Dbenchmark.iteration-ms}; results go to
+ * {@code -Dbenchmark.results-dir}, {@code target/benchmark-results} by default.
+ */
+final class MicroBenchmarks {
+
+    private final int warmupIterations = Integer.getInteger("benchmark.warmup-iterations", 5);
+    private final int measurementIterations = Integer.getInteger("benchmark.iterations", 10);
+    private final long iterationMs = Long.getLong("benchmark.iteration-ms", 500);
+
+    private final String className;
+    private final List<Map<String, Object>> results = new ArrayList<>();
+
+    // Keeps each operation's result observable, so it cannot be optimized away
+    private volatile int sink;
+
+    MicroBenchmarks(Class<?> benchmarkClass) {
+        this.className = benchmarkClass.getName();
+        System.out.printf("%n%-40s %6s %14s %12s%n", "benchmark", "mode", "score", "error");
+    }
+
+    /**
+     * Times {@code operation} and records the result as {@code <class>.<name>}.
+     */
+    void run(String name, Callable<?> operation) throws Exception {
+        // Operations are timed in batches so reading the clock does not dominate fast ones
+        int batch = 1;
+        for (int i = 0; i < warmupIterations; i++) {
+            double[] iteration = iterate(operation, batch);
+            batch = (int) Math.max(1, Math.min(10_000, iteration[1] / 100));
+        }
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < measurementIterations; i++) {
+            scores.add(iterate(operation, batch)[0]);
+        }
+
+        double mean = scores.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+        double error = Double.NaN;
+        if (scores.size() > 1) {
+            double variance = scores.stream().mapToDouble(s -> (s - mean) * (s - mean)).sum() / (scores.size() - 1);
+            error = studentT999(scores.size() - 1) * Math.sqrt(variance / scores.size());
+        }
+        System.out.printf("%-40s %6s %11.3f us %9.3f us%n", name, "avgt", mean, error);
+
+        Map<String, Object> primaryMetric = new LinkedHashMap<>();
+        primaryMetric.put("score", mean);
+        primaryMetric.put("scoreError", error);
+        primaryMetric.put("scoreConfidence", List.of(mean - error, mean + error));
+        primaryMetric.put("scoreUnit", "us/op");
+        primaryMetric.put("rawData", List.of(scores));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("benchmark", className + "." + name);
+        result.put("mode", "avgt");
+        result.put("threads", 1);
+        result.put("forks", 0);
+        result.put("jdkVersion", System.getProperty("java.version"));
+        result.put("vmName", System.getProperty("java.vm.name"));
+        result.put("warmupIterations", warmupIterations);
+        result.put("warmupTime", iterationMs + " ms");
+        result.put("measurementIterations", measurementIterations);
+        result.put("measurementTime", iterationMs + " ms");
+        result.put("primaryMetric", primaryMetric);
+        result.put("secondaryMetrics", Map.of());
+        results.add(result);
+    }
+
+    /**
+     * Writes the results recorded so far to {@code <results dir>/<class>.json}.
+     */
+    Path write() throws IOException {
+        Path directory = Paths.get(System.getProperty("benchmark.results-dir", "target/benchmark-results"));
+        Files.createDirectories(directory);
+        Path file = directory.resolve(className.substring(className.lastIndexOf('.') + 1) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), results);
+        System.out.println("Results written to " + file.toAbsolutePath());
+        return file;
+    }
+
+    // Runs for one iteration; returns microseconds per operation and the operations run
+    private double[] iterate(Callable<?> operation, int batch) throws Exception {
+        long deadline = iterationMs * 1_000_000;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++) {
+                Object result = operation.call();
+                sink += System.identityHashCode(result);
+            }
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < deadline);
+        return new double[] {elapsed / 1_000.0 / operations, operations};
+    }
+
+    // Two-sided 99.9% quantile of Student's t, as JMH reports; Cornish-Fisher expansion
+    private static double studentT999(int degreesOfFreedom) {
+        double z = 3.2905267;
+        double v = degreesOfFreedom;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        return z + (z3 + z) / (4 * v)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96 * v * v)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * v * v * v);
+    }
+}
@@ -0,0 +1,178 @@
+package com.banking.app.benchmark;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.TransactionService;
+import com.banking.app.support.StatementCounter;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL statements and JSON bytes behind the profile, account list and history
+ * page responses, built from entities (before) and from the read model (after). Serializing
+ * the entities as they are recurses without end through {@code Account.user} and
+ * {@code User.accounts}, so the entity side leaves out the back-references that close
+ * that cycle; it is a lower bound of what the entity responses cost.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.banking.app.support.StatementCounter"
+})
+class ReadModelBenchmark {
+
+    private static final int COUNTERPARTIES = 50;
+    private static final int HISTORY = 500;
+    private static final int PAGE_SIZE = 50;
+
+    @JsonIgnoreProperties({"user", "outgoingTransactions", "incomingTransactions",
+        "hibernateLazyInitializer", "handler"})
+    private abstract static class AccountWithoutBackReferences {
+    }
+
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    private abstract static class WithoutProxyFields {
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void statementsAndBytesPerResponse() throws Exception {
+        User owner = userRepository.save(user("owner@example.com"));
+        User other = userRepository.save(user("other@example.com"));
+        Account account = accountService.createAccount(owner.getId(), Account.AccountType.CURRENT);
+        for (int i = 0; i < 4; i++) {
+            accountService.createAccount(owner.getId(), Account.AccountType.CURRENT);
+        }
+        List<Account> counterparties = new ArrayList<>();
+        for (int i = 0; i < COUNTERPARTIES; i++) {
+            counterparties.add(accountService.createAccount(other.getId(), Account.AccountType.CURRENT));
+        }
+        transactionService.deposit(account.getAccountNumber(), new BigDecimal("100000"), "seed");
+        for (int i = 0; i < HISTORY; i++) {
+            Account counterparty = counterparties.get(i % COUNTERPARTIES);
+            if (i % 2 == 0) {
+                transactionService.transferMoney(account.getAccountNumber(), counterparty.getAccountNumber(),
+                        BigDecimal.ONE, "history");
+            } else {
+                transactionService.deposit(counterparty.getAccountNumber(), BigDecimal.ONE, "seed");
+                transactionService.transferMoney(counterparty.getAccountNumber(), account.getAccountNumber(),
+                        BigDecimal.ONE, "history");
+            }
+        }
+
+        ObjectMapper entityMapper = objectMapper.copy()
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .addMixIn(Account.class, AccountWithoutBackReferences.class)
+                .addMixIn(User.class, WithoutProxyFields.class)
+                .addMixIn(Transaction.class, WithoutProxyFields.class);
+        Long userId = owner.getId();
+        String accountNumber = account.getAccountNumber();
+
+        System.out.printf("%n%-14s %18s %18s %16s %16s%n", "response",
+                "before (stmts)", "after (stmts)", "before (bytes)", "after (bytes)");
+        compare("profile", entityMapper,
+                () -> userRepository.findById(userId).orElseThrow(),
+                () -> userRepository.findProfileById(userId).orElseThrow());
+        compare("my-accounts", entityMapper,
+                () -> accountRepository.findByUser(userRepository.findById(userId).orElseThrow()),
+                () -> accountService.getUserAccounts(userId));
+        compare("history page", entityMapper,
+                () -> entityHistoryPage(accountNumber),
+                () -> transactionService.getAccountTransactionsPaginated(accountNumber,
+                        PageRequest.of(0, PAGE_SIZE)).getContent());
+    }
+
+    // Measured inside one transaction, like a request with open-in-view
+    private void compare(String name, ObjectMapper entityMapper, Supplier<Object> before, Supplier<Object> after) {
+        long[] entity = measure(entityMapper, before);
+        long[] readModel = measure(objectMapper, after);
+        System.out.printf("%-14s %18d %18d %16d %16d%n", name, entity[0], readModel[0], entity[1], readModel[1]);
+        assertTrue(readModel[0] <= entity[0]);
+    }
+
+    private long[] measure(ObjectMapper mapper, Supplier<Object> response) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            entityManager.clear();
+            StatementCounter.reset();
+            try {
+                int bytes = mapper.writeValueAsBytes(response.get()).length;
+                return new long[] {StatementCounter.count(), bytes};
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    // The history page as it was read before the read model: entities and a count, with the
+    // accounts loaded lazily as they are serialized
+    private List<Transaction> entityHistoryPage(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+        entityManager.createQuery("SELECT COUNT(t) FROM Transaction t " +
+                        "WHERE t.fromAccount = :account OR t.toAccount = :account", Long.class)
+                .setParameter("account", account)
+                .getSingleResult();
+        return entityManager.createQuery("SELECT t FROM Transaction t " +
+                        "WHERE t.fromAccount = :account OR t.toAccount = :account " +
+                        "ORDER BY t.createdAt DESC, t.id DESC", Transaction.class)
+                .setParameter("account", account)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setFirstName("Read");
+        user.setLastName("Model");
+        return user;
+    }
+}
@@ -0,0 +1,184 @@
+package com.banking.app.benchmark;
+
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.repository.TransactionHistoryRepository;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the latency of reading the newest page of an account's history as the history
+ * grows, before (OR filter, no composite indexes) and after (composite indexes,
+ * {@code UNION ALL} of two range scans). Other accounts' rows are loaded too so that the
+ * account's history is a small part of the table, as it is in production.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("h2")
+class TransactionHistoryBenchmark {
+
+    private static final int[] HISTORY_SIZES = {1_000, 10_000, 100_000};
+    private static final int OTHER_ROWS = 200_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int RUNS = 30;
+
+    private static final String INSERT_SQL = "INSERT INTO transactions (transaction_id, transaction_type, " +
+            "amount, description, status, created_at, updated_at, from_account_id, to_account_id) " +
+            "VALUES (?, 'TRANSFER', 1.00, 'history', 'COMPLETED', ?, ?, ?, ?)";
+
+    // Without the composite indexes MySQL still indexes each foreign key column on its own
+    private static final String[] BEFORE_INDEXES = {
+        "DROP INDEX IF EXISTS idx_transactions_from_created",
+        "DROP INDEX IF EXISTS idx_transactions_to_created",
+        "CREATE INDEX IF NOT EXISTS idx_bench_from ON transactions (from_account_id)",
+        "CREATE INDEX IF NOT EXISTS idx_bench_to ON transactions (to_account_id)"
+    };
+
+    // H2 cannot read an index backwards the way MySQL does, so the newest-first page
+    // needs the index itself in that order here
+    private static final String[] AFTER_INDEXES = {
+        "DROP INDEX IF EXISTS idx_bench_from",
+        "DROP INDEX IF EXISTS idx_bench_to",
+        "CREATE INDEX IF NOT EXISTS idx_transactions_from_created ON transactions (from_account_id, created_at DESC, id DESC)",
+        "CREATE INDEX IF NOT EXISTS idx_transactions_to_created ON transactions (to_account_id, created_at DESC, id DESC)"
+    };
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final List<Object[]> pending = new ArrayList<>();
+
+    private long sequence;
+
+    @Test
+    void newestPageAgainstHistorySize() {
+        User user = new User();
+        user.setEmail("history@example.com");
+        user.setPassword("password");
+        user.setFirstName("Long");
+        user.setLastName("History");
+        user = userRepository.save(user);
+        dropForeignKeys();
+
+        List<Account> others = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            others.add(accountService.createAccount(user.getId(), Account.AccountType.CURRENT));
+        }
+        for (int i = 0; i < OTHER_ROWS; i++) {
+            insert(others.get(i % others.size()).getId(), others.get((i + 1) % others.size()).getId());
+        }
+        flush();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        System.out.printf("%n%10s %14s %14s %10s%n", "history", "before (ms)", "after (ms)", "speedup");
+
+        for (int size : HISTORY_SIZES) {
+            Account account = accountService.createAccount(user.getId(), Account.AccountType.CURRENT);
+            for (int i = 0; i < size; i++) {
+                Long other = others.get(i % others.size()).getId();
+                if (i % 2 == 0) {
+                    insert(account.getId(), other);
+                } else {
+                    insert(other, account.getId());
+                }
+            }
+            flush();
+
+            Arrays.stream(BEFORE_INDEXES).forEach(jdbcTemplate::execute);
+            List<Long> before = transaction.execute(status ->
+                    orFilterPage(account).stream().map(Transaction::getId).toList());
+            double beforeMillis = median(() -> transaction.execute(status -> orFilterPage(account)));
+
+            Arrays.stream(AFTER_INDEXES).forEach(jdbcTemplate::execute);
+            List<Long> after = transaction.execute(status ->
+                    unionPage(account).stream().map(TransactionResponse::getId).toList());
+            double afterMillis = median(() -> transaction.execute(status -> unionPage(account)));
+
+            System.out.printf("%10d %14.3f %14.3f %9.1fx%n",
+                    size, beforeMillis, afterMillis, beforeMillis / afterMillis);
+            assertEquals(before, after);
+        }
+    }
+
+    // The history query as it was before the composite indexes
+    private List<Transaction> orFilterPage(Account account) {
+        return entityManager.createQuery("SELECT t FROM Transaction t " +
+                        "WHERE (t.fromAccount = :account OR t.toAccount = :account) " +
+                        "ORDER BY t.createdAt DESC, t.id DESC", Transaction.class)
+                .setParameter("account", account)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+
+    private List<TransactionResponse> unionPage(Account account) {
+        return transactionHistoryRepository.findOlderThan(account.getId(), null, null, null, null, PAGE_SIZE);
+    }
+
+    private double median(Supplier<? extends List<?>> query) {
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            query.get();
+            samples[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2] / 1e6;
+    }
+
+    // H2 gives every foreign key an index of its own, which it then prefers over the
+    // composite ones; MySQL reuses the composite indexes for the foreign keys instead
+    private void dropForeignKeys() {
+        jdbcTemplate.queryForList("SELECT CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                        "WHERE TABLE_NAME = 'TRANSACTIONS' AND CONSTRAINT_TYPE = 'FOREIGN KEY'", String.class)
+                .forEach(name -> jdbcTemplate.execute("ALTER TABLE transactions DROP CONSTRAINT " + name));
+    }
+
+    private void insert(Long fromAccountId, Long toAccountId) {
+        long n = ++sequence;
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(n));
+        pending.add(new Object[] {"BENCH" + n, createdAt, createdAt, fromAccountId, toAccountId});
+    }
+
+    private void flush() {
+        jdbcTemplate.batchUpdate(INSERT_SQL, pending);
+        pending.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package com.banking.app.commit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Each caller gets its own outcome: from its group, from its own retry when the group
+ * fails, or a failure when the writer stops or the wait runs out. No caller is left waiting.
+ */
+class GroupCommitWriterTests {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    private GroupCommitWriter<String, String> writer;
+
+    @AfterEach
+    void stop() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        callers.shutdownNow();
+    }
+
+    @Test
+    void failedGroupIsRetriedItemByItem() throws Exception {
+        List<List<String>> groups = new ArrayList<>();
+        writer = writer(items -> {
+            synchronized (groups) {
+                groups.add(items);
+            }
+            if (items.contains("bad")) {
+                throw new IllegalStateException("constraint violated by bad");
+            }
+            return items.stream().map(item -> GroupCommitWriter.Result.success(item.toUpperCase())).toList();
+        }, 200, 10_000);
+
+        Future<String> first = callers.submit(() -> writer.submit("a"));
+        Future<String> bad = callers.submit(() -> writer.submit("bad"));
+        Future<String> last = callers.submit(() -> writer.submit("b"));
+
+        assertEquals("A", first.get(5, TimeUnit.SECONDS));
+        assertEquals("B", last.get(5, TimeUnit.SECONDS));
+        Exception failure = assertThrows(Exception.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals("constraint violated by bad", failure.getCause().getMessage());
+        assertEquals(3, groups.get(0).size(), "items should have been written as one group first");
+        assertEquals(4, groups.size());
+    }
+
+    @Test
+    void queuedItemsFailOnShutdownAndLaterOnesAreRefused() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer = writer(items -> {
+            writing.countDown();
+            await(release);
+            return items.stream().map(GroupCommitWriter.Result::success).toList();
+        }, 0, 10_000);
+
+        Future<String> inFlight = callers.submit(() -> writer.submit("in flight"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Future<String> queued = callers.submit(() -> writer.submit("queued"));
+        waitUntilQueued();
+
+        Future<?> stopping = callers.submit(writer::shutdown);
+        Exception failure = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause().getMessage().contains("stopped before the operation was applied"));
+        release.countDown();
+        stopping.get(5, TimeUnit.SECONDS);
+
+        assertEquals("in flight", inFlight.get(5, TimeUnit.SECONDS));
+        RuntimeException refused = assertThrows(RuntimeException.class, () -> writer.submit("late"));
+        assertTrue(refused.getMessage().contains("is shut down"));
+    }
+
+    @Test
+    void waitIsBoundedAndUnwrittenItemIsDropped() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new ArrayList<>();
+        writer = writer(items -> {
+            writing.countDown();
+            await(release);
+            synchronized (written) {
+                written.addAll(items);
+            }
+            return items.stream().map(GroupCommitWriter.Result::success).toList();
+        }, 0, 200);
+
+        Future<String> slow = callers.submit(() -> writer.submit("slow"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        RuntimeException dropped = assertThrows(RuntimeException.class, () -> writer.submit("dropped"));
+        Exception unknown = assertThrows(Exception.class, () -> slow.get(5, TimeUnit.SECONDS));
+
+        assertTrue(dropped.getMessage().contains("was not applied"), dropped.getMessage());
+        assertTrue(unknown.getCause().getMessage().contains("may still be applied"));
+        release.countDown();
+        writer.shutdown();
+        assertEquals(List.of("slow"), written);
+    }
+
+    private GroupCommitWriter<String, String> writer(Function<List<String>, List<GroupCommitWriter.Result<String>>> write,
+                                                    long windowMillis, long timeoutMillis) {
+        return new GroupCommitWriter<>("test", write, windowMillis, 10, timeoutMillis, new SimpleMeterRegistry());
+    }
+
+    private void waitUntilQueued() throws InterruptedException {
+        // The committer is busy, so a submitted item stays in the queue; give the caller time to add it
+        Thread.sleep(100);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
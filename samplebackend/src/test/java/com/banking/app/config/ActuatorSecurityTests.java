@@ -0,0 +1,67 @@
+package com.banking.app.config;
+
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Probes are public; metrics, including the Prometheus scrape, need an ADMIN token unless
+ * {@code banking.metrics.public-scrape} is set.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ActuatorSecurityTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void probesNeedNoToken() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+        mockMvc.perform(get("/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void scrapeRejectsAnonymousAndCustomers() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", bearer(User.UserRole.CUSTOMER)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", bearer(User.UserRole.CUSTOMER)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void scrapeAllowsAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", bearer(User.UserRole.ADMIN)))
+                .andExpect(status().isOk());
+    }
+
+    private String bearer(User.UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Actuator");
+        user.setLastName(role.name());
+        user.setRole(role);
+        user = userRepository.save(user);
+        return "Bearer " + jwtUtils.generateToken(UserPrincipal.create(user));
+    }
+}
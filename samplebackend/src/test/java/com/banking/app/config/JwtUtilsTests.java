@@ -0,0 +1,126 @@
+package com.banking.app.config;
+
+import com.banking.app.service.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * The verified-token cache: a token seen before skips the parse until its {@code exp},
+ * the cache holds at most {@code jwt.cache-size} tokens, and a token differing from a
+ * cached one only after a shared prefix is still verified on its own.
+ */
+class JwtUtilsTests {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void createJwtUtils() {
+        jwtUtils = jwtUtils(86400000, 2);
+    }
+
+    @Test
+    void tokenSeenBeforeIsNotParsedAgain() {
+        String token = token(1L);
+
+        Claims first = jwtUtils.verifiedClaims(token);
+        Claims second = jwtUtils.verifiedClaims(token);
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(1, verifications("miss"));
+        assertEquals(1, verifications("hit"));
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() throws InterruptedException {
+        // exp has whole seconds, so this expires in two to three seconds
+        jwtUtils = jwtUtils(3000, 2);
+        String token = token(1L);
+        Date expiration = jwtUtils.verifiedClaims(token).getExpiration();
+
+        while (!new Date().after(expiration)) {
+            Thread.sleep(50);
+        }
+
+        assertNull(jwtUtils.verifiedClaims(token));
+        assertEquals(1, verifications("hit"));
+        assertEquals(0, cache().size());
+    }
+
+    @Test
+    void oldestTokenIsEvictedAtCacheSize() {
+        String first = token(1L);
+        String second = token(2L);
+        String third = token(3L);
+        jwtUtils.verifiedClaims(first);
+        jwtUtils.verifiedClaims(second);
+        jwtUtils.verifiedClaims(third);
+
+        assertEquals(2, cache().size());
+        jwtUtils.verifiedClaims(third);
+        assertEquals(1, verifications("hit"));
+        // Parsed again, and now evicts the second
+        assertNotNull(jwtUtils.verifiedClaims(first));
+        assertEquals(4, verifications("miss"));
+        assertEquals(2, cache().size());
+    }
+
+    @Test
+    void tamperedTokenSharingACachedPrefixIsRejected() {
+        String token = token(1L);
+        assertNotNull(jwtUtils.verifiedClaims(token));
+        String[] parts = token.split("\\.");
+        String[] otherParts = token(2L).split("\\.");
+        char[] signature = parts[2].toCharArray();
+        signature[signature.length / 2] = signature[signature.length / 2] == 'A' ? 'B' : 'A';
+
+        // Same header and payload, altered signature
+        assertNull(jwtUtils.verifiedClaims(parts[0] + "." + parts[1] + "." + new String(signature)));
+        // Same header, another user's payload under this token's signature
+        assertNull(jwtUtils.verifiedClaims(parts[0] + "." + otherParts[1] + "." + parts[2]));
+        // The cached token with bytes appended
+        assertNull(jwtUtils.verifiedClaims(token + "x"));
+        assertEquals(0, verifications("hit"));
+        assertEquals(1, cache().size());
+    }
+
+    private JwtUtils jwtUtils(int expirationMs, int cacheSize) {
+        meterRegistry = new SimpleMeterRegistry();
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", "jwtUtilsTestsSecret0123456789012345678901234567890");
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(utils, "cacheSize", cacheSize);
+        ReflectionTestUtils.setField(utils, "meterRegistry", meterRegistry);
+        utils.init();
+        return utils;
+    }
+
+    private String token(Long userId) {
+        return jwtUtils.generateToken(new UserPrincipal(userId, "Jwt", "Tests", "user" + userId + "@example.com",
+                null, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"))));
+    }
+
+    private long verifications(String cache) {
+        return meterRegistry.get("banking.jwt.verify").tag("cache", cache).timer().count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Claims> cache() {
+        return (Map<String, Claims>) ReflectionTestUtils.getField(jwtUtils, "verified");
+    }
+}
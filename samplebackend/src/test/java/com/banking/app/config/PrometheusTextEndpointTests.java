@@ -0,0 +1,231 @@
+package com.banking.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The scrape parsed back as the Prometheus text exposition format: every sample belongs to
+ * the family declared above it, histogram buckets are cumulative and end at {@code +Inf},
+ * and label values survive escaping.
+ */
+class PrometheusTextEndpointTests {
+
+    private static final Pattern TYPE = Pattern.compile("# TYPE ([a-zA-Z_:][a-zA-Z0-9_:]*) (counter|gauge|histogram|summary|untyped)");
+    private static final Pattern HELP = Pattern.compile("# HELP ([a-zA-Z_:][a-zA-Z0-9_:]*) .*");
+    private static final Pattern SAMPLE = Pattern.compile(
+            "([a-zA-Z_:][a-zA-Z0-9_:]*)(?:\\{(.*)})? (NaN|[+-]Inf|-?[0-9.]+(?:E-?[0-9]+)?)");
+    private static final Pattern LABEL = Pattern.compile("([a-zA-Z_][a-zA-Z0-9_]*)=\"((?:[^\"\\\\]|\\\\[\\\\\"n])*)\"(,|$)");
+
+    private MeterRegistry registry;
+
+    private PrometheusTextEndpoint endpoint;
+
+    @BeforeEach
+    void createEndpoint() {
+        registry = new SimpleMeterRegistry();
+        endpoint = new PrometheusTextEndpoint();
+        ReflectionTestUtils.setField(endpoint, "meterRegistry", registry);
+    }
+
+    @Test
+    void countersEndInTotal() {
+        Counter.builder("banking.logins").description("Logins").tag("outcome", "ok").register(registry).increment(3);
+
+        Map<String, Family> families = parse(endpoint.scrape());
+
+        Family family = families.get("banking_logins_total");
+        assertEquals("counter", family.type);
+        assertEquals(List.of(new Sample("banking_logins_total", Map.of("outcome", "ok"), 3.0)), family.samples);
+        assertFalse(families.containsKey("banking_logins"));
+    }
+
+    @Test
+    void timerWithBucketsIsHistogramInSeconds() {
+        Timer timer = Timer.builder("banking.verify")
+                .serviceLevelObjectives(Duration.ofMillis(10), Duration.ofMillis(100))
+                .register(registry);
+        timer.record(Duration.ofMillis(5));
+        timer.record(Duration.ofMillis(50));
+        timer.record(Duration.ofMillis(500));
+
+        Map<String, Family> families = parse(endpoint.scrape());
+
+        Family family = families.get("banking_verify_seconds");
+        assertEquals("histogram", family.type);
+        List<Sample> buckets = family.named("banking_verify_seconds_bucket");
+        assertEquals(List.of("0.01", "0.1", "+Inf"), buckets.stream().map(b -> b.labels.get("le")).toList());
+        assertEquals(List.of(1.0, 2.0, 3.0), buckets.stream().map(b -> b.value).toList());
+        assertEquals(3.0, family.named("banking_verify_seconds_count").get(0).value);
+        assertEquals(0.555, family.named("banking_verify_seconds_sum").get(0).value, 1e-9);
+        assertEquals("gauge", families.get("banking_verify_seconds_max").type);
+    }
+
+    @Test
+    void timerWithPercentilesIsSummary() {
+        Timer timer = Timer.builder("banking.service").publishPercentiles(0.5, 0.99).register(registry);
+        for (int i = 1; i <= 100; i++) {
+            timer.record(Duration.ofMillis(i));
+        }
+
+        Map<String, Family> families = parse(endpoint.scrape());
+
+        Family family = families.get("banking_service_seconds");
+        assertEquals("summary", family.type);
+        List<Sample> quantiles = family.named("banking_service_seconds");
+        assertEquals(List.of("0.5", "0.99"), quantiles.stream().map(q -> q.labels.get("quantile")).toList());
+        assertEquals(0.05, quantiles.get(0).value, 0.005);
+        assertEquals(100.0, family.named("banking_service_seconds_count").get(0).value);
+        // The registry's own per-percentile gauges are not repeated as families of their own
+        assertTrue(families.keySet().stream().noneMatch(name -> name.contains("percentile")), families::toString);
+    }
+
+    @Test
+    void distributionSummaryKeepsBaseUnit() {
+        DistributionSummary summary = DistributionSummary.builder("banking.payload").baseUnit("bytes")
+                .register(registry);
+        summary.record(100);
+        summary.record(300);
+
+        Family family = parse(endpoint.scrape()).get("banking_payload_bytes");
+
+        assertEquals("summary", family.type);
+        assertEquals(2.0, family.named("banking_payload_bytes_count").get(0).value);
+        assertEquals(400.0, family.named("banking_payload_bytes_sum").get(0).value);
+    }
+
+    @Test
+    void escapesLabelValuesAndHelp() {
+        String awkward = "a \"quoted\" \\ path\nnext line";
+        Gauge.builder("banking.queue", () -> 2).description("Queue\\depth\nper node")
+                .tag("name", awkward).register(registry);
+
+        String scrape = endpoint.scrape();
+
+        assertTrue(scrape.contains("# HELP banking_queue Queue\\\\depth\\nper node\n"), scrape);
+        Family family = parse(scrape).get("banking_queue");
+        assertEquals(List.of(new Sample("banking_queue", Map.of("name", awkward), 2.0)), family.samples);
+    }
+
+    @Test
+    void meterNamesSharingFamilyAreWrittenTogether() {
+        Counter.builder("banking.requests").tag("status", "200").register(registry).increment();
+        Counter.builder("banking.requests").tag("status", "500").register(registry).increment(2);
+
+        Family family = parse(endpoint.scrape()).get("banking_requests_total");
+
+        assertEquals(2, family.samples.size());
+    }
+
+    /**
+     * Parses the text format strictly: a family is declared once by its TYPE line, its
+     * samples follow it directly, and each sample name is the family name or, for
+     * histograms and summaries, one of its suffixed series.
+     */
+    private static Map<String, Family> parse(String text) {
+        assertTrue(text.endsWith("\n"), "scrape must end with a line feed");
+        Map<String, Family> families = new LinkedHashMap<>();
+        String currentName = null;
+        Family current = null;
+        for (String line : text.split("\n")) {
+            Matcher help = HELP.matcher(line);
+            if (help.matches()) {
+                assertFalse(families.containsKey(help.group(1)), () -> "HELP after samples: " + line);
+                continue;
+            }
+            Matcher type = TYPE.matcher(line);
+            if (type.matches()) {
+                assertFalse(families.containsKey(type.group(1)), () -> "family declared twice: " + line);
+                currentName = type.group(1);
+                current = new Family(type.group(2));
+                families.put(currentName, current);
+                continue;
+            }
+            Matcher sample = SAMPLE.matcher(line);
+            assertTrue(sample.matches(), () -> "not a sample: " + line);
+            assertNotNull(current, () -> "sample before any TYPE: " + line);
+            String familyName = currentName;
+            assertTrue(belongsTo(sample.group(1), familyName, current.type),
+                    () -> line + " does not belong to family " + familyName);
+            current.samples.add(new Sample(sample.group(1), labels(sample.group(2)), value(sample.group(3))));
+        }
+        return families;
+    }
+
+    private static boolean belongsTo(String sampleName, String familyName, String type) {
+        if (sampleName.equals(familyName)) {
+            return !type.equals("histogram");
+        }
+        List<String> suffixes = new ArrayList<>(List.of("_count", "_sum"));
+        if (type.equals("histogram")) {
+            suffixes.add("_bucket");
+        } else if (!type.equals("summary")) {
+            return false;
+        }
+        return suffixes.stream().anyMatch(suffix -> sampleName.equals(familyName + suffix));
+    }
+
+    private static Map<String, String> labels(String text) {
+        Map<String, String> labels = new HashMap<>();
+        if (text == null) {
+            return labels;
+        }
+        Matcher label = LABEL.matcher(text);
+        int end = 0;
+        while (label.find() && label.start() == end) {
+            String value = label.group(2).replace("\\n", "\n").replace("\\\"", "\"").replace("\\\\", "\\");
+            assertNull(labels.put(label.group(1), value), () -> "repeated label in " + text);
+            end = label.end();
+        }
+        assertEquals(text.length(), end, () -> "malformed labels: " + text);
+        return labels;
+    }
+
+    private static double value(String text) {
+        return switch (text) {
+            case "+Inf" -> Double.POSITIVE_INFINITY;
+            case "-Inf" -> Double.NEGATIVE_INFINITY;
+            default -> Double.parseDouble(text);
+        };
+    }
+
+    private static final class Family {
+
+        private final String type;
+
+        private final List<Sample> samples = new ArrayList<>();
+
+        private Family(String type) {
+            this.type = type;
+        }
+
+        private List<Sample> named(String name) {
+            return samples.stream().filter(sample -> sample.name.equals(name)).toList();
+        }
+
+        @Override
+        public String toString() {
+            return type + samples;
+        }
+    }
+
+    private record Sample(String name, Map<String, String> labels, double value) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.banking.app.controller;
+
+import com.banking.app.config.JwtUtils;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.AsyncReadService;
+import com.banking.app.service.UserPrincipal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The {@code /reads} endpoints: account reads answer through a completed future, history
+ * streams as NDJSON across several cursor pages, an error after the stream has started is
+ * its last line, and a read that cannot be queued is answered with 429.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "banking.reads.threads=1",
+    "banking.reads.queue-capacity=1"
+})
+class ReadControllerTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 5, 1, 9, 0);
+
+    private static final int HISTORY = 250;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AsyncReadService asyncReadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+
+    private Account account;
+
+    private Account other;
+
+    @BeforeEach
+    void createAccounts() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Read");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        token = "Bearer " + jwtUtils.generateToken(UserPrincipal.create(user));
+        account = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        other = accountService.createAccount(user.getId(), Account.AccountType.SAVINGS);
+    }
+
+    @Test
+    void accountReadsAnswerThroughTheFuture() throws Exception {
+        mockMvc.perform(asyncDispatch(started(get("/reads/accounts/my-accounts"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.length()").value(2));
+
+        mockMvc.perform(asyncDispatch(started(get("/reads/accounts/{accountNumber}", account.getAccountNumber()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Account found!"))
+                .andExpect(jsonPath("$.data.accountNumber").value(account.getAccountNumber()));
+
+        mockMvc.perform(asyncDispatch(started(get("/reads/accounts/{accountNumber}", "ACC-MISSING"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Account not found"));
+    }
+
+    @Test
+    void historyStreamsEveryPageNewestFirst() throws Exception {
+        List<String> transactionIds = new ArrayList<>();
+        for (int i = 0; i < HISTORY; i++) {
+            transactionIds.add(insert(i % 2 == 0 ? account : other, i % 2 == 0 ? other : account, START.plusMinutes(i)));
+        }
+        Collections.reverse(transactionIds);
+
+        // Three pages of at most 100
+        List<String> all = stream(account.getAccountNumber(), "limit", "1000");
+        List<String> limited = stream(account.getAccountNumber(), "limit", "150");
+
+        assertEquals(transactionIds, all.stream().map(this::transactionId).toList());
+        assertEquals(transactionIds.subList(0, 150), limited.stream().map(this::transactionId).toList());
+    }
+
+    @Test
+    void errorAfterTheStreamStartsIsTheLastLine() throws Exception {
+        List<String> lines = stream("ACC-MISSING");
+
+        assertEquals(1, lines.size());
+        JsonNode error = objectMapper.readTree(lines.get(0));
+        assertFalse(error.get("success").asBoolean());
+        assertEquals("Error: Account not found", error.get("message").asText());
+    }
+
+    @Test
+    void readThatCannotBeQueuedIsRejected() throws Exception {
+        // Occupy the one read thread and the one queue slot
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(asyncReadService, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            await(release);
+        });
+        running.await();
+        executor.execute(() -> await(release));
+        try {
+            mockMvc.perform(asyncDispatch(started(get("/reads/accounts/my-accounts"))))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.success").value(false));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private MvcResult started(MockHttpServletRequestBuilder builder) throws Exception {
+        return mockMvc.perform(builder.header("Authorization", token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private List<String> stream(String accountNumber, String... params) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/reads/transactions/account/{accountNumber}", accountNumber);
+        for (int i = 0; i < params.length; i += 2) {
+            builder.param(params[i], params[i + 1]);
+        }
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(started(builder)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        assertTrue(response.getContentType().startsWith("application/x-ndjson"), response.getContentType());
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        return body.isEmpty() ? List.of() : List.of(body.split("\n"));
+    }
+
+    private String transactionId(String line) {
+        try {
+            return objectMapper.readTree(line).get("transactionId").asText();
+        } catch (Exception e) {
+            throw new AssertionError(line, e);
+        }
+    }
+
+    private String insert(Account from, Account to, LocalDateTime createdAt) {
+        String transactionId = "TXN-READ-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, reference_number, transaction_type, amount, " +
+                        "description, status, created_at, updated_at, from_account_id, to_account_id, snapshotted) " +
+                        "VALUES (?, ?, 'TRANSFER', 1.00, 'read', 'COMPLETED', ?, ?, ?, ?, TRUE)",
+                transactionId, "REF-" + transactionId, Timestamp.valueOf(createdAt),
+                Timestamp.valueOf(createdAt), from.getId(), to.getId());
+        return transactionId;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.banking.app.controller;
+
+import com.banking.app.config.JwtUtils;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.UserPrincipal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The statement export end to end: CSV fields are quoted where needed and free text cannot
+ * be read as a spreadsheet formula, NDJSON is one object per line, gzip wraps the same
+ * bytes, and a single date bound leaves the other end of the range open.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class StatementExportTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 3, 1, 9, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+
+    private Account account;
+
+    private Account other;
+
+    private final List<String> transactionIds = new ArrayList<>();
+
+    @BeforeEach
+    void createHistory() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Export");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        token = "Bearer " + jwtUtils.generateToken(UserPrincipal.create(user));
+        account = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        other = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+
+        String[] descriptions = {"=SUM(A1:A2)", "hello, \"world\"", "line\nbreak", "+1", "-2", "@cmd", "plain"};
+        for (int i = 0; i < descriptions.length; i++) {
+            boolean outgoing = i % 2 == 1;
+            transactionIds.add(insert(outgoing ? account : other, outgoing ? other : account, descriptions[i],
+                    START.plusDays(i)));
+        }
+    }
+
+    @Test
+    void csvQuotesFieldsAndNeutralizesFormulas() throws Exception {
+        String csv = export("csv", false).getContentAsString(StandardCharsets.UTF_8);
+
+        assertTrue(csv.startsWith("transactionId,referenceNumber,transactionType,status,amount,description,"
+                + "fromAccountNumber,toAccountNumber,createdAt\n"), csv);
+        assertTrue(csv.contains(",12.50,'=SUM(A1:A2)," + other.getAccountNumber() + "," + account.getAccountNumber()
+                + ",2023-03-01T09:00\n"), csv);
+        assertTrue(csv.contains(",\"hello, \"\"world\"\"\"," + account.getAccountNumber() + ","), csv);
+        assertTrue(csv.contains(",\"line\nbreak\","), csv);
+        assertTrue(csv.contains(",'+1,"), csv);
+        assertTrue(csv.contains(",'-2,"), csv);
+        assertTrue(csv.contains(",'@cmd,"), csv);
+        assertTrue(csv.contains(",plain,"), csv);
+        // Oldest first
+        List<Integer> positions = transactionIds.stream().map(csv::indexOf).toList();
+        assertEquals(positions.stream().sorted().toList(), positions);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws Exception {
+        MockHttpServletResponse response = export("ndjson", false);
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals("application/x-ndjson", response.getContentType());
+        assertEquals(transactionIds.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode line = objectMapper.readTree(lines[i]);
+            assertEquals(transactionIds.get(i), line.get("transactionId").asText());
+            assertEquals(12.5, line.get("amount").asDouble());
+        }
+        assertEquals("line\nbreak", objectMapper.readTree(lines[2]).get("description").asText());
+    }
+
+    @Test
+    void gzipWrapsSameBytes() throws Exception {
+        byte[] plain = export("csv", false).getContentAsByteArray();
+        MockHttpServletResponse response = export("csv", true);
+
+        assertEquals("application/gzip", response.getContentType());
+        assertTrue(response.getHeader("Content-Disposition").contains(".csv.gz"));
+        assertEquals(new String(plain, StandardCharsets.UTF_8),
+                new String(gunzip(response.getContentAsByteArray()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void singleDateBoundLeavesOtherEndOpen() throws Exception {
+        String later = export("csv", false, "startDate", "2023-03-05T09:00:00").getContentAsString();
+        String earlier = export("csv", false, "endDate", "2023-03-02T09:00:00").getContentAsString();
+
+        assertEquals(List.of(false, false, false, false, true, true, true),
+                transactionIds.stream().map(later::contains).toList());
+        assertEquals(List.of(true, true, false, false, false, false, false),
+                transactionIds.stream().map(earlier::contains).toList());
+    }
+
+    private MockHttpServletResponse export(String format, boolean gzip, String... params) throws Exception {
+        var builder = get("/transactions/account/{accountNumber}/export", account.getAccountNumber())
+                .header("Authorization", token)
+                .param("format", format)
+                .param("gzip", String.valueOf(gzip));
+        for (int i = 0; i < params.length; i += 2) {
+            builder.param(params[i], params[i + 1]);
+        }
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+
+    private String insert(Account from, Account to, String description, LocalDateTime createdAt) {
+        String transactionId = "TXN-EXPORT-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, reference_number, transaction_type, amount, " +
+                        "description, status, created_at, updated_at, from_account_id, to_account_id, snapshotted) " +
+                        "VALUES (?, ?, 'TRANSFER', 12.50, ?, 'COMPLETED', ?, ?, ?, ?, TRUE)",
+                transactionId, "REF-" + transactionId, description, Timestamp.valueOf(createdAt),
+                Timestamp.valueOf(createdAt), from.getId(), to.getId());
+        return transactionId;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.banking.app.controller;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.TransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The long poll on an asynchronous transfer, through the security filters: the request is
+ * authorized by its token, and the dispatch that writes the deferred result must not be
+ * rejected for carrying none.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class TransactionAwaitTests {
+
+    private static final String PASSWORD = "await-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    private String token;
+
+    private Account from;
+
+    private Account to;
+
+    @BeforeEach
+    void signIn() throws Exception {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setFirstName("Await");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        from = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        to = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        transactionService.deposit(from.getAccountNumber(), new BigDecimal("100"), "seed");
+
+        MvcResult signin = mockMvc.perform(post("/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "email", user.getEmail(), "password", PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readTree(signin.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    @Test
+    void awaitResolvesAsynchronousTransfer() throws Exception {
+        MvcResult transfer = mockMvc.perform(post("/transactions/transfer")
+                        .header("Authorization", "Bearer " + token)
+                        .param("fromAccountNumber", from.getAccountNumber())
+                        .param("toAccountNumber", to.getAccountNumber())
+                        .param("amount", "40")
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        JsonNode accepted = objectMapper.readTree(transfer.getResponse().getContentAsString());
+        String transactionId = accepted.get("data").get("transactionId").asText();
+
+        MvcResult await = mockMvc.perform(get("/transactions/" + transactionId + "/await")
+                        .header("Authorization", "Bearer " + token)
+                        .param("timeoutMs", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(await))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.transactionId").value(transactionId))
+                .andExpect(jsonPath("$.data.status").value("COMPLETED"));
+    }
+
+    @Test
+    void awaitStillRequiresToken() throws Exception {
+        mockMvc.perform(get("/transactions/TXN-UNKNOWN/await"))
+                .andExpect(status().is4xxClientError());
+    }
+}
@@ -0,0 +1,274 @@
+package com.banking.app.controller;
+
+import com.banking.app.config.JwtUtils;
+import com.banking.app.dto.BatchTransactionItem;
+import com.banking.app.dto.BatchTransactionRequest;
+import com.banking.app.dto.BatchTransactionResult;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.TransactionJdbcRepository;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.TransactionService;
+import com.banking.app.service.UserPrincipal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code POST /transactions/batch} against H2. Each item gets its own result, later items
+ * see the balances earlier ones left, the rows go in as one JDBC batch, a statement that
+ * fails rolls the whole batch back, and batches locking the same accounts in opposite
+ * item order do not deadlock.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "banking.batch.jdbc-batch-size=2")
+class TransactionBatchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionJdbcRepository transactionJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String token;
+
+    private Long userId;
+
+    @BeforeEach
+    void signIn() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Batch");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        userId = user.getId();
+        token = "Bearer " + jwtUtils.generateToken(UserPrincipal.create(user));
+    }
+
+    @Test
+    void mixedBatchReportsEachItemAndWritesOneJdbcBatch() throws Exception {
+        String a = account("100");
+        String b = account("0");
+        String c = account("0");
+        TransactionJdbcRepository jdbc = Mockito.mock(TransactionJdbcRepository.class,
+                AdditionalAnswers.delegatesTo(transactionJdbcRepository));
+
+        JsonNode response = withJdbcRepository(jdbc, () -> batch(
+                deposit(a, "50"),
+                transfer(a, b, "120"),
+                withdrawal(c, "10"),
+                // Sees the credit the second item made
+                transfer(b, c, "120"),
+                transfer(a, "ACC-MISSING", "1"),
+                withdrawal(a, "30")));
+
+        assertEquals("Batch processed: 4 completed, 2 failed", response.path("message").asText());
+        JsonNode results = response.path("data");
+        boolean[] expected = {true, true, false, true, false, true};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(i, results.get(i).path("index").asInt());
+            assertEquals(expected[i], results.get(i).path("success").asBoolean(), results.get(i).toString());
+        }
+        assertEquals("Insufficient balance", results.get(2).path("message").asText());
+        assertEquals("Destination account not found", results.get(4).path("message").asText());
+        assertBalance(a, "0");
+        assertBalance(b, "0");
+        assertBalance(c, "120");
+
+        // The four completed items are inserted in one call, in JDBC batches of two
+        ArgumentCaptor<List<Transaction>> inserted = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jdbc).insertAll(inserted.capture(), Mockito.eq(2));
+        Mockito.verify(jdbc, Mockito.times(1)).insertAll(anyList(), anyInt());
+        assertEquals(4, inserted.getValue().size());
+        for (int i : new int[] {0, 1, 3, 5}) {
+            String transactionId = results.get(i).path("transactionId").asText();
+            Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT id, status, reference_number FROM transactions WHERE transaction_id = ?", transactionId);
+            assertNotNull(row.get("ID"));
+            assertEquals("COMPLETED", row.get("STATUS"));
+            assertEquals(results.get(i).path("referenceNumber").asText(), row.get("REFERENCE_NUMBER"));
+        }
+    }
+
+    @Test
+    void batchWhereEveryItemFailsChangesNothing() throws Exception {
+        String a = account("10");
+        String b = account("0");
+
+        JsonNode response = batch(transfer(a, b, "11"), withdrawal(b, "1"));
+
+        assertEquals("Batch processed: 0 completed, 2 failed", response.path("message").asText());
+        assertBalance(a, "10");
+        assertBalance(b, "0");
+        assertEquals(0, rowsFor(b));
+    }
+
+    @Test
+    void failedStatementRollsBackWholeBatch() throws Exception {
+        String a = account("100");
+        String b = account("0");
+        TransactionJdbcRepository failing = Mockito.mock(TransactionJdbcRepository.class);
+        Mockito.doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(failing).insertAll(anyList(), anyInt());
+        BatchTransactionRequest request = new BatchTransactionRequest(List.of(
+                transfer(a, b, "40"), deposit(b, "5"), withdrawal(a, "10")));
+
+        withJdbcRepository(failing, () -> {
+            mockMvc.perform(post("/transactions/batch").header("Authorization", token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+            return null;
+        });
+
+        assertBalance(a, "100");
+        assertBalance(b, "0");
+        assertEquals(0, rowsFor(b));
+    }
+
+    @Test
+    void opposingBatchesDoNotDeadlock() throws Exception {
+        String x = account("1000");
+        String y = account("1000");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<BatchTransactionResult>>> batches = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                // Half the batches name y first, so item order would lock y before x
+                List<BatchTransactionItem> items = i % 2 == 0
+                        ? List.of(transfer(x, y, "1"), transfer(y, x, "2"))
+                        : List.of(transfer(y, x, "2"), transfer(x, y, "1"));
+                batches.add(executor.submit(() -> transactionService.processBatch(items)));
+            }
+            for (Future<List<BatchTransactionResult>> batch : batches) {
+                batch.get().forEach(result -> assertTrue(result.isSuccess(), result.getMessage()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertBalance(x, "1080");
+        assertBalance(y, "920");
+    }
+
+    private JsonNode batch(BatchTransactionItem... items) throws Exception {
+        String body = mockMvc.perform(post("/transactions/batch").header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchTransactionRequest(List.of(items)))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode response = objectMapper.readTree(body);
+        assertTrue(response.path("success").asBoolean());
+        assertFalse(response.path("data").isEmpty());
+        return response;
+    }
+
+    // Swaps the service's JDBC writer for the duration of the call
+    private <T> T withJdbcRepository(TransactionJdbcRepository replacement, ThrowingSupplier<T> call) throws Exception {
+        Object target = AopTestUtils.getTargetObject(transactionService);
+        ReflectionTestUtils.setField(target, "transactionJdbcRepository", replacement);
+        try {
+            return call.get();
+        } finally {
+            ReflectionTestUtils.setField(target, "transactionJdbcRepository", transactionJdbcRepository);
+        }
+    }
+
+    private String account(String balance) {
+        Account account = accountService.createAccount(userId, Account.AccountType.SALARY);
+        if (new BigDecimal(balance).signum() > 0) {
+            transactionService.deposit(account.getAccountNumber(), new BigDecimal(balance), "seed");
+        }
+        return account.getAccountNumber();
+    }
+
+    private void assertBalance(String accountNumber, String expected) {
+        BigDecimal balance = accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance();
+        assertEquals(0, new BigDecimal(expected).compareTo(balance), accountNumber + " balance " + balance);
+    }
+
+    private int rowsFor(String accountNumber) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions t JOIN accounts a " +
+                "ON a.id = t.from_account_id OR a.id = t.to_account_id WHERE a.account_number = ?",
+                Integer.class, accountNumber);
+    }
+
+    private static BatchTransactionItem transfer(String from, String to, String amount) {
+        return new BatchTransactionItem(BatchTransactionItem.Operation.TRANSFER, from, to, null,
+                new BigDecimal(amount), "batch");
+    }
+
+    private static BatchTransactionItem deposit(String accountNumber, String amount) {
+        return new BatchTransactionItem(BatchTransactionItem.Operation.DEPOSIT, null, null, accountNumber,
+                new BigDecimal(amount), "batch");
+    }
+
+    private static BatchTransactionItem withdrawal(String accountNumber, String amount) {
+        return new BatchTransactionItem(BatchTransactionItem.Operation.WITHDRAWAL, null, null, accountNumber,
+                new BigDecimal(amount), "batch");
+    }
+
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
@@ -0,0 +1,93 @@
+package com.banking.app.id;
+
+import com.banking.app.repository.NumberBlockRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Threads that drain blocks together get every number exactly once, and allocators on
+ * the same sequence (as on two instances) reserve disjoint blocks.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class NumberBlockAllocatorTests {
+
+    private static final int BLOCK_SIZE = 10;
+
+    @Autowired
+    private NumberBlockRepository numberBlockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void refillsAcrossThreadsWithoutDuplicatesOrGaps() throws Exception {
+        NumberBlockAllocator allocator = allocator(UUID.randomUUID().toString().substring(0, 8));
+        Set<Long> numbers = ConcurrentHashMap.newKeySet();
+
+        drain(8, 500, () -> assertTrue(numbers.add(allocator.next()), "number handed out twice"));
+
+        // 4000 numbers fill 400 whole blocks, reserved one after the other from 1
+        TreeSet<Long> sorted = new TreeSet<>(numbers);
+        assertEquals(4000, sorted.size());
+        assertEquals(1, sorted.first());
+        assertEquals(4000, sorted.last());
+    }
+
+    @Test
+    void allocatorsSharingASequenceGetDisjointBlocks() throws Exception {
+        String sequence = UUID.randomUUID().toString().substring(0, 8);
+        NumberBlockAllocator first = allocator(sequence);
+        NumberBlockAllocator second = allocator(sequence);
+        Set<Long> numbers = ConcurrentHashMap.newKeySet();
+
+        drain(8, 250, () -> {
+            assertTrue(numbers.add(first.next()), "number handed out twice");
+            assertTrue(numbers.add(second.next()), "number handed out twice");
+        });
+
+        assertEquals(4000, numbers.size());
+        // Every block either allocator reserved is used up, so none is left with a gap
+        TreeSet<Long> sorted = new TreeSet<>(numbers);
+        assertEquals(4000, sorted.last() - sorted.first() + 1);
+    }
+
+    private NumberBlockAllocator allocator(String sequence) {
+        return new NumberBlockAllocator(sequence, BLOCK_SIZE, numberBlockRepository, transactionManager);
+    }
+
+    private static void drain(int threads, int perThread, Runnable take) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        take.run();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.banking.app.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ids stay unique and increasing under concurrent callers, when the clock steps back and
+ * when a millisecond runs out of sequence numbers.
+ */
+class SnowflakeIdGeneratorTests {
+
+    private static final long NOW = 1700000000000L;
+    private static final int NODE_ID = 42;
+
+    @Test
+    void concurrentCallersGetUniqueIncreasingIds() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(NODE_ID);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                callers.add(executor.submit(() -> {
+                    long previous = Long.MIN_VALUE;
+                    for (int i = 0; i < 20000; i++) {
+                        long id = generator.nextId();
+                        assertTrue(id > previous, "ids seen by one caller must increase");
+                        assertEquals(NODE_ID, node(id));
+                        ids.add(id);
+                        previous = id;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8 * 20000, ids.size());
+    }
+
+    @Test
+    void clockMovingBackwardsKeepsCountingOn() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(NODE_ID, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 5000);
+        long during = generator.nextId();
+        long next = generator.nextId();
+        clock.set(NOW + 1);
+        long after = generator.nextId();
+
+        assertTrue(during > before);
+        assertTrue(next > during);
+        assertTrue(after > next);
+        assertEquals(millis(before), millis(during));
+        assertEquals(millis(before) + 1, millis(after));
+    }
+
+    @Test
+    void exhaustedMillisecondBorrowsTheNext() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(NODE_ID, () -> NOW);
+        long first = generator.nextId();
+        assertEquals(0, sequence(first));
+        long previous = first;
+        for (int i = 1; i < 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(millis(first), millis(id));
+            previous = id;
+        }
+        assertEquals(4095, sequence(previous));
+
+        long overflow = generator.nextId();
+
+        assertTrue(overflow > previous);
+        assertEquals(millis(previous) + 1, millis(overflow));
+        assertEquals(NODE_ID, node(overflow));
+    }
+
+    @Test
+    void nodeIdMustFitTenBits() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    private static long millis(long id) {
+        return id >>> 22;
+    }
+
+    private static long node(long id) {
+        return (id >>> 12) & 0x3FF;
+    }
+
+    private static long sequence(long id) {
+        return id & 0xFFF;
+    }
+}
@@ -0,0 +1,295 @@
+package com.banking.app.ledger;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.LedgerCheckpoint;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.repository.AccountBalanceSlotRepository;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.LedgerCheckpointRepository;
+import com.banking.app.repository.TransactionRepository;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.HotAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The in-memory ledger against H2: replaying the journal left by a crash, skipping what the
+ * checkpoint says was already flushed, dead-lettering a batch that cannot be flushed,
+ * staying in step with balances written outside the engine, and never reporting a plain
+ * failure for an entry that was or may have been journaled.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "banking.ledger.mode=memory",
+    "banking.ledger.shards=2",
+    // Flushes only when a test calls flush()
+    "banking.ledger.flush-interval-ms=3600000",
+    "banking.ledger.journal-fsync=false",
+    "banking.ledger.max-flush-attempts=3"
+})
+class LedgerEngineRecoveryTests {
+
+    private static final int SHARDS = 2;
+
+    @TempDir
+    static Path journalDir;
+
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) {
+        registry.add("banking.ledger.journal-dir", () -> journalDir.toString());
+    }
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Ledger");
+        user.setLastName("Recovery");
+        user = userRepository.save(user);
+        // A shard fenced by an earlier test would reject every entry of this one
+        for (LedgerShard shard : (LedgerShard[]) ReflectionTestUtils.getField(ledgerEngine, "shards")) {
+            ReflectionTestUtils.setField(shard, "fenced", false);
+        }
+    }
+
+    @Test
+    void replaysJournalTailAfterCrashAndSkipsCheckpointedEntries() throws IOException {
+        Account account = newAccount();
+        int shardId = LedgerShard.shardIndex(account.getAccountNumber(), SHARDS);
+        // Stop cleanly, then leave the journal a crash would: three entries, the first
+        // already flushed according to the checkpoint, and a torn record after them
+        ledgerEngine.stop();
+        long flushed = checkpointRepository.findById(shardId).map(LedgerCheckpoint::getLastSequence).orElse(0L);
+        Path journal = journalDir.resolve("shard-" + shardId + ".journal");
+        Files.deleteIfExists(journal);
+        try (LedgerJournal writer = new LedgerJournal(journal, false)) {
+            for (int i = 1; i <= 3; i++) {
+                writer.append(deposit(flushed + i, account, new BigDecimal(i * 10)));
+            }
+        }
+        Files.write(journal, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        checkpointRepository.save(new LedgerCheckpoint(shardId, flushed + 1));
+
+        ledgerEngine.start();
+
+        assertTrue(transactionRepository.findByTransactionId(transactionId(flushed + 1, account)).isEmpty());
+        assertTrue(transactionRepository.findByTransactionId(transactionId(flushed + 2, account)).isPresent());
+        assertTrue(transactionRepository.findByTransactionId(transactionId(flushed + 3, account)).isPresent());
+        assertBigDecimal("50", accountRepository.findByAccountNumber(account.getAccountNumber()).orElseThrow().getBalance());
+        assertEquals(flushed + 3, checkpointRepository.findById(shardId).orElseThrow().getLastSequence());
+
+        // The restarted shard carries on after the replayed sequence
+        ledgerEngine.deposit(account.getAccountNumber(), BigDecimal.ONE, "after restart", "TXN-AFTER-" + account.getId());
+        ledgerEngine.flush();
+        assertEquals(flushed + 4, checkpointRepository.findById(shardId).orElseThrow().getLastSequence());
+        assertBigDecimal("51", accountRepository.findByAccountNumber(account.getAccountNumber()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void deadLettersBatchThatKeepsFailingAndFencesShard() {
+        Account doomed = newAccount();
+        Account neighbour = newAccountOnShard(LedgerShard.shardIndex(doomed.getAccountNumber(), SHARDS));
+        ledgerEngine.deposit(doomed.getAccountNumber(), BigDecimal.TEN, "lost", "TXN-DOOMED-" + doomed.getId());
+        // The transaction row can no longer reference its account, so every flush fails
+        jdbcTemplate.update("DELETE FROM accounts WHERE id = ?", doomed.getId());
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertFalse(ledgerEngine.isFenced(neighbour.getAccountNumber()));
+            ledgerEngine.flush();
+        }
+
+        assertTrue(ledgerEngine.isFenced(neighbour.getAccountNumber()));
+        Path deadLetter = journalDir.resolve("shard-" + LedgerShard.shardIndex(doomed.getAccountNumber(), SHARDS)
+                + ".dead-letter");
+        assertTrue(Files.exists(deadLetter));
+        assertTrue(assertDoesNotThrow(() -> LedgerJournal.read(deadLetter)).stream()
+                .anyMatch(entry -> entry.getTransactionId().equals("TXN-DOOMED-" + doomed.getId())));
+        RuntimeException rejected = assertThrows(RuntimeException.class, () -> ledgerEngine.deposit(
+                neighbour.getAccountNumber(), BigDecimal.ONE, "rejected", "TXN-REJECTED-" + neighbour.getId()));
+        assertTrue(rejected.getMessage().contains("fenced"));
+    }
+
+    @Test
+    void updateBalanceGoesThroughEngine() {
+        Account account = newAccount();
+        accountService.updateBalance(account.getAccountNumber(), new BigDecimal("25"));
+        accountService.updateBalance(account.getAccountNumber(), new BigDecimal("-5"));
+
+        assertBigDecimal("20", ledgerEngine.getBalance(account.getAccountNumber()).orElseThrow());
+        ledgerEngine.flush();
+        assertBigDecimal("20", accountRepository.findByAccountNumber(account.getAccountNumber()).orElseThrow().getBalance());
+        assertThrows(RuntimeException.class,
+                () -> accountService.updateBalance(account.getAccountNumber(), new BigDecimal("-21")));
+    }
+
+    @Test
+    void countsCreditsStillInHotBalanceSlots() {
+        Account account = newAccount();
+        hotAccountService.markHot(account.getAccountNumber(), 2);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> slotRepository.credit(account.getId(), 1, new BigDecimal("100")));
+
+        ledgerEngine.withdraw(account.getAccountNumber(), new BigDecimal("60"), "from slots", "TXN-SLOTS-" + account.getId());
+
+        assertBigDecimal("40", ledgerEngine.getBalance(account.getAccountNumber()).orElseThrow());
+        hotAccountService.unmarkHot(account.getAccountNumber());
+        ledgerEngine.flush();
+        assertBigDecimal("40", accountRepository.findByAccountNumber(account.getAccountNumber()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void timedOutCrossShardTransferStillCommitsBothLegs() throws Exception {
+        Account from = newAccount();
+        Account to = newAccountOnShard(1 - LedgerShard.shardIndex(from.getAccountNumber(), SHARDS));
+        ledgerEngine.deposit(from.getAccountNumber(), new BigDecimal("100"), "funding", "TXN-FUND-" + from.getId());
+        ledgerEngine.deposit(to.getAccountNumber(), BigDecimal.ONE, "loaded", "TXN-LOAD-" + to.getId());
+        ledgerEngine.flush();
+        CountDownLatch release = new CountDownLatch(1);
+        LedgerShard source = shard(from);
+        LedgerJournal journal = (LedgerJournal) ReflectionTestUtils.getField(source, "journal");
+        // Journals the entry only once the caller has given up waiting
+        ReflectionTestUtils.setField(source, "journal", new LedgerJournal(journalDir.resolve("slow.journal"), false) {
+            @Override
+            public void append(LedgerEntry entry) throws IOException {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.append(entry);
+            }
+        });
+        ReflectionTestUtils.setField(ledgerEngine, "operationTimeoutMs", 200L);
+        String transactionId = "TXN-SLOW-" + from.getId();
+        try {
+            LedgerEngine.OutcomeUnknownException unknown = assertThrows(LedgerEngine.OutcomeUnknownException.class,
+                    () -> ledgerEngine.transfer(from.getAccountNumber(), to.getAccountNumber(), new BigDecimal("30"),
+                            "slow", transactionId));
+            assertEquals(transactionId, unknown.getTransactionId());
+            release.countDown();
+
+            ReflectionTestUtils.setField(ledgerEngine, "operationTimeoutMs", 5000L);
+            assertBigDecimal("70", ledgerEngine.getBalance(from.getAccountNumber()).orElseThrow());
+            assertBigDecimal("31", ledgerEngine.getBalance(to.getAccountNumber()).orElseThrow());
+            ledgerEngine.flush();
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.setField(ledgerEngine, "operationTimeoutMs", 5000L);
+            ReflectionTestUtils.setField(source, "journal", journal);
+        }
+        assertTrue(transactionRepository.findByTransactionId(transactionId).isPresent());
+        assertBigDecimal("70", accountRepository.findByAccountNumber(from.getAccountNumber()).orElseThrow().getBalance());
+        assertBigDecimal("31", accountRepository.findByAccountNumber(to.getAccountNumber()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void failedJournalWriteIsUnknownOutcomeAndFencesShard() throws Exception {
+        Account account = newAccount();
+        ledgerEngine.deposit(account.getAccountNumber(), BigDecimal.TEN, "loaded", "TXN-LOADED-" + account.getId());
+        LedgerShard shard = shard(account);
+        LedgerJournal journal = (LedgerJournal) ReflectionTestUtils.getField(shard, "journal");
+        ReflectionTestUtils.setField(shard, "journal", new LedgerJournal(journalDir.resolve("broken.journal"), false) {
+            @Override
+            public void append(LedgerEntry entry) throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+        try {
+            assertThrows(LedgerEngine.OutcomeUnknownException.class, () -> ledgerEngine.withdraw(
+                    account.getAccountNumber(), BigDecimal.ONE, "broken", "TXN-BROKEN-" + account.getId()));
+            assertTrue(ledgerEngine.isFenced(account.getAccountNumber()));
+        } finally {
+            ReflectionTestUtils.setField(shard, "journal", journal);
+        }
+    }
+
+    private LedgerShard shard(Account account) {
+        LedgerShard[] shards = (LedgerShard[]) ReflectionTestUtils.getField(ledgerEngine, "shards");
+        return shards[LedgerShard.shardIndex(account.getAccountNumber(), SHARDS)];
+    }
+
+    private Account newAccount() {
+        // No minimum balance, so the balance is the whole debit limit
+        return accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+    }
+
+    private Account newAccountOnShard(int shardId) {
+        Account account = newAccount();
+        while (LedgerShard.shardIndex(account.getAccountNumber(), SHARDS) != shardId) {
+            account = newAccount();
+        }
+        return account;
+    }
+
+    private static LedgerEntry deposit(long sequence, Account account, BigDecimal amount) {
+        return new LedgerEntry(sequence, transactionId(sequence, account), "REF-" + account.getId() + "-" + sequence,
+                Transaction.TransactionType.DEPOSIT, null, null, account.getId(), account.getAccountNumber(),
+                amount, "journaled", System.currentTimeMillis());
+    }
+
+    private static String transactionId(long sequence, Account account) {
+        return "TXN-REPLAY-" + account.getId() + "-" + sequence;
+    }
+
+    private static void assertBigDecimal(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.app.ledger;
+
+import com.banking.app.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reading a journal back after a crash: intact entries are returned in order, and a torn
+ * or damaged record ends the journal like the end of the file.
+ */
+class LedgerJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAppendedEntries() throws IOException {
+        Path path = journalWith(3);
+
+        List<LedgerEntry> entries = LedgerJournal.read(path);
+
+        assertEquals(List.of(entry(1), entry(2), entry(3)), entries);
+    }
+
+    @Test
+    void ignoresRecordTornByCrash() throws IOException {
+        Path path = journalWith(3);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        assertEquals(List.of(entry(1), entry(2)), LedgerJournal.read(path));
+    }
+
+    @Test
+    void stopsAtRecordFailingItsChecksum() throws IOException {
+        Path path = journalWith(3);
+        long size = Files.size(path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // A byte inside the last record's description
+            file.seek(size - 12);
+            int value = file.read();
+            file.seek(size - 12);
+            file.write(value ^ 0xFF);
+        }
+
+        assertEquals(List.of(entry(1), entry(2)), LedgerJournal.read(path));
+    }
+
+    @Test
+    void stopsAtGarbageTail() throws IOException {
+        Path path = journalWith(2);
+        Files.write(path, new byte[] {0x7F, 0x12, 0x00, 0x01, 0x42, 0x42}, StandardOpenOption.APPEND);
+
+        assertEquals(List.of(entry(1), entry(2)), LedgerJournal.read(path));
+    }
+
+    @Test
+    void rewriteKeepsOnlyGivenEntries() throws IOException {
+        Path path = directory.resolve("shard-0.journal");
+        try (LedgerJournal journal = new LedgerJournal(path, false)) {
+            journal.append(entry(1));
+            journal.append(entry(2));
+            journal.rewrite(List.of(entry(2)));
+            journal.append(entry(3));
+        }
+
+        assertEquals(List.of(entry(2), entry(3)), LedgerJournal.read(path));
+    }
+
+    private Path journalWith(int entries) throws IOException {
+        Path path = directory.resolve("shard-0.journal");
+        try (LedgerJournal journal = new LedgerJournal(path, false)) {
+            for (int i = 1; i <= entries; i++) {
+                journal.append(entry(i));
+            }
+        }
+        return path;
+    }
+
+    private static LedgerEntry entry(long sequence) {
+        return new LedgerEntry(sequence, "TXN" + sequence, "REF" + sequence, Transaction.TransactionType.TRANSFER,
+                1L, "ACC1", 2L, "ACC2", new BigDecimal("10.50"), "entry " + sequence, 1_700_000_000_000L + sequence);
+    }
+}
@@ -0,0 +1,254 @@
+package com.banking.app.repository;
+
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.service.AccountService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reads a fixed history through the UNION ALL queries and checks every page against the
+ * whole history sorted in Java. The history mixes transfers both ways, deposits,
+ * withdrawals, a transfer to the same account, other accounts' rows, runs of rows created
+ * at the same instant, and rows written before {@code created_at} was recorded.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ActiveProfiles("h2")
+class TransactionHistoryRepositoryTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long accountId;
+
+    // The account's history, newest first, as the repository should return it
+    private List<Row> expected;
+
+    @BeforeAll
+    void createHistory() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("History");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        Account account = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        Account other = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        Account unrelated = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        accountId = account.getId();
+
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            // Runs of three rows share an instant
+            LocalDateTime createdAt = START.plusMinutes(i / 3);
+            Long from = switch (i % 5) {
+                case 0 -> account.getId();
+                case 1 -> other.getId();
+                case 2 -> null;
+                case 3 -> account.getId();
+                default -> account.getId();
+            };
+            Long to = switch (i % 5) {
+                case 0 -> other.getId();
+                case 1 -> account.getId();
+                case 2 -> account.getId();
+                case 3 -> null;
+                default -> account.getId();
+            };
+            rows.add(insert(createdAt, from, to));
+            insert(createdAt, other.getId(), unrelated.getId());
+        }
+        for (int i = 0; i < 4; i++) {
+            rows.add(insert(null, i % 2 == 0 ? account.getId() : null, i % 2 == 0 ? null : account.getId()));
+        }
+        expected = rows.stream().sorted(NEWEST_FIRST).toList();
+    }
+
+    @Test
+    void wholeHistoryIsNewestFirstWithUndatedRowsLast() {
+        assertEquals(ids(expected), responseIds(transactionHistoryRepository.findAll(accountId)));
+    }
+
+    @Test
+    void everyPageAtEverySizeMatchesWholeHistory() {
+        for (int size : new int[] {1, 2, 5, 7, 50}) {
+            List<Long> paged = new ArrayList<>();
+            for (int page = 0; page * size < expected.size(); page++) {
+                Page<TransactionResponse> result = transactionHistoryRepository.findPage(accountId,
+                        PageRequest.of(page, size));
+                assertEquals(expected.size(), result.getTotalElements());
+                List<Long> ids = responseIds(result.getContent());
+                int from = page * size;
+                assertEquals(ids(expected.subList(from, Math.min(from + size, expected.size()))), ids,
+                        "page " + page + " of size " + size);
+                paged.addAll(ids);
+            }
+            assertEquals(ids(expected), paged, "pages of size " + size);
+        }
+    }
+
+    @Test
+    void samePageReadAgainAfterOtherPagesIsUnchanged() {
+        PageRequest first = PageRequest.of(1, 4);
+        List<Long> before = responseIds(transactionHistoryRepository.findPage(accountId, first).getContent());
+        transactionHistoryRepository.findPage(accountId, PageRequest.of(3, 4));
+        transactionHistoryRepository.findPage(accountId, PageRequest.of(2, 9));
+
+        assertEquals(before, responseIds(transactionHistoryRepository.findPage(accountId, first).getContent()));
+        assertEquals(ids(expected.subList(4, 8)), before);
+    }
+
+    @Test
+    void olderThanWalksThroughTiesAndUndatedRows() {
+        List<Long> walked = new ArrayList<>();
+        LocalDateTime createdAt = null;
+        Long id = null;
+        while (true) {
+            List<TransactionResponse> page = transactionHistoryRepository.findOlderThan(accountId, null, null,
+                    createdAt, id, 4);
+            if (page.isEmpty()) {
+                break;
+            }
+            walked.addAll(responseIds(page));
+            TransactionResponse last = page.get(page.size() - 1);
+            createdAt = last.getCreatedAt();
+            id = last.getId();
+        }
+        assertEquals(ids(expected), walked);
+    }
+
+    @Test
+    void newerThanWalksBackFromOldestToNewest() {
+        Row oldest = expected.get(expected.size() - 1);
+        List<Long> walked = new ArrayList<>();
+        LocalDateTime createdAt = oldest.createdAt();
+        Long id = oldest.id();
+        while (true) {
+            List<TransactionResponse> page = transactionHistoryRepository.findNewerThan(accountId, null, null,
+                    createdAt, id, 4);
+            if (page.isEmpty()) {
+                break;
+            }
+            walked.addAll(responseIds(page));
+            TransactionResponse last = page.get(page.size() - 1);
+            createdAt = last.getCreatedAt();
+            id = last.getId();
+        }
+        List<Long> newerThanOldest = new ArrayList<>(ids(expected.subList(0, expected.size() - 1)));
+        Collections.reverse(newerThanOldest);
+        assertEquals(newerThanOldest, walked);
+    }
+
+    @Test
+    void seekingEitherWayFromEveryRowSplitsHistoryThere() {
+        for (int i = 0; i < expected.size(); i++) {
+            Row row = expected.get(i);
+            List<Long> newer = new ArrayList<>(ids(expected.subList(0, i)));
+            Collections.reverse(newer);
+            assertEquals(ids(expected.subList(i + 1, expected.size())), responseIds(transactionHistoryRepository
+                    .findOlderThan(accountId, null, null, row.createdAt(), row.id(), expected.size())), "older than " + row);
+            assertEquals(newer, responseIds(transactionHistoryRepository
+                    .findNewerThan(accountId, null, null, row.createdAt(), row.id(), expected.size())), "newer than " + row);
+        }
+    }
+
+    @Test
+    void betweenDatesWalksOnlyRowsInRangeBothWays() {
+        // Both bounds fall on an instant shared by three rows, and the range holds no undated rows
+        LocalDateTime startDate = START.plusMinutes(3);
+        LocalDateTime endDate = START.plusMinutes(9);
+        List<Row> inRange = expected.stream()
+                .filter(row -> row.createdAt() != null)
+                .filter(row -> !row.createdAt().isBefore(startDate) && !row.createdAt().isAfter(endDate))
+                .toList();
+        assertEquals(21, inRange.size());
+        assertEquals(ids(inRange), responseIds(transactionHistoryRepository.findBetween(accountId, startDate, endDate)));
+
+        List<Long> older = new ArrayList<>();
+        TransactionResponse position = null;
+        while (true) {
+            List<TransactionResponse> page = transactionHistoryRepository.findOlderThan(accountId, startDate, endDate,
+                    position != null ? position.getCreatedAt() : null, position != null ? position.getId() : null, 5);
+            if (page.isEmpty()) {
+                break;
+            }
+            older.addAll(responseIds(page));
+            position = page.get(page.size() - 1);
+        }
+        assertEquals(ids(inRange), older);
+
+        List<Long> newer = new ArrayList<>();
+        while (true) {
+            List<TransactionResponse> page = transactionHistoryRepository.findNewerThan(accountId, startDate, endDate,
+                    position.getCreatedAt(), position.getId(), 5);
+            if (page.isEmpty()) {
+                break;
+            }
+            newer.addAll(responseIds(page));
+            position = page.get(page.size() - 1);
+        }
+        List<Long> expectedNewer = new ArrayList<>(ids(inRange.subList(0, inRange.size() - 1)));
+        Collections.reverse(expectedNewer);
+        assertEquals(expectedNewer, newer);
+    }
+
+    private Row insert(LocalDateTime createdAt, Long from, Long to) {
+        String transactionId = "TXN-HISTORY-" + UUID.randomUUID();
+        Timestamp timestamp = createdAt != null ? Timestamp.valueOf(createdAt) : null;
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, transaction_type, amount, status, " +
+                        "created_at, updated_at, from_account_id, to_account_id, snapshotted) " +
+                        "VALUES (?, ?, 10, 'COMPLETED', ?, ?, ?, ?, TRUE)",
+                transactionId, from != null && to != null ? "TRANSFER" : from != null ? "WITHDRAWAL" : "DEPOSIT",
+                timestamp, timestamp, from, to);
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM transactions WHERE transaction_id = ?",
+                Long.class, transactionId);
+        return new Row(id, createdAt);
+    }
+
+    private static List<Long> ids(List<Row> rows) {
+        return rows.stream().map(Row::id).toList();
+    }
+
+    private static List<Long> responseIds(List<TransactionResponse> rows) {
+        return rows.stream().map(TransactionResponse::getId).toList();
+    }
+
+    // Undated rows are the oldest
+    private static final Comparator<Row> NEWEST_FIRST = Comparator
+            .comparing(Row::createdAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Row::id)
+            .reversed();
+
+    private record Row(Long id, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.banking.app.repository;
+
+import com.banking.app.entity.Account;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.service.AccountService;
+import com.banking.app.service.StatementExportService;
+import com.banking.app.service.TransactionService;
+import com.banking.app.support.StatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Guards the number of SQL statements behind the transaction history reads. The account
+ * under test trades with many counterparties, so loading their accounts row by row (N+1)
+ * shows up as a count that grows with the page.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.banking.app.support.StatementCounter",
+    // Counts the account lookup on every request
+    "banking.account-cache.enabled=false"
+})
+class TransactionQueryCountTests {
+
+    private static final int COUNTERPARTIES = 20;
+    private static final int HISTORY = 60;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private String accountNumber;
+
+    @BeforeAll
+    void seed() {
+        User owner = userRepository.save(user("owner@example.com"));
+        User other = userRepository.save(user("other@example.com"));
+        Account account = accountService.createAccount(owner.getId(), Account.AccountType.CURRENT);
+        List<Account> counterparties = new ArrayList<>();
+        for (int i = 0; i < COUNTERPARTIES; i++) {
+            counterparties.add(accountService.createAccount(other.getId(), Account.AccountType.CURRENT));
+        }
+        transactionService.deposit(account.getAccountNumber(), new BigDecimal("10000"), "seed");
+        for (int i = 0; i < HISTORY; i++) {
+            transactionService.transferMoney(account.getAccountNumber(),
+                    counterparties.get(i % COUNTERPARTIES).getAccountNumber(), BigDecimal.ONE, "history");
+        }
+        accountNumber = account.getAccountNumber();
+    }
+
+    @Test
+    void historyPageIsOneQueryPlusCountWhateverItsSize() {
+        // Account lookup, page, count
+        assertEquals(3, statements(() -> transactionService.getAccountTransactionsPaginated(accountNumber,
+                PageRequest.of(0, 10))));
+        assertEquals(3, statements(() -> transactionService.getAccountTransactionsPaginated(accountNumber,
+                PageRequest.of(0, 50))));
+    }
+
+    @Test
+    void cursorPageIsOneQuery() {
+        // Account lookup, page
+        assertEquals(2, statements(() -> transactionService.getAccountTransactionsByCursor(accountNumber,
+                null, null, null, 50)));
+    }
+
+    @Test
+    void exportLoadsAccountsWithTheRows() {
+        assertEquals(2, statements(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                statementExportService.export(statementExportService.requireAccount(accountNumber),
+                        null, null, StatementExportService.Format.CSV, out);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return out.toByteArray();
+        }));
+    }
+
+    @Test
+    void transactionListsLoadAccountsWithTheRows() {
+        assertEquals(1, statements(() -> {
+            List<Transaction> transfers = transactionRepository.findByTransactionType(
+                    Transaction.TransactionType.TRANSFER);
+            assertFalse(transfers.isEmpty());
+            return transfers.stream()
+                    .map(transfer -> transfer.getFromAccount().getAccountNumber()
+                            + transfer.getToAccount().getAccountNumber())
+                    .toList();
+        }));
+    }
+
+    // Counts inside one transaction, like a request with open-in-view, including whatever
+    // serializing the result loads lazily
+    private long statements(Supplier<Object> request) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            entityManager.clear();
+            StatementCounter.reset();
+            try {
+                objectMapper.writeValueAsBytes(request.get());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return StatementCounter.count();
+        });
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setFirstName("Query");
+        user.setLastName("Count");
+        return user;
+    }
+}
@@ -0,0 +1,277 @@
+package com.banking.app.service;
+
+import com.banking.app.archive.TransactionArchive;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.DailyBalance;
+import com.banking.app.entity.MonthlyStatement;
+import com.banking.app.entity.Transaction;
+import com.banking.app.entity.User;
+import com.banking.app.repository.DailyBalanceRepository;
+import com.banking.app.repository.TransactionRepository;
+import com.banking.app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Daily balance snapshots against H2: the rollup folds completed rows and only marks the
+ * others, a late row for a past day carries its day's closing balance forward, legacy rows
+ * are backfilled once, {@code balanceAt} adds the rows of the day up to the instant, archived
+ * ones included, and a closed month's statement is stored once and then left alone.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+// Rolls up only when a test asks for it
+@TestPropertySource(properties = "banking.snapshots.rollup-interval-ms=3600000")
+class BalanceSnapshotServiceTests {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("banking.archive.directory", () -> archiveDir.toString());
+    }
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailyBalanceRepository dailyBalanceRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Account account;
+
+    @BeforeEach
+    void createAccount() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Snapshot");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        account = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+    }
+
+    @Test
+    void rollupFoldsCompletedRowsAndOnlyMarksTheRest() {
+        LocalDate day = LocalDate.of(2021, 5, 10);
+        credit(100, day.atTime(9, 0), false);
+        debit(30, day.atTime(10, 0), false);
+        Long failed = insert(null, account.getId(), 50, "FAILED", day.atTime(11, 0), false);
+        Long pending = insert(null, account.getId(), 70, "PENDING", day.atTime(12, 0), false);
+
+        rollUp();
+
+        assertDay(day, "100", "30", 2, "70");
+        assertEquals(Boolean.TRUE, snapshotted(failed));
+        assertEquals(Boolean.FALSE, snapshotted(pending));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> transactionRepository
+                .resolvePending(pending, Transaction.TransactionStatus.COMPLETED, null, LocalDateTime.now()));
+        rollUp();
+
+        assertDay(day, "170", "30", 3, "140");
+        assertEquals(Boolean.TRUE, snapshotted(pending));
+    }
+
+    @Test
+    void lateRowForPastDayCarriesClosingForward() {
+        LocalDate first = LocalDate.of(2021, 6, 1);
+        credit(100, first.atTime(9, 0), false);
+        debit(20, first.plusDays(2).atTime(9, 0), false);
+        rollUp();
+        assertDay(first.plusDays(2), "0", "20", 1, "80");
+
+        credit(50, first.plusDays(1).atTime(10, 0), false);
+        rollUp();
+
+        assertDay(first, "100", "0", 1, "100");
+        assertDay(first.plusDays(1), "50", "0", 1, "150");
+        assertDay(first.plusDays(2), "0", "20", 1, "130");
+        assertBigDecimal("130", balanceAt(first.plusDays(3).atStartOfDay()));
+    }
+
+    @Test
+    void legacyRowsAreBackfilledOnce() {
+        LocalDate first = LocalDate.of(2021, 7, 1);
+        credit(100, first.atTime(9, 0), null);
+        debit(40, first.plusDays(1).atTime(9, 0), null);
+        insert(null, account.getId(), 999, "FAILED", first.plusDays(1).atTime(10, 0), null);
+        // A row written after snapshots existed, rolled up before the backfill runs
+        credit(5, first.plusDays(2).atTime(9, 0), false);
+        rollUp();
+        assertDay(first.plusDays(2), "5", "0", 1, "5");
+
+        assertTrue(balanceSnapshotService.backfill(account.getId()));
+        assertFalse(balanceSnapshotService.backfill(account.getId()));
+
+        assertDay(first, "100", "0", 1, "100");
+        assertDay(first.plusDays(1), "0", "40", 1, "60");
+        assertDay(first.plusDays(2), "5", "0", 1, "65");
+        assertBigDecimal("65", balanceAt(first.plusDays(3).atStartOfDay()));
+    }
+
+    @Test
+    void balanceAtAddsDayRowsUpToInstantIncludingArchived() {
+        LocalDate first = LocalDate.of(2021, 8, 1);
+        LocalDate second = first.plusDays(1);
+        credit(100, first.atTime(10, 0), false);
+        Long morning = credit(10, second.atTime(9, 0), false);
+        Long noon = credit(20, second.atTime(12, 0), false);
+        Long afternoon = debit(5, second.atTime(15, 0), false);
+
+        // Nothing rolled up yet: the earlier day comes from the unsnapshotted rows
+        assertBigDecimal("130", balanceAt(second.atTime(13, 0)));
+        rollUp();
+        assertBigDecimal("0", balanceAt(first.atTime(9, 0)));
+        assertBigDecimal("100", balanceAt(first.atTime(10, 0)));
+        assertBigDecimal("130", balanceAt(second.atTime(13, 0)));
+
+        archive(List.of(morning, noon, afternoon));
+
+        assertTrue(transactionRepository.findAllById(List.of(morning, noon, afternoon)).isEmpty());
+        assertBigDecimal("110", balanceAt(second.atTime(9, 30)));
+        assertBigDecimal("130", balanceAt(second.atTime(13, 0)));
+        assertBigDecimal("125", balanceAt(second.atTime(15, 0)));
+    }
+
+    @Test
+    void closedMonthStatementIsStoredOnce() {
+        YearMonth month = YearMonth.of(2020, 3);
+        credit(200, LocalDateTime.of(2020, 2, 20, 9, 0), false);
+        credit(50, month.atDay(5).atTime(9, 0), false);
+        debit(30, month.atDay(20).atTime(9, 0), false);
+        rollUp();
+
+        MonthlyStatement statement = balanceSnapshotService.getStatement(account.getAccountNumber(), month);
+
+        assertNotNull(statement.getId());
+        assertBigDecimal("200", statement.getOpeningBalance());
+        assertBigDecimal("220", statement.getClosingBalance());
+        assertBigDecimal("50", statement.getTotalCredits());
+        assertBigDecimal("30", statement.getTotalDebits());
+        assertEquals(2, statement.getTransactionCount());
+
+        // A late row changes the snapshots but not the statement already stored
+        credit(1000, month.atDay(25).atTime(9, 0), false);
+        rollUp();
+        MonthlyStatement again = balanceSnapshotService.getStatement(account.getAccountNumber(), month);
+
+        assertEquals(statement.getId(), again.getId());
+        assertBigDecimal("220", again.getClosingBalance());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM monthly_statements WHERE account_id = ?", Integer.class, account.getId()));
+        assertThrows(RuntimeException.class,
+                () -> balanceSnapshotService.getStatement(account.getAccountNumber(), YearMonth.now()));
+    }
+
+    private void rollUp() {
+        while (balanceSnapshotService.rollup() > 0) {
+            // Until every resolved row is in the snapshots
+        }
+    }
+
+    private BigDecimal balanceAt(LocalDateTime at) {
+        return balanceSnapshotService.balanceAt(account.getAccountNumber(), at);
+    }
+
+    // Moves the rows to an archive segment and out of the table, as the archiver does
+    private void archive(List<Long> ids) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Transaction> rows = transactionRepository.findAllById(ids);
+            rows.forEach(row -> {
+                if (row.getFromAccount() != null) {
+                    row.getFromAccount().getAccountNumber();
+                }
+                if (row.getToAccount() != null) {
+                    row.getToAccount().getAccountNumber();
+                }
+            });
+            try {
+                transactionArchive.append(rows);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        ids.forEach(id -> jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", id));
+    }
+
+    private void assertDay(LocalDate day, String credits, String debits, long count, String closing) {
+        DailyBalance row = dailyBalanceRepository.findBetween(account.getId(), day, day).stream()
+                .findFirst().orElseThrow(() -> new AssertionError("no snapshot for " + day));
+        assertBigDecimal(credits, row.getTotalCredits());
+        assertBigDecimal(debits, row.getTotalDebits());
+        assertEquals(count, row.getTransactionCount());
+        assertBigDecimal(closing, row.getClosingBalance());
+    }
+
+    private Boolean snapshotted(Long id) {
+        return jdbcTemplate.queryForObject("SELECT snapshotted FROM transactions WHERE id = ?", Boolean.class, id);
+    }
+
+    private Long credit(int amount, LocalDateTime createdAt, Boolean snapshotted) {
+        return insert(null, account.getId(), amount, "COMPLETED", createdAt, snapshotted);
+    }
+
+    private Long debit(int amount, LocalDateTime createdAt, Boolean snapshotted) {
+        return insert(account.getId(), null, amount, "COMPLETED", createdAt, snapshotted);
+    }
+
+    // snapshotted is null for a row written before snapshots existed
+    private Long insert(Long fromAccountId, Long toAccountId, int amount, String status,
+                        LocalDateTime createdAt, Boolean snapshotted) {
+        String transactionId = "TXN-SNAPSHOT-" + UUID.randomUUID();
+        String type = fromAccountId == null ? "DEPOSIT" : toAccountId == null ? "WITHDRAWAL" : "TRANSFER";
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, transaction_type, amount, status, " +
+                        "created_at, updated_at, from_account_id, to_account_id, snapshotted) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                transactionId, type, amount, status, Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt),
+                fromAccountId, toAccountId, snapshotted);
+        return jdbcTemplate.queryForObject("SELECT id FROM transactions WHERE transaction_id = ?",
+                Long.class, transactionId);
+    }
+
+    private static void assertBigDecimal(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+}
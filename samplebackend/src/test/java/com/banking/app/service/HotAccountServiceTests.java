@@ -0,0 +1,85 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.BatchTransactionItem;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.AccountBalanceSlotRepository;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Credits to a hot account land in its balance slots on every path that does not go
+ * through the atomic updates: deposits and transfers under the concurrency strategy, and
+ * batches. The row only changes when the slots are folded.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+        "banking.balance.atomic-updates=false",
+        "banking.hot-accounts.fold-interval-ms=3600000"
+})
+class HotAccountServiceTests {
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void everyCreditGoesToBalanceSlots() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Hot");
+        user.setLastName("Accounts");
+        user = userRepository.save(user);
+        String payer = accountService.createAccount(user.getId(), Account.AccountType.SALARY).getAccountNumber();
+        Account merchant = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        accountService.updateBalance(payer, new BigDecimal("1000"));
+        hotAccountService.markHot(merchant.getAccountNumber(), 4);
+
+        transactionService.deposit(merchant.getAccountNumber(), new BigDecimal("10"), "deposit");
+        transactionService.transferMoney(payer, merchant.getAccountNumber(), new BigDecimal("20"), "transfer");
+        transactionService.processBatch(List.of(
+                new BatchTransactionItem(BatchTransactionItem.Operation.DEPOSIT, null, null,
+                        merchant.getAccountNumber(), new BigDecimal("5"), "batch deposit"),
+                new BatchTransactionItem(BatchTransactionItem.Operation.TRANSFER, payer,
+                        merchant.getAccountNumber(), null, new BigDecimal("7"), "batch transfer")));
+
+        assertEquals(0, balance(merchant.getAccountNumber()).compareTo(BigDecimal.ZERO));
+        assertEquals(0, slotRepository.sumByAccountId(merchant.getId()).compareTo(new BigDecimal("42")));
+        assertEquals(0, balance(payer).compareTo(new BigDecimal("973")));
+
+        hotAccountService.unmarkHot(merchant.getAccountNumber());
+
+        assertEquals(0, balance(merchant.getAccountNumber()).compareTo(new BigDecimal("42")));
+    }
+
+    private BigDecimal balance(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance();
+    }
+}
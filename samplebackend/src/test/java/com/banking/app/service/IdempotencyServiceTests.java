@@ -0,0 +1,254 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.ApiResponse;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.IdempotencyRecord;
+import com.banking.app.entity.User;
+import com.banking.app.repository.AccountRepository;
+import com.banking.app.repository.IdempotencyRecordRepository;
+import com.banking.app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A key runs its request once: repeats, whether they arrive after the first request or
+ * while it is still running, get its response back and move no money. A key reused for
+ * a different request is rejected, and a failed request gives the key back. Two instances
+ * that both find a key unclaimed, or both find it expired, cannot both claim it.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class IdempotencyServiceTests {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    private String accountNumber;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void createAccount() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Idempotency");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        accountNumber = accountService.createAccount(user.getId(), Account.AccountType.SALARY).getAccountNumber();
+    }
+
+    @Test
+    void duplicateReplaysWithoutMovingMoney() {
+        String key = UUID.randomUUID().toString();
+
+        ResponseEntity<?> first = deposit(key, new BigDecimal("25.00"));
+        ResponseEntity<?> repeat = deposit(key, new BigDecimal("25.00"));
+
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(200, repeat.getStatusCode().value());
+        assertEquals("true", repeat.getHeaders().getFirst("Idempotent-Replayed"));
+        assertSame(first.getBody(), repeat.getBody());
+        assertEquals(1, runs.get());
+        assertBalance("25");
+    }
+
+    @Test
+    void duplicateReplaysFromTableAfterCacheIsLost() {
+        String key = UUID.randomUUID().toString();
+        deposit(key, new BigDecimal("25"));
+        ReflectionTestUtils.invokeMethod(idempotencyService, "init");
+
+        ResponseEntity<?> repeat = deposit(key, new BigDecimal("25"));
+
+        assertEquals(200, repeat.getStatusCode().value());
+        assertTrue(repeat.getBody().toString().contains("Amount deposited"), String.valueOf(repeat.getBody()));
+        assertEquals(1, runs.get());
+        assertBalance("25");
+    }
+
+    @Test
+    void concurrentDuplicatesWaitThenReplay() throws Exception {
+        String key = UUID.randomUUID().toString();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            Future<ResponseEntity<?>> first = callers.submit(() -> execute(key, new BigDecimal("25"), () -> {
+                running.countDown();
+                await(release);
+                return depositNow(new BigDecimal("25"));
+            }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<ResponseEntity<?>> second = callers.submit(() -> deposit(key, new BigDecimal("25")));
+            Future<ResponseEntity<?>> third = callers.submit(() -> deposit(key, new BigDecimal("25")));
+            // Both duplicates are waiting on the first request rather than failing fast
+            Thread.sleep(200);
+            assertFalse(second.isDone());
+            assertFalse(third.isDone());
+            release.countDown();
+
+            Object body = first.get(10, TimeUnit.SECONDS).getBody();
+            assertSame(body, second.get(10, TimeUnit.SECONDS).getBody());
+            assertSame(body, third.get(10, TimeUnit.SECONDS).getBody());
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+        assertBalance("25");
+    }
+
+    @Test
+    void keyReusedForDifferentRequestIsRejected() {
+        String key = UUID.randomUUID().toString();
+        deposit(key, new BigDecimal("25"));
+
+        ResponseEntity<?> reused = deposit(key, new BigDecimal("30"));
+
+        assertEquals(422, reused.getStatusCode().value());
+        assertEquals(1, runs.get());
+        assertBalance("25");
+    }
+
+    @Test
+    void amountsThatDifferOnlyInScaleAreTheSameRequest() {
+        String key = UUID.randomUUID().toString();
+        deposit(key, new BigDecimal("25"));
+
+        ResponseEntity<?> repeat = deposit(key, new BigDecimal("25.00"));
+
+        assertEquals(200, repeat.getStatusCode().value());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedRequestReleasesKey() {
+        String key = UUID.randomUUID().toString();
+
+        ResponseEntity<?> failed = execute(key, new BigDecimal("25"), () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "Error: Account is frozen"));
+        });
+
+        assertEquals(400, failed.getStatusCode().value());
+        assertTrue(idempotencyRecordRepository.findAll().stream()
+                .noneMatch(record -> record.getIdempotencyKey().endsWith(":" + key)));
+        ResponseEntity<?> retried = deposit(key, new BigDecimal("25"));
+        assertEquals(200, retried.getStatusCode().value());
+        assertNull(retried.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals(2, runs.get());
+        assertBalance("25");
+    }
+
+    @Test
+    void secondInstanceCannotOverwriteKeyClaimedAfterItsLookup() {
+        String key = UUID.randomUUID().toString();
+        
+        ResponseEntity<?> late = racingInstance(key).execute(key, "deposit", () -> depositNow(new BigDecimal("25")),
+                accountNumber, new BigDecimal("25"), "idempotent deposit");
+        
+        assertEquals(409, late.getStatusCode().value());
+        assertEquals(1, runs.get());
+        assertBalance("25");
+        assertEquals(IdempotencyRecord.RecordStatus.COMPLETED,
+                idempotencyRecordRepository.findById("anonymous:" + key).orElseThrow().getStatus());
+    }
+    
+    @Test
+    void expiredKeyIsTakenOverByOneInstanceOnly() {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+        idempotencyRecordRepository.save(new IdempotencyRecord("anonymous:" + key, "stale",
+                IdempotencyRecord.RecordStatus.COMPLETED, 200, "{}", expired.minusDays(1), expired));
+        
+        ResponseEntity<?> late = racingInstance(key).execute(key, "deposit", () -> depositNow(new BigDecimal("25")),
+                accountNumber, new BigDecimal("25"), "idempotent deposit");
+        
+        assertEquals(409, late.getStatusCode().value());
+        assertEquals(1, runs.get());
+        assertBalance("25");
+    }
+    
+    // A second instance sharing the table, whose lookup of the key is overtaken by this
+    // instance claiming it and completing the same request
+    private IdempotencyService racingInstance(String key) {
+        IdempotencyService other = beanFactory.createBean(IdempotencyService.class);
+        IdempotencyRecordRepository repository = Mockito.mock(IdempotencyRecordRepository.class,
+                AdditionalAnswers.delegatesTo(idempotencyRecordRepository));
+        Mockito.doAnswer(invocation -> {
+            Optional<IdempotencyRecord> seen = idempotencyRecordRepository.findById(invocation.getArgument(0));
+            assertEquals(200, deposit(key, new BigDecimal("25")).getStatusCode().value());
+            return seen;
+        }).when(repository).findById("anonymous:" + key);
+        ReflectionTestUtils.setField(other, "idempotencyRecordRepository", repository);
+        return other;
+    }
+    
+    private ResponseEntity<?> deposit(String key, BigDecimal amount) {
+        return execute(key, amount, () -> depositNow(amount));
+    }
+
+    private ResponseEntity<?> depositNow(BigDecimal amount) {
+        runs.incrementAndGet();
+        transactionService.deposit(accountNumber, amount, "idempotent deposit");
+        return ResponseEntity.ok(new ApiResponse(true, "Amount deposited successfully!", Map.of("amount", amount)));
+    }
+
+    private ResponseEntity<?> execute(String key, BigDecimal amount, Supplier<ResponseEntity<?>> action) {
+        return idempotencyService.execute(key, "deposit", action, accountNumber, amount, "idempotent deposit");
+    }
+
+    private void assertBalance(String expected) {
+        BigDecimal balance = accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance();
+        assertEquals(0, balance.compareTo(new BigDecimal(expected)), "balance " + balance);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
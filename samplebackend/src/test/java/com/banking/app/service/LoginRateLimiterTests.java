@@ -0,0 +1,88 @@
+package com.banking.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Failed password checks lock an account out only from the address they came from, until
+ * enough of them, from any number of addresses, lock it out everywhere. An attempt turned
+ * away by an account bucket does not use up the address's attempts.
+ */
+class LoginRateLimiterTests {
+
+    private static final String VICTIM = "victim@example.com";
+
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void createLimiter() {
+        limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "perAddressBurst", 5);
+        ReflectionTestUtils.setField(limiter, "perAddressPerMinute", 1);
+        ReflectionTestUtils.setField(limiter, "perAccountBurst", 2);
+        ReflectionTestUtils.setField(limiter, "perAccountPerMinute", 1);
+        ReflectionTestUtils.setField(limiter, "accountWideBurst", 6);
+        ReflectionTestUtils.setField(limiter, "accountWidePerMinute", 1);
+    }
+
+    @Test
+    void failuresFromOneAddressDoNotLockOwnerOutElsewhere() {
+        for (int i = 0; i < 2; i++) {
+            limiter.acquire("10.0.0.66", VICTIM);
+            limiter.recordFailure("10.0.0.66", VICTIM);
+        }
+
+        assertThrows(LoginRateLimiter.LimitExceededException.class, () -> limiter.acquire("10.0.0.66", VICTIM));
+        assertThrows(LoginRateLimiter.LimitExceededException.class,
+                () -> limiter.acquire("10.0.0.66", " Victim@Example.com "));
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.1", VICTIM));
+    }
+
+    @Test
+    void successfulSignInsDoNotChargeAccount() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("10.0.0.1", VICTIM);
+        }
+
+        // The address is spent; the account bucket was never touched
+        assertThrows(LoginRateLimiter.LimitExceededException.class, () -> limiter.acquire("10.0.0.1", VICTIM));
+        limiter.recordFailure("10.0.0.2", VICTIM);
+        assertDoesNotThrow(() -> limiter.acquire("10.0.0.2", VICTIM));
+    }
+
+    @Test
+    void attemptRejectedByAccountKeepsAddressAttempts() {
+        limiter.recordFailure("10.0.0.66", VICTIM);
+        limiter.recordFailure("10.0.0.66", VICTIM);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(LoginRateLimiter.LimitExceededException.class, () -> limiter.acquire("10.0.0.66", VICTIM));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("10.0.0.66", "other@example.com");
+        }
+        assertThrows(LoginRateLimiter.LimitExceededException.class,
+                () -> limiter.acquire("10.0.0.66", "other@example.com"));
+    }
+
+    @Test
+    void failuresSpreadOverManyAddressesLockAccountEverywhere() {
+        // One failure from each address stays under every per-address account bucket
+        for (int i = 0; i < 6; i++) {
+            String address = "10.0.1." + i;
+            limiter.acquire(address, VICTIM);
+            limiter.recordFailure(address, VICTIM);
+        }
+
+        assertThrows(LoginRateLimiter.LimitExceededException.class, () -> limiter.acquire("10.0.1.99", VICTIM));
+        assertThrows(LoginRateLimiter.LimitExceededException.class,
+                () -> limiter.acquire("10.0.0.1", " Victim@Example.com "));
+        assertDoesNotThrow(() -> limiter.acquire("10.0.1.99", "other@example.com"));
+    }
+}
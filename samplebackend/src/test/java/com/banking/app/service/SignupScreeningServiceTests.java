@@ -0,0 +1,152 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.SignupRequest;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import com.banking.app.support.StatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Signups with identifiers the screen has never seen skip the uniqueness query, the rest
+ * run exactly one, and a user saved behind the screen's back (as on another instance) is
+ * reported by the constraint with the same message the query would have given, also when
+ * the constraint has a name only an older schema uses.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.banking.app.support.StatementCounter",
+    "banking.login-limit.enabled=false"
+})
+class SignupScreeningServiceTests {
+
+    @Autowired
+    private SignupScreeningService signupScreeningService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void unseenIdentifiersSkipTheQuery() {
+        double skipped = count("skipped");
+        double queried = count("queried");
+        StatementCounter.reset();
+
+        signupScreeningService.checkAvailable(unique() + "@example.com", unique(), unique());
+
+        assertEquals(0, StatementCounter.count());
+        assertEquals(skipped + 1, count("skipped"));
+        assertEquals(queried, count("queried"));
+    }
+
+    @Test
+    void seenIdentifiersAreCheckedInOneQuery() {
+        User user = authService.registerUser(signup(unique() + "@example.com", unique(), unique()), null);
+        double queried = count("queried");
+
+        StatementCounter.reset();
+        RuntimeException email = assertThrows(RuntimeException.class,
+                () -> signupScreeningService.checkAvailable(user.getEmail(), unique(), unique()));
+        assertEquals(1, StatementCounter.count());
+        assertEquals(SignupScreeningService.EMAIL_TAKEN, email.getMessage());
+
+        StatementCounter.reset();
+        RuntimeException aadhar = assertThrows(RuntimeException.class, () -> signupScreeningService
+                .checkAvailable(unique() + "@example.com", unique(), user.getAadharNumber()));
+        assertEquals(1, StatementCounter.count());
+        assertEquals(SignupScreeningService.AADHAR_NUMBER_TAKEN, aadhar.getMessage());
+        assertEquals(queried + 2, count("queried"));
+    }
+
+    @Test
+    void usersTheScreenHasNotSeenAreReportedByTheConstraint() {
+        // Saved directly, as another instance would, so the screen still skips the query
+        User other = userRepository.save(user(unique() + "@example.com", unique(), unique()));
+
+        RuntimeException email = assertThrows(RuntimeException.class,
+                () -> authService.registerUser(signup(other.getEmail(), unique(), unique()), null));
+        RuntimeException pan = assertThrows(RuntimeException.class,
+                () -> authService.registerUser(signup(unique() + "@example.com", other.getPanNumber(), unique()), null));
+
+        assertEquals(SignupScreeningService.EMAIL_TAKEN, email.getMessage());
+        assertEquals(SignupScreeningService.PAN_NUMBER_TAKEN, pan.getMessage());
+    }
+
+    @Test
+    void duplicateKeyUnderAnotherNameIsLookedUpAgain() {
+        User other = userRepository.save(user(unique() + "@example.com", unique(), unique()));
+        // MySQL, on a schema that kept the index Hibernate generated for the email
+        DataIntegrityViolationException legacy = violation(new SQLException(
+                "Duplicate entry for key 'users.UK_6dv5y1yitbqkqrrbwggt4mdkq'", "23000", 1062));
+
+        RuntimeException error = signupScreeningService.toSignupError(legacy, other.getEmail(), unique(), unique());
+
+        assertEquals(SignupScreeningService.EMAIL_TAKEN, error.getMessage());
+        // Nothing found again: the violation is reported as it is
+        assertSame(legacy, signupScreeningService.toSignupError(legacy, unique() + "@example.com", unique(), unique()));
+    }
+
+    @Test
+    void otherViolationsAreReportedAsTheyAre() {
+        User other = userRepository.save(user(unique() + "@example.com", unique(), unique()));
+        DataIntegrityViolationException notNull = violation(new SQLException(
+                "Column 'first_name' cannot be null", "23000", 1048));
+
+        assertSame(notNull, signupScreeningService.toSignupError(notNull, other.getEmail(), unique(), unique()));
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("signup.screen", "result", result).count();
+    }
+
+    private static DataIntegrityViolationException violation(SQLException cause) {
+        return new DataIntegrityViolationException("could not execute statement", cause);
+    }
+
+    private static SignupRequest signup(String email, String panNumber, String aadharNumber) {
+        SignupRequest request = new SignupRequest();
+        request.setEmail(email);
+        request.setPassword("password");
+        request.setFirstName("Signup");
+        request.setLastName("Screen");
+        request.setPanNumber(panNumber);
+        request.setAadharNumber(aadharNumber);
+        return request;
+    }
+
+    private static User user(String email, String panNumber, String aadharNumber) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setFirstName("Signup");
+        user.setLastName("Screen");
+        user.setPanNumber(panNumber);
+        user.setAadharNumber(aadharNumber);
+        user.setRole(User.UserRole.CUSTOMER);
+        return user;
+    }
+
+    private static String unique() {
+        return UUID.randomUUID().toString().substring(0, 12);
+    }
+}
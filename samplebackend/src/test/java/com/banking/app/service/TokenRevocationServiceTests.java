@@ -0,0 +1,130 @@
+package com.banking.app.service;
+
+import com.banking.app.config.JwtUtils;
+import com.banking.app.entity.TokenRevocation;
+import com.banking.app.entity.User;
+import com.banking.app.repository.TokenRevocationRepository;
+import com.banking.app.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tokens carry the role and are accepted without loading the user, so changing the role or
+ * deactivating the user must reject the tokens already issued: at once on the instance that
+ * made the change, and on the next refresh on the others. Tokens issued afterwards work.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@TestPropertySource(properties = "banking.revocation.refresh-interval-ms=3600000")
+class TokenRevocationServiceTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void roleChangeRejectsEarlierTokens() throws Exception {
+        User user = user(User.UserRole.CUSTOMER);
+        String token = token(user);
+        mockMvc.perform(get("/user/profile").header("Authorization", token)).andExpect(status().isOk());
+
+        mockMvc.perform(put("/user/{userId}/role", user.getId()).param("role", "MANAGER")
+                .header("Authorization", token(user(User.UserRole.ADMIN)))).andExpect(status().isOk());
+
+        mockMvc.perform(get("/user/profile").header("Authorization", token))
+                .andExpect(status().is4xxClientError());
+        User changed = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(User.UserRole.MANAGER, changed.getRole());
+        mockMvc.perform(get("/user/profile").header("Authorization", token(changed))).andExpect(status().isOk());
+    }
+
+    @Test
+    void deactivationRejectsEarlierTokens() throws Exception {
+        User user = user(User.UserRole.CUSTOMER);
+        String token = token(user);
+
+        mockMvc.perform(put("/user/{userId}/deactivate", user.getId())
+                .header("Authorization", token(user(User.UserRole.ADMIN)))).andExpect(status().isOk());
+
+        mockMvc.perform(get("/user/profile").header("Authorization", token))
+                .andExpect(status().is4xxClientError());
+        assertFalse(userRepository.findById(user.getId()).orElseThrow().getIsActive());
+    }
+
+    @Test
+    void customersCannotChangeRoles() throws Exception {
+        User user = user(User.UserRole.CUSTOMER);
+
+        mockMvc.perform(put("/user/{userId}/role", user.getId()).param("role", "ADMIN")
+                .header("Authorization", token(user))).andExpect(status().isForbidden());
+
+        assertEquals(User.UserRole.CUSTOMER, userRepository.findById(user.getId()).orElseThrow().getRole());
+    }
+
+    @Test
+    void revocationsMadeElsewhereApplyOnRefresh() {
+        User deactivated = user(User.UserRole.CUSTOMER);
+        Claims userToken = claims(deactivated);
+        Claims loggedOut = claims(user(User.UserRole.CUSTOMER));
+        Claims untouched = claims(user(User.UserRole.CUSTOMER));
+        LocalDateTime now = LocalDateTime.now();
+        // Rows as another instance writes them on deactivation and on logout
+        tokenRevocationRepository.save(new TokenRevocation(null, null, deactivated.getId(), now, now.plusDays(1)));
+        tokenRevocationRepository.save(new TokenRevocation(null, loggedOut.getId(), null, now, now.plusDays(1)));
+        assertFalse(tokenRevocationService.isRevoked(userToken));
+        assertFalse(tokenRevocationService.isRevoked(loggedOut));
+
+        tokenRevocationService.refresh();
+
+        assertTrue(tokenRevocationService.isRevoked(userToken));
+        assertTrue(tokenRevocationService.isRevoked(loggedOut));
+        assertFalse(tokenRevocationService.isRevoked(untouched));
+        assertFalse(tokenRevocationService.isRevoked(claims(deactivated)));
+    }
+
+    private User user(User.UserRole role) {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Revocation");
+        user.setLastName(role.name());
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private String token(User user) {
+        return "Bearer " + jwtUtils.generateToken(UserPrincipal.create(user));
+    }
+
+    private Claims claims(User user) {
+        return jwtUtils.verifiedClaims(jwtUtils.generateToken(UserPrincipal.create(user)));
+    }
+}
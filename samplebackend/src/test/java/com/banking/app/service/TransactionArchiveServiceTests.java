@@ -0,0 +1,24 @@
+package com.banking.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archiving deletes shared rows but keeps the segments on one instance's disk, so it must
+ * not run when several instances share the database.
+ */
+class TransactionArchiveServiceTests {
+
+    @Test
+    void refusesToRunWithSeveralInstances() {
+        TransactionArchiveService service = new TransactionArchiveService();
+        ReflectionTestUtils.setField(service, "instances", 2);
+
+        RuntimeException refused = assertThrows(RuntimeException.class, service::archive);
+
+        assertTrue(refused.getMessage().contains("single instance"));
+    }
+}
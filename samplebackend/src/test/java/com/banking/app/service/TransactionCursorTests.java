@@ -0,0 +1,205 @@
+package com.banking.app.service;
+
+import com.banking.app.dto.TransactionCursorPage;
+import com.banking.app.dto.TransactionResponse;
+import com.banking.app.entity.Account;
+import com.banking.app.entity.User;
+import com.banking.app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cursor tokens: following next cursors and then previous cursors visits the same pages
+ * in both directions, runs of rows created at the same instant are split across pages
+ * without losing a row, a date range may be open at either end, and a token that was not
+ * issued by the service is rejected.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ActiveProfiles("h2")
+class TransactionCursorTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String accountNumber;
+
+    // Ids newest first: 30 dated rows in runs of three equal instants, then 2 undated rows
+    private final List<Long> history = new ArrayList<>();
+
+    @BeforeAll
+    void createHistory() {
+        User user = new User();
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setFirstName("Cursor");
+        user.setLastName("Tests");
+        user = userRepository.save(user);
+        Account account = accountService.createAccount(user.getId(), Account.AccountType.SALARY);
+        accountNumber = account.getAccountNumber();
+
+        for (int i = 0; i < 2; i++) {
+            history.add(insert(null, account.getId()));
+        }
+        for (int i = 0; i < 30; i++) {
+            history.add(insert(START.plusMinutes(i / 3), account.getId()));
+        }
+        // Inserted oldest first with increasing ids, so reversing gives newest first
+        Collections.reverse(history);
+    }
+
+    @Test
+    void nextThenPreviousCursorsVisitSamePages() {
+        for (int size : new int[] {1, 3, 4, 7, 40}) {
+            List<List<Long>> pages = new ArrayList<>();
+            TransactionCursorPage page = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                    null, size);
+            assertNull(page.getPreviousCursor());
+            pages.add(ids(page));
+            while (page.getNextCursor() != null) {
+                page = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                        page.getNextCursor(), size);
+                pages.add(ids(page));
+            }
+            assertEquals(history, pages.stream().flatMap(List::stream).toList(), "pages of size " + size);
+
+            List<List<Long>> backwards = new ArrayList<>();
+            backwards.add(ids(page));
+            while (page.getPreviousCursor() != null) {
+                page = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                        page.getPreviousCursor(), size);
+                backwards.add(ids(page));
+            }
+            Collections.reverse(backwards);
+            assertEquals(pages, backwards, "pages of size " + size + " read backwards");
+        }
+    }
+
+    @Test
+    void previousCursorFromMiddleReturnsPageBefore() {
+        TransactionCursorPage first = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                null, 4);
+        TransactionCursorPage second = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                first.getNextCursor(), 4);
+
+        TransactionCursorPage back = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                second.getPreviousCursor(), 4);
+
+        assertEquals(ids(first), ids(back));
+        assertNull(back.getPreviousCursor());
+        assertEquals(history.subList(4, 8), ids(second));
+    }
+
+    @Test
+    void cursorsStayWithinDateRange() {
+        // Both bounds are instants shared by a run of three rows
+        assertPagesWithinRange(START.plusMinutes(2), START.plusMinutes(5), history.subList(12, 24));
+    }
+
+    @Test
+    void oneBoundLeavesOtherEndOpen() {
+        // Undated rows have no instant to compare, so a bound on either side leaves them out
+        assertPagesWithinRange(START.plusMinutes(8), null, history.subList(0, 6));
+        assertPagesWithinRange(null, START.plusMinutes(1), history.subList(24, 30));
+    }
+
+    private void assertPagesWithinRange(LocalDateTime startDate, LocalDateTime endDate, List<Long> inRange) {
+        List<Long> forward = new ArrayList<>();
+        TransactionCursorPage page = transactionService.getAccountTransactionsByCursor(accountNumber, startDate,
+                endDate, null, 5);
+        forward.addAll(ids(page));
+        while (page.getNextCursor() != null) {
+            page = transactionService.getAccountTransactionsByCursor(accountNumber, startDate, endDate,
+                    page.getNextCursor(), 5);
+            forward.addAll(ids(page));
+        }
+        assertEquals(inRange, forward);
+
+        List<Long> backward = new ArrayList<>(ids(page));
+        while (page.getPreviousCursor() != null) {
+            page = transactionService.getAccountTransactionsByCursor(accountNumber, startDate, endDate,
+                    page.getPreviousCursor(), 5);
+            backward.addAll(0, ids(page));
+        }
+        assertEquals(inRange, backward);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        List<String> tokens = List.of(
+                "not base64!",
+                token("o|2024-01-01T09:00|"),
+                token("o|2024-01-01T09:00"),
+                token("x|2024-01-01T09:00|1"),
+                token("o|yesterday|1"),
+                token("n|2024-01-01T09:00|one"),
+                token("o|2024-01-01T09:00|1|2"));
+        for (String token : tokens) {
+            RuntimeException rejected = assertThrows(RuntimeException.class, () -> transactionService
+                    .getAccountTransactionsByCursor(accountNumber, null, null, token, 5), token);
+            assertEquals("Invalid cursor", rejected.getMessage());
+        }
+    }
+
+    @Test
+    void cursorPastEitherEndReturnsEmptyPage() {
+        Long oldest = history.get(history.size() - 1);
+        Long newest = history.get(0);
+
+        TransactionCursorPage older = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                token("o||" + oldest), 5);
+        TransactionCursorPage newer = transactionService.getAccountTransactionsByCursor(accountNumber, null, null,
+                token("n|" + START.plusMinutes(9) + "|" + newest), 5);
+
+        assertTrue(older.getItems().isEmpty());
+        assertNull(older.getNextCursor());
+        assertTrue(newer.getItems().isEmpty());
+        assertNull(newer.getPreviousCursor());
+    }
+
+    private Long insert(LocalDateTime createdAt, Long accountId) {
+        String transactionId = "TXN-CURSOR-" + UUID.randomUUID();
+        Timestamp timestamp = createdAt != null ? Timestamp.valueOf(createdAt) : null;
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, transaction_type, amount, status, " +
+                        "created_at, updated_at, to_account_id, snapshotted) " +
+                        "VALUES (?, 'DEPOSIT', 10, 'COMPLETED', ?, ?, ?, TRUE)",
+                transactionId, timestamp, timestamp, accountId);
+        return jdbcTemplate.queryForObject("SELECT id FROM transactions WHERE transaction_id = ?",
+                Long.class, transactionId);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Long> ids(TransactionCursorPage page) {
+        return page.getItems().stream().map(TransactionResponse::getId).toList();
+    }
+}